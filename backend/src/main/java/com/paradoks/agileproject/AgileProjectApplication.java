@@ -15,6 +15,7 @@ public class AgileProjectApplication {
 		System.setProperty("DB_DATABASE", dotenv.get("DB_DATABASE"));
 		System.setProperty("DB_USERNAME", dotenv.get("DB_USERNAME"));
 		System.setProperty("DB_PASSWORD", dotenv.get("DB_PASSWORD"));
+		System.setProperty("SESSION_SIGNING_SECRET", dotenv.get("SESSION_SIGNING_SECRET", ""));
 
 		SpringApplication.run(AgileProjectApplication.class, args);
 	}
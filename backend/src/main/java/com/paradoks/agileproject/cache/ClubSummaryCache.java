@@ -0,0 +1,57 @@
+package com.paradoks.agileproject.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paradoks.agileproject.dto.mapper.ClubMapper;
+import com.paradoks.agileproject.dto.response.ClubResponse;
+import com.paradoks.agileproject.exception.NotFoundException;
+import com.paradoks.agileproject.repository.ClubRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Club summaries embedded in post responses, cached by club id so a page of posts does not load
+ * the club and its tags per row. A miss costs one query; entries are evicted when the club is updated.
+ */
+@Component
+public class ClubSummaryCache {
+
+    private final Cache<Long, ClubResponse> cache;
+    private final ClubRepository clubRepository;
+    private final ClubMapper clubMapper;
+
+    public ClubSummaryCache(ClubRepository clubRepository, ClubMapper clubMapper,
+                            @Value("${club.summary-cache.ttl-seconds}") long ttlSeconds,
+                            @Value("${club.summary-cache.max-size}") long maxSize,
+                            MeterRegistry meterRegistry) {
+        this.clubRepository = clubRepository;
+        this.clubMapper = clubMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "club.summary");
+    }
+
+    /**
+     * Returns the club's summary, or throws a 404 if the club does not exist. Callers must not modify it.
+     */
+    public ClubResponse get(Long clubId) {
+        ClubResponse summary = cache.get(clubId, id -> clubRepository.findWithTagsById(id)
+                .map(clubMapper::clubToClubResponse)
+                .orElse(null));
+        if (summary == null) {
+            throw new NotFoundException("Club not found");
+        }
+        return summary;
+    }
+
+    public void evict(Long clubId) {
+        cache.invalidate(clubId);
+    }
+}
@@ -0,0 +1,87 @@
+package com.paradoks.agileproject.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paradoks.agileproject.service.ImageStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Validators and content types for files served from the upload directory. Each lookup costs one stat call;
+ * the ETag is the SHA-256 of the content, taken from the name of content-addressed files and otherwise hashed
+ * once per file version (name, size and modification time) and kept in a bounded cache.
+ */
+@Component
+public class FileMetadataCache {
+
+    public record FileMetadata(long length, Instant lastModified, String eTag, MediaType contentType) {
+    }
+
+    private final Cache<String, String> eTags;
+    private final Map<String, MediaType> contentTypes = new ConcurrentHashMap<>();
+
+    public FileMetadataCache(@Value("${pictures.etag-cache.max-size}") long maxSize, MeterRegistry meterRegistry) {
+        this.eTags = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, eTags, "file.etag");
+    }
+
+    /**
+     * Throws {@link NoSuchFileException} when there is no regular file at the path.
+     */
+    public FileMetadata get(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (!attributes.isRegularFile()) {
+            throw new NoSuchFileException(file.toString());
+        }
+        String name = file.getFileName().toString();
+        Instant lastModified = attributes.lastModifiedTime().toInstant();
+        return new FileMetadata(attributes.size(), lastModified, eTag(file, name, attributes.size(), lastModified), contentType(name));
+    }
+
+    private String eTag(Path file, String name, long size, Instant lastModified) {
+        if (ImageStore.CONTENT_ADDRESSED.matcher(name).matches()) {
+            return "\"" + name.substring(0, name.indexOf('.')) + "\"";
+        }
+        return eTags.get(name + ":" + size + ":" + lastModified.toEpochMilli(), key -> "\"" + sha256(file) + "\"");
+    }
+
+    private MediaType contentType(String name) {
+        int dot = name.lastIndexOf('.');
+        String extension = dot < 0 ? "" : name.substring(dot + 1).toLowerCase();
+        return contentTypes.computeIfAbsent(extension, ext ->
+                MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM));
+    }
+
+    private static String sha256(Path file) {
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
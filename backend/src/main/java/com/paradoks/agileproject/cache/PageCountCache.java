@@ -0,0 +1,36 @@
+package com.paradoks.agileproject.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of COUNT(*) results for listings requested with {@code count=cached}.
+ * Totals may lag behind writes by up to {@code pagination.count-cache.ttl-seconds}.
+ */
+@Component
+public class PageCountCache {
+
+    private final Cache<String, Long> cache;
+
+    public PageCountCache(@Value("${pagination.count-cache.ttl-seconds}") long ttlSeconds,
+                          @Value("${pagination.count-cache.max-size}") long maxSize,
+                          MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "page.count");
+    }
+
+    public long get(String key, LongSupplier count) {
+        return cache.get(key, k -> count.getAsLong());
+    }
+}
@@ -0,0 +1,151 @@
+package com.paradoks.agileproject.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized responses of anonymous GET routes, filled by ResponseCacheMiddleware. Each entry carries
+ * tags naming the data it was built from, and writes invalidate by tag; the TTL bounds staleness across
+ * instances and for data that changes without a write (announcements going live).
+ */
+@Component
+public class ResponseCache {
+
+    public static final String CLUBS = "clubs";
+    public static final String ANNOUNCEMENTS = "announcements";
+
+    /** Club page and every response embedding the club's summary. */
+    public static String club(Long clubId) {
+        return "club:" + clubId;
+    }
+
+    public static String clubPosts(Long clubId) {
+        return "club-posts:" + clubId;
+    }
+
+    public static String clubMembers(Long clubId) {
+        return "club-members:" + clubId;
+    }
+
+    public record CachedResponse(Map<String, List<String>> headers, byte[] body, byte[] gzipped, Set<String> tags) {
+    }
+
+    private final Cache<String, CachedResponse> cache;
+    private final Map<String, Set<String>> keysByTag = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public ResponseCache(@Value("${response-cache.ttl-seconds}") long ttlSeconds,
+                         @Value("${response-cache.max-bytes}") long maxBytes,
+                         MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse response) ->
+                        key.length() + response.body().length + (response.gzipped() != null ? response.gzipped().length : 0))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                // Size and TTL evictions unlink the key from its tags; explicit removals go through remove()
+                .evictionListener((String key, CachedResponse response, RemovalCause cause) -> {
+                    if (key != null && response != null) {
+                        unlink(key, response);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "http.response");
+    }
+
+    public CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /** Read before rendering a miss; {@link #put} drops the response if anything was invalidated since. */
+    public long version() {
+        return version.get();
+    }
+
+    public void put(String key, CachedResponse response, long versionAtStart) {
+        link(key, response);
+        cache.put(key, response);
+        // A write committed while this response was rendered, so it may already be stale
+        if (version.get() != versionAtStart) {
+            remove(key, response);
+        }
+    }
+
+    /** Number of key-to-tag links held for invalidation; every cached response accounts for one per tag. */
+    public long taggedKeys() {
+        cache.cleanUp();
+        return keysByTag.values().stream().mapToLong(Set::size).sum();
+    }
+
+    /**
+     * Drops every response carrying one of the tags. Inside a transaction this happens after commit,
+     * so a concurrent miss cannot re-cache the old state in between.
+     */
+    public void invalidate(String... tags) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow(tags);
+                }
+            });
+        } else {
+            invalidateNow(tags);
+        }
+    }
+
+    private void invalidateNow(String... tags) {
+        version.incrementAndGet();
+        for (String tag : tags) {
+            Set<String> keys = keysByTag.remove(tag);
+            if (keys != null) {
+                keys.forEach(key -> remove(key, null));
+            }
+        }
+    }
+
+    // Removes the entry (only if it is still the given response, when one is given) and unlinks it from
+    // all of its tags, not just the one being invalidated
+    private void remove(String key, CachedResponse expected) {
+        CachedResponse removed;
+        if (expected == null) {
+            removed = cache.asMap().remove(key);
+        } else {
+            removed = cache.asMap().remove(key, expected) ? expected : null;
+        }
+        if (removed == null) {
+            return;
+        }
+        unlink(key, removed);
+        // A newer response for the same key may have linked itself while the old one was being unlinked
+        CachedResponse current = cache.getIfPresent(key);
+        if (current != null) {
+            link(key, current);
+        }
+    }
+
+    private void link(String key, CachedResponse response) {
+        response.tags().forEach(tag -> keysByTag.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(key));
+    }
+
+    private void unlink(String key, CachedResponse response) {
+        response.tags().forEach(tag -> keysByTag.computeIfPresent(tag, (t, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        }));
+    }
+}
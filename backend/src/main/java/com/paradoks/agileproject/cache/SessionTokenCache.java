@@ -0,0 +1,92 @@
+package com.paradoks.agileproject.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded token -> session cache placed in front of the session tables.
+ * Entries live for at most {@code ttl} and never outlive the session's own expiry.
+ * Hit, miss and eviction counters are published to the meter registry under {@code name}.
+ */
+public class SessionTokenCache<S> {
+
+    private final Cache<String, S> cache;
+    private final Function<S, LocalDateTime> expiresAt;
+
+    public SessionTokenCache(String name, Duration ttl, long maxSize, Function<S, LocalDateTime> expiresAt, MeterRegistry meterRegistry) {
+        this.expiresAt = expiresAt;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new SessionExpiry<>(ttl, expiresAt))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    /**
+     * Returns the cached session for the token, loading it with {@code loader} on a miss.
+     * Missing or already expired sessions are not cached.
+     */
+    public Optional<S> get(String token, Function<String, Optional<S>> loader) {
+        S session = cache.get(token, key -> loader.apply(key)
+                .filter(this::isLive)
+                .orElse(null));
+        if (session != null && !isLive(session)) {
+            cache.invalidate(token);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(session);
+    }
+
+    public void put(String token, S session) {
+        cache.put(token, session);
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(token);
+    }
+
+    public void invalidateIf(Predicate<S> predicate) {
+        cache.asMap().values().removeIf(predicate);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private boolean isLive(S session) {
+        return expiresAt.apply(session).isAfter(LocalDateTime.now());
+    }
+
+    private record SessionExpiry<S>(Duration ttl, Function<S, LocalDateTime> expiresAt) implements Expiry<String, S> {
+
+        @Override
+        public long expireAfterCreate(String token, S session, long currentTime) {
+            Duration untilExpiry = Duration.between(LocalDateTime.now(), expiresAt.apply(session));
+            if (untilExpiry.isNegative()) {
+                return 0;
+            }
+            return Math.min(ttl.toNanos(), untilExpiry.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, S session, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, session, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, S session, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
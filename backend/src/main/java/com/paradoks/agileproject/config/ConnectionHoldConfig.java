@@ -0,0 +1,28 @@
+package com.paradoks.agileproject.config;
+
+import com.paradoks.agileproject.utils.ConnectionHoldTracker;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "metrics.connection-hold.enabled", havingValue = "true")
+public class ConnectionHoldConfig {
+
+    // Wraps the pool so ConnectionHoldMiddleware can time checkouts; pool metrics still unwrap to Hikari
+    @Bean
+    public static BeanPostProcessor connectionHoldDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionHoldTracker.TrackingDataSource)) {
+                    return new ConnectionHoldTracker.TrackingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.paradoks.agileproject.config;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * With {@code schema.startup-mode=validate} the application does not migrate at startup: it checks that every
+ * migration has been applied unchanged and refuses to start otherwise, for deployments that run migrations as a
+ * separate step. The default, {@code migrate}, applies pending migrations.
+ */
+@Configuration
+@ConditionalOnProperty(name = "schema.startup-mode", havingValue = "validate")
+public class SchemaValidationConfig {
+
+    @Bean
+    public FlywayMigrationStrategy validateOnlyMigrationStrategy() {
+        return Flyway::validate;
+    }
+}
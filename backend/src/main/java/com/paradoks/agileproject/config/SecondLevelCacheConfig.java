@@ -0,0 +1,74 @@
+package com.paradoks.agileproject.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regions of the Hibernate second-level cache, held in Caffeine through JCache. Every region is created
+ * here with its own TTL and size bound (second-level-cache.&lt;region&gt;.*); Hibernate fails on any other.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class SecondLevelCacheConfig {
+
+    public static final String CLUBS = "clubs";
+    public static final String CLUB_TAGS = "club-tags";
+    public static final String USERS = "users";
+    public static final String USER_TAGS = "user-tags";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(Environment environment, MeterRegistry meterRegistry) {
+        // A manager per application context, so test contexts never share regions
+        CacheManager cacheManager = new CaffeineCachingProvider()
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        for (String region : new String[]{CLUBS, CLUB_TAGS, USERS, USER_TAGS}) {
+            createRegion(cacheManager, meterRegistry, region, environment, region);
+        }
+        createRegion(cacheManager, meterRegistry, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, environment, "query-results");
+
+        // Invalidation timestamps for the query cache must outlive every cached result, so no TTL or bound
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static void createRegion(CacheManager cacheManager, MeterRegistry meterRegistry, String region,
+                                     Environment environment, String propertyKey) {
+        long ttlSeconds = environment.getRequiredProperty("second-level-cache." + propertyKey + ".ttl-seconds", Long.class);
+        long maxSize = environment.getRequiredProperty("second-level-cache." + propertyKey + ".max-size", Long.class);
+
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setNativeStatisticsEnabled(true);
+
+        Cache<?, ?> cache = cacheManager.createCache(region, configuration).unwrap(Cache.class);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "hibernate." + region);
+        Gauge.builder("hibernate.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of second-level cache lookups served from the region")
+                .tag("region", region)
+                .register(meterRegistry);
+    }
+}
@@ -11,15 +11,16 @@ import com.paradoks.agileproject.dto.response.ApiResponse;
 import com.paradoks.agileproject.dto.response.ClubResponse;
 import com.paradoks.agileproject.dto.response.UserResponse;
 import com.paradoks.agileproject.exception.UnauthorizedException;
-import com.paradoks.agileproject.model.ClubSession;
-import com.paradoks.agileproject.model.UserSession;
+import com.paradoks.agileproject.model.SessionPrincipal;
 import com.paradoks.agileproject.service.ClubService;
 import com.paradoks.agileproject.service.ClubSessionService;
+import com.paradoks.agileproject.service.LoginThrottle;
 import com.paradoks.agileproject.service.UserService;
 import com.paradoks.agileproject.service.UserSessionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
@@ -36,14 +37,16 @@ public class AuthController {
     private final UserService userService;
     private final UserMapper userMapper;
     private final UserSessionService userSessionService;
+    private final LoginThrottle loginThrottle;
 
-    public AuthController(ClubService clubService, ClubSessionService clubSessionService, ClubMapper clubMapper, UserService userService, UserMapper userMapper, UserSessionService userSessionService) {
+    public AuthController(ClubService clubService, ClubSessionService clubSessionService, ClubMapper clubMapper, UserService userService, UserMapper userMapper, UserSessionService userSessionService, LoginThrottle loginThrottle) {
         this.clubService = clubService;
         this.clubSessionService = clubSessionService;
         this.clubMapper = clubMapper;
         this.userService = userService;
         this.userMapper = userMapper;
         this.userSessionService = userSessionService;
+        this.loginThrottle = loginThrottle;
     }
 
     @Operation(summary = "Yeni kulüp kaydı oluşturur")
@@ -59,8 +62,10 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<ApiResponse> login(
             @Valid @RequestBody LoginRequest request,
+            HttpServletRequest httpRequest,
             HttpServletResponse response
     ) {
+        loginThrottle.acquire(request.getEmail(), httpRequest.getRemoteAddr());
         String token = clubService.login(request);
 
         // Cookie oluştur
@@ -72,10 +77,10 @@ public class AuthController {
     @Operation(summary = "Mevcut kulübün bilgilerini döner")
     @GetMapping("/me")
     public ResponseEntity<ClubResponse> me() {
-        ClubSession session = clubSessionService.getCurrentSession()
+        SessionPrincipal principal = clubSessionService.getCurrentPrincipal()
                 .orElseThrow(() -> new UnauthorizedException("No active session found"));
 
-        return ResponseEntity.ok(clubMapper.clubToClubResponse(clubService.getClub(session.getClub().getId())));
+        return ResponseEntity.ok(clubMapper.clubToClubResponse(clubService.getClub(principal.getPrincipalId())));
     }
 
     @Operation(summary = "Yeni kullanıcı kaydı oluşturur")
@@ -91,8 +96,10 @@ public class AuthController {
     @PostMapping("/user/verify")
     public ResponseEntity<ApiResponse> verifyUser(
             @RequestParam String email,
-            @RequestParam String code
+            @RequestParam String code,
+            HttpServletRequest httpRequest
     ) {
+        loginThrottle.acquire(email, httpRequest.getRemoteAddr());
         ApiResponse response = userService.verifyUser(email, code);
         return ResponseEntity.status(response.isSuccess() ? 200 : 400).body(response);
     }
@@ -101,8 +108,10 @@ public class AuthController {
     @PostMapping("/user/login")
     public ResponseEntity<ApiResponse> loginUser(
             @Valid @RequestBody UserLoginRequest request,
+            HttpServletRequest httpRequest,
             HttpServletResponse response
     ) {
+        loginThrottle.acquire(request.getEmail(), httpRequest.getRemoteAddr());
         String token = userService.login(request);
 
         response.addCookie(createSessionCookie("USER_SESSION", token));
@@ -113,10 +122,10 @@ public class AuthController {
     @Operation(summary = "Mevcut kullanıcının bilgilerini döner")
     @GetMapping("/user/me")
     public ResponseEntity<UserResponse> meUser() {
-        UserSession session = userSessionService.getCurrentSession()
+        SessionPrincipal principal = userSessionService.getCurrentPrincipal()
                 .orElseThrow(() -> new UnauthorizedException("No active session found"));
 
-        return ResponseEntity.ok(userMapper.userToUserResponse(userService.getUser(session.getUser().getId())));
+        return ResponseEntity.ok(userMapper.userToUserResponse(userService.getUser(principal.getPrincipalId())));
     }
 
     @Operation(summary = "Mevcut kullanıcının bilgilerini günceller")
@@ -124,10 +133,10 @@ public class AuthController {
     public ResponseEntity<UserResponse> updateUser(
             @Valid @RequestBody UserUpdateRequest request
     ) {
-        UserSession session = userSessionService.getCurrentSession()
+        SessionPrincipal principal = userSessionService.getCurrentPrincipal()
                 .orElseThrow(() -> new UnauthorizedException("No active session found"));
 
-        return ResponseEntity.ok(userMapper.userToUserResponse(userService.updateUser(session.getUser().getId(), request)));
+        return ResponseEntity.ok(userMapper.userToUserResponse(userService.updateUser(principal.getPrincipalId(), request)));
     }
 
     @Operation(summary = "Mevcut kullanıcının hesabını siler")
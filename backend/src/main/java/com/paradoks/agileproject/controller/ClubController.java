@@ -1,32 +1,35 @@
 package com.paradoks.agileproject.controller;
 
+import com.paradoks.agileproject.cache.ClubSummaryCache;
 import com.paradoks.agileproject.dto.mapper.ClubMapper;
 import com.paradoks.agileproject.dto.mapper.PostMapper;
-import com.paradoks.agileproject.dto.mapper.UserMapper;
 import com.paradoks.agileproject.dto.request.ClubUpdateRequest;
 import com.paradoks.agileproject.dto.response.APPaged;
 import com.paradoks.agileproject.dto.response.ApiResponse;
 import com.paradoks.agileproject.dto.response.ClubResponse;
+import com.paradoks.agileproject.dto.response.ImageJobResponse;
 import com.paradoks.agileproject.dto.response.PostResponse;
 import com.paradoks.agileproject.dto.response.UserResponse;
 import com.paradoks.agileproject.exception.UnauthorizedException;
-import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.ImageJob;
 import com.paradoks.agileproject.model.Post;
-import com.paradoks.agileproject.model.ClubSession;
-import com.paradoks.agileproject.model.User;
-import com.paradoks.agileproject.model.UserSession;
+import com.paradoks.agileproject.model.PostView;
+import com.paradoks.agileproject.model.SessionPrincipal;
 import com.paradoks.agileproject.service.ClubService;
 import com.paradoks.agileproject.service.ClubSessionService;
 import com.paradoks.agileproject.service.UserSessionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.net.URI;
+
 import com.paradoks.agileproject.dto.request.PageableRequestParams;
 
 @Tag(name = "Clubs", description = "Kulüp işlemleri")
@@ -39,15 +42,15 @@ public class ClubController {
     private final ClubMapper clubMapper;
     private final PostMapper postMapper;
     private final UserSessionService userSessionService;
-    private final UserMapper userMapper;
+    private final ClubSummaryCache clubSummaryCache;
 
-    public ClubController(ClubService clubService, ClubSessionService clubSessionService, ClubMapper clubMapper, PostMapper postMapper, UserSessionService userSessionService, UserMapper userMapper) {
+    public ClubController(ClubService clubService, ClubSessionService clubSessionService, ClubMapper clubMapper, PostMapper postMapper, UserSessionService userSessionService, ClubSummaryCache clubSummaryCache) {
         this.clubService = clubService;
         this.clubSessionService = clubSessionService;
         this.clubMapper = clubMapper;
         this.postMapper = postMapper;
         this.userSessionService = userSessionService;
-        this.userMapper = userMapper;
+        this.clubSummaryCache = clubSummaryCache;
     }
 
     @Operation(summary = "Kulüp bilgilerini günceller")
@@ -55,54 +58,72 @@ public class ClubController {
     public ResponseEntity<ClubResponse> updateClub(
             @Valid @RequestBody ClubUpdateRequest request
     ) {
-        ClubSession currentSession = clubSessionService.getCurrentSession().orElseThrow(() -> new UnauthorizedException("Not Authenticated"));
-        Long clubId = currentSession.getClub().getId();
+        Long clubId = clubSessionService.getCurrentPrincipal().orElseThrow(() -> new UnauthorizedException("Not Authenticated")).getPrincipalId();
         return ResponseEntity.ok(clubMapper.clubToClubResponse(clubService.updateClub(clubId, request)));
     }
 
-    @Operation(summary = "Kulüp profil resmini günceller")
+    @Operation(summary = "Kulüp profil resmini günceller; resim arka planda işlenir")
     @PostMapping(value = "/profile-picture", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<ClubResponse> updateProfilePicture(
+    public ResponseEntity<ImageJobResponse> updateProfilePicture(
             @RequestParam("profilePicture") MultipartFile profilePicture
     ) {
-        ClubSession currentSession = clubSessionService.getCurrentSession().orElseThrow(() -> new UnauthorizedException("Not Authenticated"));
-        Long clubId = currentSession.getClub().getId();
-        return ResponseEntity.ok(clubMapper.clubToClubResponse(clubService.updateProfilePicture(clubId, profilePicture)));
+        Long clubId = clubSessionService.getCurrentPrincipal().orElseThrow(() -> new UnauthorizedException("Not Authenticated")).getPrincipalId();
+        return accepted(clubService.updateProfilePicture(clubId, profilePicture));
     }
 
-    @Operation(summary = "Kulüp banner'ını günceller")
+    @Operation(summary = "Kulüp banner'ını günceller; resim arka planda işlenir")
     @PostMapping(value = "/banner", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<ClubResponse> updateBanner(
+    public ResponseEntity<ImageJobResponse> updateBanner(
             @RequestParam("banner") MultipartFile banner
     ) {
-        ClubSession currentSession = clubSessionService.getCurrentSession().orElseThrow(() -> new UnauthorizedException("Not Authenticated"));
-        Long clubId = currentSession.getClub().getId();
-        return ResponseEntity.ok(clubMapper.clubToClubResponse(clubService.updateBanner(clubId, banner)));
+        Long clubId = clubSessionService.getCurrentPrincipal().orElseThrow(() -> new UnauthorizedException("Not Authenticated")).getPrincipalId();
+        return accepted(clubService.updateBanner(clubId, banner));
+    }
+
+    @Operation(summary = "Yüklenen resmin işlenme durumunu getirir")
+    @GetMapping("/image-jobs/{jobId}")
+    public ResponseEntity<ImageJobResponse> getImageJob(@PathVariable Long jobId) {
+        Long clubId = clubSessionService.getCurrentPrincipal().orElseThrow(() -> new UnauthorizedException("Not Authenticated")).getPrincipalId();
+        return ResponseEntity.ok(clubMapper.imageJobToImageJobResponse(clubService.getImageJob(clubId, jobId)));
     }
 
+    // 202 pointing at the job's status resource
+    private ResponseEntity<ImageJobResponse> accepted(ImageJob job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/clubs/image-jobs/" + job.getId()))
+                .body(clubMapper.imageJobToImageJobResponse(job));
+    }
 
     @Operation(summary = "Kulüp açıklamasını günceller")
     @PutMapping("/description")
     public ResponseEntity<ClubResponse> updateClubDescription(
             @Valid @RequestBody com.paradoks.agileproject.dto.request.ClubDescriptionUpdateRequest request
     ) {
-        ClubSession currentSession = clubSessionService.getCurrentSession().orElseThrow(() -> new UnauthorizedException("Not Authenticated"));
-        Long clubId = currentSession.getClub().getId();
+        Long clubId = clubSessionService.getCurrentPrincipal().orElseThrow(() -> new UnauthorizedException("Not Authenticated")).getPrincipalId();
         return ResponseEntity.ok(clubMapper.clubToClubResponse(clubService.updateClubDescription(clubId, request)));
     }
 
     @Operation(summary = "Kulüpleri listeler")
     @GetMapping
     public ResponseEntity<APPaged<ClubResponse>> listClubs(@Valid PageableRequestParams params) {
-        Page<ClubModel> clubs = clubService.listClubs(params);
-        return ResponseEntity.ok(APPaged.from(clubs.map(clubMapper::clubToClubResponse)));
+        if (params.isCursorMode()) {
+            return ResponseEntity.ok(APPaged.from(clubService.scrollClubs(params), params.getSize()));
+        }
+        return ResponseEntity.ok(APPaged.from(clubService.listClubs(params)));
     }
 
     @Operation(summary = "Kulüplerin gönderilerini listeler")
     @GetMapping("/{id}/posts")
     public ResponseEntity<APPaged<PostResponse>> listClubPosts(@PathVariable Long id, @Valid PageableRequestParams params) {
-        Page<Post> clubs = clubService.listClubPosts(clubService.getClub(id).getId(), params);
-        return ResponseEntity.ok(APPaged.from(clubs.map(postMapper::postToPostResponse)));
+        // One cached summary for the whole page instead of loading the club and its tags per post. It also
+        // stands in for the getClub check this route always made: an unknown club is a 404, not an empty page
+        ClubResponse club = clubSummaryCache.get(id);
+        if (params.isCursorMode()) {
+            Window<Post> posts = clubService.scrollClubPosts(id, params);
+            return ResponseEntity.ok(APPaged.from(posts.map(post -> postMapper.postViewToPostResponse(PostView.from(post), club)), params.getSize()));
+        }
+        Slice<PostView> posts = clubService.listClubPosts(id, params);
+        return ResponseEntity.ok(APPaged.from(posts.map(post -> postMapper.postViewToPostResponse(post, club))));
     }
 
     @Operation(summary = "Belirli id'ye sahip kulübü getirir")
@@ -115,10 +136,10 @@ public class ClubController {
     @Operation(summary = "Kulübe üye ol veya üyelikten çık")
     @PostMapping("/{id}/membership")
     public ResponseEntity<ApiResponse> toggleMembership(@PathVariable Long id) {
-        UserSession userSession = userSessionService.getCurrentSession()
+        SessionPrincipal principal = userSessionService.getCurrentPrincipal()
                 .orElseThrow(() -> new UnauthorizedException("Not Authenticated"));
 
-        boolean joined = clubService.toggleMembership(id, userSession.getUser().getId());
+        boolean joined = clubService.toggleMembership(id, principal.getPrincipalId());
         String message = joined ? "Successfully joined the club" : "Successfully left the club";
         return ResponseEntity.ok(new ApiResponse(true, message));
     }
@@ -126,8 +147,10 @@ public class ClubController {
     @Operation(summary = "Kulüp üyelerini listeler")
     @GetMapping("/{id}/members")
     public ResponseEntity<APPaged<UserResponse>> listClubMembers(@PathVariable Long id, @Valid PageableRequestParams params) {
-        Page<User> members = clubService.getClubMembers(id, params);
-        return ResponseEntity.ok(APPaged.from(members.map(userMapper::userToUserResponse)));
+        if (params.isCursorMode()) {
+            return ResponseEntity.ok(APPaged.from(clubService.scrollClubMembers(id, params), params.getSize()));
+        }
+        return ResponseEntity.ok(APPaged.from(clubService.getClubMembers(id, params)));
     }
 
 }
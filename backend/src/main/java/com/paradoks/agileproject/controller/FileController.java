@@ -1,51 +1,96 @@
 package com.paradoks.agileproject.controller;
 
+import com.paradoks.agileproject.cache.FileMetadataCache;
+import com.paradoks.agileproject.cache.FileMetadataCache.FileMetadata;
+import com.paradoks.agileproject.exception.NotFoundException;
+import com.paradoks.agileproject.service.ImageStore;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Serves uploaded pictures with an ETag, Last-Modified and Cache-Control. Spring answers conditional GETs
+ * (If-None-Match / If-Modified-Since) with 304 and Range requests with 206 from those headers.
+ */
 @Controller
 public class FileController {
 
-    @Value("${upload-dir}")
-    private String uploadDir;
+    private final FileMetadataCache fileMetadataCache;
+    private final Path uploadPath;
+    private final CacheControl cacheControl;
+
+    public FileController(FileMetadataCache fileMetadataCache,
+                          @Value("${upload-dir}") String uploadDir,
+                          @Value("${pictures.cache.max-age-seconds}") long maxAgeSeconds) {
+        this.fileMetadataCache = fileMetadataCache;
+        this.uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.cacheControl = CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+    }
 
     @GetMapping("/pictures/{filename:.+}")
-    public ResponseEntity<Resource> serveFile(@PathVariable String filename) throws IOException {
-        Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+    public ResponseEntity<Resource> serveFile(@PathVariable String filename,
+                                              @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) throws IOException {
         Path filePath = uploadPath.resolve(filename).normalize();
-
-        if (!Files.exists(filePath) || !filePath.startsWith(uploadPath)) {
-            throw new IOException("File not found: " + filename);
+        if (!filePath.startsWith(uploadPath)) {
+            throw new NotFoundException("File not found: " + filename);
         }
 
-        Resource resource;
+        FileMetadata file;
         try {
-            resource = new UrlResource(filePath.toUri());
-        } catch (MalformedURLException e) {
-            throw new IOException("File not found: " + filename, e);
+            file = fileMetadataCache.get(filePath);
+        } catch (NoSuchFileException e) {
+            throw new NotFoundException("File not found: " + filename);
         }
 
-        String contentType = Files.probeContentType(filePath);
-        if (contentType == null) {
-            contentType = "application/octet-stream";
+        // Content-addressed names always refer to the same bytes
+        CacheControl caching = ImageStore.CONTENT_ADDRESSED.matcher(filePath.getFileName().toString()).matches()
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : cacheControl;
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(file.eTag())
+                .lastModified(file.lastModified())
+                .cacheControl(caching)
+                .contentType(file.contentType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filePath.getFileName() + "\"");
+
+        // Ranges are only served from the version the client already has. An InputStreamResource makes Spring
+        // skip range handling and send the whole file; it is opened only if the body is written
+        if (ifRange != null && !matches(ifRange, file)) {
+            return response.contentLength(file.length())
+                    .body(new InputStreamResource(() -> Files.newInputStream(filePath)));
         }
+        return response.body(new FileSystemResource(filePath));
+    }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
+    // If-Range holds either an ETag (compared strongly) or an HTTP date
+    private static boolean matches(String ifRange, FileMetadata file) {
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(file.eTag());
+        }
+        try {
+            long since = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+            return since == file.lastModified().getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
     }
 }
@@ -1,11 +1,12 @@
 package com.paradoks.agileproject.controller;
 
+import com.paradoks.agileproject.cache.ClubSummaryCache;
 import com.paradoks.agileproject.dto.mapper.PostMapper;
 import com.paradoks.agileproject.dto.request.CreatePostRequest;
 import com.paradoks.agileproject.dto.response.PostResponse;
 import com.paradoks.agileproject.exception.UnauthorizedException;
 import com.paradoks.agileproject.model.Post;
-import com.paradoks.agileproject.model.ClubSession;
+import com.paradoks.agileproject.model.PostView;
 import com.paradoks.agileproject.service.PostService;
 import com.paradoks.agileproject.service.ClubSessionService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -23,20 +24,21 @@ public class PostController {
     private final PostService postService;
     private final ClubSessionService clubSessionService;
     private final PostMapper postMapper;
+    private final ClubSummaryCache clubSummaryCache;
 
-    public PostController(PostService postService, ClubSessionService clubSessionService, PostMapper postMapper) {
+    public PostController(PostService postService, ClubSessionService clubSessionService, PostMapper postMapper, ClubSummaryCache clubSummaryCache) {
         this.postService = postService;
         this.clubSessionService = clubSessionService;
         this.postMapper = postMapper;
+        this.clubSummaryCache = clubSummaryCache;
     }
 
     @Operation(summary = "Yeni bir post oluşturur")
     @PostMapping
     public ResponseEntity<PostResponse> createPost(@Valid @RequestBody CreatePostRequest createPostRequest) {
-        ClubSession currentSession = clubSessionService.getCurrentSession()
-                .orElseThrow(() -> new UnauthorizedException("Not Authenticated"));
-
-        Long clubId = currentSession.getClub().getId();
+        Long clubId = clubSessionService.getCurrentPrincipal()
+                .orElseThrow(() -> new UnauthorizedException("Not Authenticated"))
+                .getPrincipalId();
         Post createdPost = postService.createPost(createPostRequest, clubId);
 
         return new ResponseEntity<>(postMapper.postToPostResponse(createdPost), HttpStatus.CREATED);
@@ -45,16 +47,16 @@ public class PostController {
     @Operation(summary = "ID'ye göre post getirir")
     @GetMapping("/{id}")
     public ResponseEntity<PostResponse> getPostById(@PathVariable Long id) {
-        Post post = postService.getPostById(id);
-        return ResponseEntity.ok(postMapper.postToPostResponse(post));
+        PostView post = postService.getPostView(id);
+        return ResponseEntity.ok(postMapper.postViewToPostResponse(post, clubSummaryCache.get(post.clubId())));
     }
 
     @Operation(summary = "Postu siler")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePost(@PathVariable Long id) {
-        ClubSession currentSession = clubSessionService.getCurrentSession()
-                .orElseThrow(() -> new UnauthorizedException("Not Authenticated"));
-        Long clubId = currentSession.getClub().getId();
+        Long clubId = clubSessionService.getCurrentPrincipal()
+                .orElseThrow(() -> new UnauthorizedException("Not Authenticated"))
+                .getPrincipalId();
         postService.deletePost(id, clubId);
         return ResponseEntity.noContent().build();
     }
@@ -62,9 +64,9 @@ public class PostController {
     @Operation(summary = "Postu günceller")
     @PutMapping("/{id}")
     public ResponseEntity<PostResponse> updatePost(@PathVariable Long id, @Valid @RequestBody CreatePostRequest createPostRequest) {
-        ClubSession currentSession = clubSessionService.getCurrentSession()
-                .orElseThrow(() -> new UnauthorizedException("Not Authenticated"));
-        Long clubId = currentSession.getClub().getId();
+        Long clubId = clubSessionService.getCurrentPrincipal()
+                .orElseThrow(() -> new UnauthorizedException("Not Authenticated"))
+                .getPrincipalId();
 
         Post post = postService.getPostById(id);
         if (!post.getClub().getId().equals(clubId)) {
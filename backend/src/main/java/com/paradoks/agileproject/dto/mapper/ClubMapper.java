@@ -1,10 +1,21 @@
 package com.paradoks.agileproject.dto.mapper;
 
 import com.paradoks.agileproject.dto.response.ClubResponse;
+import com.paradoks.agileproject.dto.response.ImageJobResponse;
 import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.ImageJob;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 
 @Mapper(componentModel = "spring")
 public interface ClubMapper {
     ClubResponse clubToClubResponse(ClubModel club);
+
+    // For listings that load the tags of a whole page in one query
+    @Named("withoutTags")
+    @Mapping(target = "tags", ignore = true)
+    ClubResponse clubToClubResponseWithoutTags(ClubModel club);
+
+    ImageJobResponse imageJobToImageJobResponse(ImageJob job);
 }
@@ -1,6 +1,8 @@
 package com.paradoks.agileproject.dto.mapper;
 
+import com.paradoks.agileproject.dto.response.ClubResponse;
 import com.paradoks.agileproject.model.Post;
+import com.paradoks.agileproject.model.PostView;
 import com.paradoks.agileproject.dto.response.PostResponse;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -9,4 +11,8 @@ import org.mapstruct.Mapping;
 public interface PostMapper {
     @Mapping(source = "club", target = "club")
     PostResponse postToPostResponse(Post post);
+
+    @Mapping(source = "post.id", target = "id")
+    @Mapping(source = "club", target = "club")
+    PostResponse postViewToPostResponse(PostView post, ClubResponse club);
 }
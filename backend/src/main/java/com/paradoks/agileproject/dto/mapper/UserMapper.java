@@ -5,11 +5,17 @@ import com.paradoks.agileproject.dto.response.UserResponse;
 import com.paradoks.agileproject.model.User;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 
 @Mapper(componentModel = "spring")
 public interface UserMapper {
     UserResponse userToUserResponse(User user);
 
+    // For listings that load the tags of a whole page in one query
+    @Named("withoutTags")
+    @Mapping(target = "tags", ignore = true)
+    UserResponse userToUserResponseWithoutTags(User user);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "dateCreated", ignore = true)
     User userRegisterRequestToUser(UserRegisterRequest userRegisterRequest);
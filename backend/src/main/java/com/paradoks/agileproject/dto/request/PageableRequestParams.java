@@ -3,6 +3,7 @@ package com.paradoks.agileproject.dto.request;
 import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Getter;
 import lombok.Setter;
@@ -25,6 +26,17 @@ public class PageableRequestParams {
     @Parameter(description = "Sort by field", example = "id")
     private String sortBy = "id";
 
+    @Parameter(description = "How totals are computed: exact (COUNT query), cached (short-lived cached COUNT) or none (only whether a next page exists)", example = "exact")
+    @Pattern(regexp = "exact|cached|none", message = "Count must be one of exact, cached, none")
+    private String count = "exact";
+
+    @Parameter(description = "Cursor from a previous response's nextCursor. Send it empty to start; switches to keyset pagination and ignores page")
+    private String cursor;
+
+    public boolean isCursorMode() {
+        return cursor != null;
+    }
+
     public Pageable toPageable() {
         return Pageable.ofSize(size).withPage(page);
     }
@@ -2,18 +2,28 @@ package com.paradoks.agileproject.dto.response;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.paradoks.agileproject.utils.KeysetCursor;
 import lombok.Getter;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 
+/**
+ * A page of results. Counted pages fill in the totals; slices ({@code count=none}) and cursor pages
+ * leave them null and only report {@code last}. Cursor pages carry {@code nextCursor} instead of page.
+ */
 @Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class APPaged<T> {
 
     private final List<T> content;
-    private final int page;
+    private final Integer page;
     private final int size;
-    private final long totalElements;
-    private final int totalPages;
+    private final Long totalElements;
+    private final Integer totalPages;
     private final boolean last;
+    private final String nextCursor;
 
     public APPaged(List<T> content, int page, int size, long totalElements) {
         this.content = content;
@@ -22,14 +32,33 @@ public class APPaged<T> {
         this.totalElements = totalElements;
         this.totalPages = (int) Math.ceil((double) totalElements / size);
         this.last = page >= totalPages - 1;
+        this.nextCursor = null;
     }
 
-    public static <T> APPaged<T> from(Page<T> page) {
-        return new APPaged<>(
-                page.getContent(),
-                page.getNumber(),
-                page.getSize(),
-                page.getTotalElements()
-        );
+    private APPaged(List<T> content, Integer page, int size, boolean last, String nextCursor) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.totalElements = null;
+        this.totalPages = null;
+        this.last = last;
+        this.nextCursor = nextCursor;
+    }
+
+    public static <T> APPaged<T> from(Slice<T> slice) {
+        if (slice instanceof Page<T> page) {
+            return new APPaged<>(
+                    page.getContent(),
+                    page.getNumber(),
+                    page.getSize(),
+                    page.getTotalElements()
+            );
+        }
+        return new APPaged<>(slice.getContent(), slice.getNumber(), slice.getSize(), !slice.hasNext(), null);
+    }
+
+    public static <T> APPaged<T> from(Window<T> window, int size) {
+        String nextCursor = window.hasNext() ? KeysetCursor.encode(window.positionAt(window.size() - 1)) : null;
+        return new APPaged<>(window.getContent(), null, size, !window.hasNext(), nextCursor);
     }
 }
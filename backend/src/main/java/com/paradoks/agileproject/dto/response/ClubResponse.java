@@ -1,15 +1,34 @@
 package com.paradoks.agileproject.dto.response;
 
+import com.paradoks.agileproject.model.ImageRendition;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class ClubResponse {
     private Long id;
     private String name;
     private String description;
     private List<String> tags;
     private String profilePicture;
+    /** Every size of the profile picture, WebP first where available, each format from smallest to largest. */
+    private List<ImageRendition> profilePictureRenditions;
     private String banner;
+    /** Every size of the banner, ordered like {@link #profilePictureRenditions}. */
+    private List<ImageRendition> bannerRenditions;
+
+    /** Used by projection queries; tags are filled in afterwards. */
+    public ClubResponse(Long id, String name, String description, String profilePicture, List<ImageRendition> profilePictureRenditions,
+                        String banner, List<ImageRendition> bannerRenditions) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.profilePicture = profilePicture;
+        this.profilePictureRenditions = profilePictureRenditions;
+        this.banner = banner;
+        this.bannerRenditions = bannerRenditions;
+    }
 }
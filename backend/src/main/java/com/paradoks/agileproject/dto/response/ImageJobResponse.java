@@ -0,0 +1,18 @@
+package com.paradoks.agileproject.dto.response;
+
+import com.paradoks.agileproject.model.ImageJobStatus;
+import com.paradoks.agileproject.model.ImageKind;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ImageJobResponse {
+    private Long id;
+    private ImageKind kind;
+    private ImageJobStatus status;
+    private String resultUrl;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
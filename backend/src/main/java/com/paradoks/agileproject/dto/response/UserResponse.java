@@ -1,12 +1,14 @@
 package com.paradoks.agileproject.dto.response;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class UserResponse {
     private Long id;
     private String firstName;
@@ -14,4 +16,13 @@ public class UserResponse {
     private String email;
     private List<String> tags;
     private LocalDateTime dateCreated;
+
+    /** Used by projection queries; tags are filled in afterwards. */
+    public UserResponse(Long id, String firstName, String lastName, String email, LocalDateTime dateCreated) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.dateCreated = dateCreated;
+    }
 }
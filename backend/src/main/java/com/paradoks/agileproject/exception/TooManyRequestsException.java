@@ -0,0 +1,15 @@
+package com.paradoks.agileproject.exception;
+
+import org.springframework.http.HttpStatus;
+
+import java.util.Map;
+
+public class TooManyRequestsException extends RestException {
+    public TooManyRequestsException(String message) {
+        super(message, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    public TooManyRequestsException(String message, Map<String, Object> details) {
+        super(message, HttpStatus.TOO_MANY_REQUESTS, details);
+    }
+}
@@ -0,0 +1,21 @@
+package com.paradoks.agileproject.mail;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes mails to the log instead of sending them, for local development.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.sender", havingValue = "log", matchIfMissing = true)
+public class LoggingMailSender implements MailSender {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingMailSender.class);
+
+    @Override
+    public void send(String recipient, String subject, String body) {
+        log.info("Mail to {} [{}]: {}", recipient, subject, body);
+    }
+}
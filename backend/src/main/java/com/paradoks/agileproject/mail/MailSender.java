@@ -0,0 +1,9 @@
+package com.paradoks.agileproject.mail;
+
+/**
+ * Delivers one email. Selected with {@code mail.sender}: {@code log} (default) or {@code smtp}.
+ * Called only from {@code MailDispatcher}, never on a request thread; a thrown exception schedules a retry.
+ */
+public interface MailSender {
+    void send(String recipient, String subject, String body);
+}
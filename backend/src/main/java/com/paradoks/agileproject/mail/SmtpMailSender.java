@@ -0,0 +1,33 @@
+package com.paradoks.agileproject.mail;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends mails through the SMTP server configured with {@code spring.mail.*}.
+ */
+@Component
+@ConditionalOnProperty(name = "mail.sender", havingValue = "smtp")
+public class SmtpMailSender implements MailSender {
+
+    private final JavaMailSender javaMailSender;
+    private final String from;
+
+    public SmtpMailSender(JavaMailSender javaMailSender, @Value("${mail.from}") String from) {
+        this.javaMailSender = javaMailSender;
+        this.from = from;
+    }
+
+    @Override
+    public void send(String recipient, String subject, String body) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(from);
+        message.setTo(recipient);
+        message.setSubject(subject);
+        message.setText(body);
+        javaMailSender.send(message);
+    }
+}
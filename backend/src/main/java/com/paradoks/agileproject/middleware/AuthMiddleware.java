@@ -1,78 +1,103 @@
 package com.paradoks.agileproject.middleware;
 
+import com.paradoks.agileproject.model.PrincipalKind;
+import com.paradoks.agileproject.model.SessionPrincipal;
 import com.paradoks.agileproject.service.ClubSessionService;
+import com.paradoks.agileproject.service.SessionRevocationList;
 import com.paradoks.agileproject.service.UserSessionService;
+import com.paradoks.agileproject.utils.SessionTokenSigner;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.function.SingletonSupplier;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.util.WebUtils;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class AuthMiddleware extends OncePerRequestFilter {
 
+    private static final List<String> PUBLIC_PATHS = List.of("/pictures/**", "/api-docs/**", "/swagger-ui/**", "/swagger-ui.html");
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
     private final ClubSessionService clubSessionService;
     private final UserSessionService userSessionService;
+    private final SessionTokenSigner tokenSigner;
+    private final SessionRevocationList revocationList;
 
-    public AuthMiddleware(ClubSessionService clubSessionService, UserSessionService userSessionService) {
+    public AuthMiddleware(ClubSessionService clubSessionService, UserSessionService userSessionService, SessionTokenSigner tokenSigner, SessionRevocationList revocationList) {
         this.clubSessionService = clubSessionService;
         this.userSessionService = userSessionService;
+        this.tokenSigner = tokenSigner;
+        this.revocationList = revocationList;
+    }
+
+    // Static and documentation routes never need the caller's identity
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return PUBLIC_PATHS.stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
     }
 
+    /**
+     * Defers session resolution until something reads the SecurityContext, so requests that
+     * never ask for the current principal do not touch the session tables.
+     */
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        // Check user session first, then club session. 
-        // Note: If both exist, the last one checked wins if it sets authentication.
-        // Usually, a request is either for a user or a club, or we might need a more complex context.
-        // For now, let's allow both but we need to be careful.
-        
-        boolean authenticated = false;
+        SecurityContextHolderStrategy strategy = SecurityContextHolder.getContextHolderStrategy();
+        strategy.setDeferredContext(SingletonSupplier.of(() -> resolveContext(request, strategy)));
 
-        // Check User Session
-        if (checkToken(request, "USER_SESSION", false)) {
-            authenticated = true;
-        }
+        filterChain.doFilter(request, response);
+    }
 
-        // Check Club Session (if not already authenticated? or overwrite? Let's overwrite for now if club session exists, or keep simple)
-        // Since the prompt asks for separate services, let's valid both.
-        
-        if (!authenticated) {
-             checkToken(request, "CLUB_SESSION", true);
-        }
+    private SecurityContext resolveContext(HttpServletRequest request, SecurityContextHolderStrategy strategy) {
+        SecurityContext context = strategy.createEmptyContext();
 
-        filterChain.doFilter(request, response);
+        // A user session takes precedence over a club session
+        checkToken(request, "USER_SESSION", false)
+                .or(() -> checkToken(request, "CLUB_SESSION", true))
+                .ifPresent(principal -> context.setAuthentication(
+                        new UsernamePasswordAuthenticationToken(principal, null, new ArrayList<>())));
+        return context;
     }
 
-    private boolean checkToken(HttpServletRequest request, String name, boolean isClub) {
+    private Optional<SessionPrincipal> checkToken(HttpServletRequest request, String name, boolean isClub) {
         Cookie sessionCookie = WebUtils.getCookie(request, name);
 
-        if (sessionCookie != null) {
-            String token = sessionCookie.getValue();
-            boolean isValid;
-            
-            if (isClub) {
-                isValid = clubSessionService.isSessionValid(token);
-            } else {
-                isValid = userSessionService.isSessionValid(token);
-            }
-
-            if (isValid) {
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(token, null, new ArrayList<>());
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                return true;
-            }
+        if (sessionCookie == null) {
+            return Optional.empty();
+        }
+
+        String token = sessionCookie.getValue();
+        if (tokenSigner.isEnabled()) {
+            return resolveSignedToken(token, isClub ? PrincipalKind.CLUB : PrincipalKind.USER);
+        }
+        return isClub ? clubSessionService.resolvePrincipal(token) : userSessionService.resolvePrincipal(token);
+    }
+
+    // Signed tokens are checked entirely in memory: signature, kind, expiry and the revocation list
+    private Optional<SessionPrincipal> resolveSignedToken(String token, PrincipalKind kind) {
+        if (revocationList.isRevoked(token)) {
+            return Optional.empty();
         }
-        return false;
+        return tokenSigner.verify(token)
+                .filter(claims -> claims.kind() == kind && !claims.isExpired())
+                .map(claims -> new SessionPrincipal(null, claims.kind(), claims.principalId(), claims.expiresAt()));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.paradoks.agileproject.middleware;
+
+import com.paradoks.agileproject.utils.ConnectionHoldTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each request kept database connections checked out, as db.connection.hold
+ * tagged with the matched route. Requests that never touch the database are not recorded.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "metrics.connection-hold.enabled", havingValue = "true")
+public class ConnectionHoldMiddleware extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    public ConnectionHoldMiddleware(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ConnectionHoldTracker.Hold hold = ConnectionHoldTracker.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ConnectionHoldTracker.stop();
+            if (hold.getAcquisitions() > 0) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                Timer.builder("db.connection.hold")
+                        .description("Time a request kept JDBC connections checked out of the pool")
+                        .tag("method", request.getMethod())
+                        .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                        .register(meterRegistry)
+                        .record(hold.getNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
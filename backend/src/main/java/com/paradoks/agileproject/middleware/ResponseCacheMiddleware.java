@@ -0,0 +1,182 @@
+package com.paradoks.agileproject.middleware;
+
+import com.paradoks.agileproject.cache.ResponseCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves anonymous GETs of the hot read routes from {@link ResponseCache}, so a hit skips security,
+ * the database, mapping and serialization. Misses are rendered normally and stored when they are a 200.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheMiddleware extends OncePerRequestFilter {
+
+    private static final PathPatternParser PARSER = PathPatternParser.defaultInstance;
+
+    // Route -> tags of the data it renders
+    private static final Map<PathPattern, Function<Map<String, String>, Set<String>>> ROUTES = Map.of(
+            PARSER.parse("/api/v1/clubs"), vars -> Set.of(ResponseCache.CLUBS),
+            PARSER.parse("/api/v1/clubs/{id:\\d{1,18}}"), vars -> Set.of(ResponseCache.club(clubId(vars))),
+            PARSER.parse("/api/v1/clubs/{id:\\d{1,18}}/posts"), vars -> Set.of(ResponseCache.club(clubId(vars)), ResponseCache.clubPosts(clubId(vars))),
+            PARSER.parse("/api/v1/clubs/{id:\\d{1,18}}/members"), vars -> Set.of(ResponseCache.clubMembers(clubId(vars))),
+            PARSER.parse("/api/v1/announcements"), vars -> Set.of(ResponseCache.ANNOUNCEMENTS)
+    );
+
+    // Hop-by-hop or per-response headers that must not be replayed
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            HttpHeaders.SET_COOKIE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_ENCODING, HttpHeaders.TRANSFER_ENCODING);
+
+    private final ResponseCache responseCache;
+    private final boolean gzip;
+    private final int gzipMinBytes;
+
+    public ResponseCacheMiddleware(ResponseCache responseCache,
+                                   @Value("${response-cache.gzip}") boolean gzip,
+                                   @Value("${response-cache.gzip-min-bytes}") int gzipMinBytes) {
+        this.responseCache = responseCache;
+        this.gzip = gzip;
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    private static Long clubId(Map<String, String> vars) {
+        return Long.valueOf(vars.get("id"));
+    }
+
+    // Only anonymous GETs: anything carrying a session is rendered for its caller
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod())
+                || WebUtils.getCookie(request, "CLUB_SESSION") != null
+                || WebUtils.getCookie(request, "USER_SESSION") != null
+                || request.getHeader(HttpHeaders.AUTHORIZATION) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        Set<String> tags = null;
+        for (Map.Entry<PathPattern, Function<Map<String, String>, Set<String>>> route : ROUTES.entrySet()) {
+            PathPattern.PathMatchInfo match = route.getKey().matchAndExtract(path);
+            if (match != null) {
+                tags = route.getValue().apply(match.getUriVariables());
+                break;
+            }
+        }
+        if (tags == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = cacheKey(request, path.value());
+        ResponseCache.CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            write(cached, request, response);
+            return;
+        }
+
+        long version = responseCache.version();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        wrapper.setHeader("X-Cache", "MISS");
+        filterChain.doFilter(request, wrapper);
+
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && isJson(wrapper.getContentType())) {
+            byte[] body = wrapper.getContentAsByteArray();
+            responseCache.put(key, new ResponseCache.CachedResponse(headersOf(wrapper), body,
+                    gzip && body.length >= gzipMinBytes ? gzip(body) : null, tags), version);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * Path plus query parameters sorted by name, so parameter order does not split entries. The Origin
+     * is part of the key because the replayed CORS headers depend on it.
+     */
+    private static String cacheKey(HttpServletRequest request, String path) {
+        StringBuilder key = new StringBuilder();
+        String origin = request.getHeader(HttpHeaders.ORIGIN);
+        if (origin != null) {
+            key.append(origin);
+        }
+        key.append(' ').append(path);
+        char separator = '?';
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            for (String value : parameter.getValue()) {
+                key.append(separator).append(parameter.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean isJson(String contentType) {
+        return contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+    }
+
+    private static Map<String, List<String>> headersOf(HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (SKIPPED_HEADERS.stream().noneMatch(name::equalsIgnoreCase) && !name.equalsIgnoreCase("X-Cache")) {
+                headers.put(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        // Containers do not always list the content type among the headers
+        headers.put(HttpHeaders.CONTENT_TYPE, List.of(response.getContentType()));
+        return headers;
+    }
+
+    private static void write(ResponseCache.CachedResponse cached, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        cached.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setHeader("X-Cache", "HIT");
+
+        byte[] body = cached.body();
+        if (cached.gzipped() != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                body = cached.gzipped();
+            }
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,70 @@
+package com.paradoks.agileproject.migration;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * V3: moves every id sequence past the ids already in its table. Databases baselined from ddl-auto got their
+ * ids from IDENTITY columns, so their sequences would otherwise hand out ids that are taken. Empty tables are
+ * left alone. Picked up by Flyway as a Spring bean.
+ */
+@Component
+public class AlignIdSequencesMigration implements JavaMigration {
+
+    // Hibernate's pooled optimizer hands out the block of allocationSize ids ending at the sequence value
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users", "users_seq",
+            "clubs", "clubs_seq",
+            "posts", "posts_seq",
+            "user_sessions", "user_sessions_seq",
+            "club_sessions", "club_sessions_seq",
+            "verification_code", "verification_code_seq",
+            "announcement", "announcement_seq",
+            "mail_outbox", "mail_outbox_seq"
+    );
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("3");
+    }
+
+    @Override
+    public String getDescription() {
+        return "align id sequences";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            for (Map.Entry<String, String> sequence : SEQUENCES.entrySet()) {
+                long maxId;
+                try (ResultSet result = statement.executeQuery("select max(id) from " + sequence.getKey())) {
+                    result.next();
+                    maxId = result.getLong(1);
+                    if (result.wasNull()) {
+                        continue;
+                    }
+                }
+                statement.execute("alter sequence " + sequence.getValue() + " restart with " + (maxId + ALLOCATION_SIZE + 1));
+            }
+        }
+    }
+}
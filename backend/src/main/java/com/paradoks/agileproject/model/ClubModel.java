@@ -1,17 +1,23 @@
 package com.paradoks.agileproject.model;
 
+import com.paradoks.agileproject.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity(name = "clubs")
+@Table(indexes = @Index(name = "idx_clubs_email", columnList = "email"))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.CLUBS)
 @Getter
 @Setter
 public class ClubModel {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "clubs_seq")
+    @SequenceGenerator(name = "clubs_seq", sequenceName = "clubs_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true, length = 100)
@@ -21,7 +27,9 @@ public class ClubModel {
     private String description;
 
     @ElementCollection
-    @CollectionTable(name = "club_tags", joinColumns = @JoinColumn(name = "club_id"))
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.CLUB_TAGS)
+    @CollectionTable(name = "club_tags", joinColumns = @JoinColumn(name = "club_id"),
+            indexes = @Index(name = "idx_club_tags_club", columnList = "club_id"))
     @Column(name = "tag")
     private List<String> tags;
 
@@ -31,15 +39,26 @@ public class ClubModel {
     @Column(nullable = false)
     private String password;
 
+    // The largest rendition in the upload's own format, for clients that do not read the renditions
     private String profilePicture;
 
+    @Convert(converter = ImageRenditionsConverter.class)
+    @Column(columnDefinition = "TEXT")
+    private List<ImageRendition> profilePictureRenditions;
+
     private String banner;
 
+    @Convert(converter = ImageRenditionsConverter.class)
+    @Column(columnDefinition = "TEXT")
+    private List<ImageRendition> bannerRenditions;
+
     @ManyToMany
     @JoinTable(
             name = "club_members",
             joinColumns = @JoinColumn(name = "club_id"),
-            inverseJoinColumns = @JoinColumn(name = "user_id")
+            inverseJoinColumns = @JoinColumn(name = "user_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_club_members_club_user", columnNames = {"club_id", "user_id"}),
+            indexes = @Index(name = "idx_club_members_user", columnList = "user_id")
     )
     private List<User> members;
 }
@@ -8,18 +8,22 @@ import java.util.UUID;
 
 @Data
 @Entity
-@Table(name = "club_sessions")
+@Table(name = "club_sessions", indexes = {
+        @Index(name = "idx_club_sessions_club_active_expires", columnList = "club_id, active, expires_at"),
+        @Index(name = "idx_club_sessions_expires", columnList = "expires_at")
+})
 public class ClubSession {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "club_sessions_seq")
+    @SequenceGenerator(name = "club_sessions_seq", sequenceName = "club_sessions_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
     @JoinColumn(name = "club_id", nullable = false)
     private ClubModel club;
 
-    @Column(nullable = false, unique = true, length = 36)
+    @Column(nullable = false, unique = true, length = 128)
     private String token;
 
     @Column(nullable = false)
@@ -0,0 +1,55 @@
+package com.paradoks.agileproject.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * An uploaded club image waiting for or going through {@code ImageProcessor}. The raw upload is kept on disk
+ * until the job finishes; {@code resultUrl} is what the club's picture or banner was switched to.
+ * Rows are removed by {@code ExpiredDataSweeper} after {@code expiresAt}; jobs whose worker was lost in a restart
+ * are failed by {@code ImageProcessor.failAbandonedJobs}.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "image_jobs", indexes = {
+        @Index(name = "idx_image_jobs_expires", columnList = "expires_at"),
+        @Index(name = "idx_image_jobs_status_updated", columnList = "status, updated_at")
+})
+public class ImageJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "image_jobs_seq")
+    @SequenceGenerator(name = "image_jobs_seq", sequenceName = "image_jobs_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long clubId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ImageKind kind;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ImageJobStatus status;
+
+    @Column(nullable = false)
+    private String rawPath;
+
+    private String resultUrl;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,8 @@
+package com.paradoks.agileproject.model;
+
+public enum ImageJobStatus {
+    PENDING,
+    PROCESSING,
+    DONE,
+    FAILED
+}
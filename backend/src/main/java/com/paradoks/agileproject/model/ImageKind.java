@@ -0,0 +1,6 @@
+package com.paradoks.agileproject.model;
+
+public enum ImageKind {
+    PROFILE_PICTURE,
+    BANNER
+}
@@ -0,0 +1,8 @@
+package com.paradoks.agileproject.model;
+
+/**
+ * One size and format of a club image. Clients pick the smallest rendition at least as wide as they display it,
+ * preferring {@code image/webp} where they can decode it.
+ */
+public record ImageRendition(String url, int width, int height, String type) {
+}
@@ -0,0 +1,45 @@
+package com.paradoks.agileproject.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.List;
+
+/**
+ * Stores a club image's renditions as a JSON array in a text column; they are only ever read and written
+ * together with the club row.
+ */
+@Converter
+public class ImageRenditionsConverter implements AttributeConverter<List<ImageRendition>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<ImageRendition>> TYPE = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(List<ImageRendition> renditions) {
+        if (renditions == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(renditions);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize image renditions", e);
+        }
+    }
+
+    @Override
+    public List<ImageRendition> convertToEntityAttribute(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return List.copyOf(MAPPER.readValue(json, TYPE));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot read image renditions", e);
+        }
+    }
+}
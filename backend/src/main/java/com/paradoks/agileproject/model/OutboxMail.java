@@ -0,0 +1,49 @@
+package com.paradoks.agileproject.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A mail waiting to be sent. Rows are written in the transaction that produces the mail and
+ * deleted by {@code MailDispatcher} once delivered; rows that exhausted their retries stay with {@code failed = true}.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "mail_outbox", indexes = @Index(name = "idx_mail_outbox_due", columnList = "failed, next_attempt_at"))
+public class OutboxMail {
+
+    public static final int LAST_ERROR_LENGTH = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mail_outbox_seq")
+    @SequenceGenerator(name = "mail_outbox_seq", sequenceName = "mail_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private boolean failed;
+
+    @Column(length = LAST_ERROR_LENGTH)
+    private String lastError;
+}
@@ -0,0 +1,15 @@
+package com.paradoks.agileproject.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user registration waiting for its email verification code.
+ * The password is already BCrypt-hashed.
+ */
+public record PendingRegistration(String email, String code, String firstName, String lastName,
+                                  String passwordHash, LocalDateTime expiresAt) {
+
+    public boolean isExpired() {
+        return !expiresAt.isAfter(LocalDateTime.now());
+    }
+}
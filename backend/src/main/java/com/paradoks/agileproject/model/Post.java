@@ -8,11 +8,16 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity(name = "posts")
+@Table(indexes = {
+        @Index(name = "idx_posts_club_id", columnList = "club_id, id"),
+        @Index(name = "idx_posts_club_creation_date", columnList = "club_id, creation_date, id")
+})
 @Getter
 @Setter
 public class Post {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq")
+    @SequenceGenerator(name = "posts_seq", sequenceName = "posts_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -21,7 +26,8 @@ public class Post {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
-    @ManyToOne(fetch = FetchType.LAZY)
+    // Not optional, so derived queries on club.id compare the foreign key instead of outer-joining clubs
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "club_id", nullable = false)
     private ClubModel club;
 
@@ -0,0 +1,14 @@
+package com.paradoks.agileproject.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only post row for the read endpoints. The club is only an id; its summary comes from {@code ClubSummaryCache}.
+ */
+public record PostView(Long id, String title, String content, Long clubId, LocalDateTime creationDate) {
+
+    public static PostView from(Post post) {
+        // getId() on the lazy club proxy does not initialise it
+        return new PostView(post.getId(), post.getTitle(), post.getContent(), post.getClub().getId(), post.getCreationDate());
+    }
+}
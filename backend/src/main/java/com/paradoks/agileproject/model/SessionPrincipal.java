@@ -0,0 +1,29 @@
+package com.paradoks.agileproject.model;
+
+import lombok.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * The authenticated club or user, resolved once by {@code AuthMiddleware} and stored in the SecurityContext.
+ * {@code sessionId} is null for signed tokens, which have no session row.
+ */
+@Value
+public class SessionPrincipal {
+    Long sessionId;
+    PrincipalKind kind;
+    Long principalId;
+    LocalDateTime expiresAt;
+
+    public static Optional<SessionPrincipal> current(PrincipalKind kind) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof SessionPrincipal principal
+                && principal.getKind() == kind) {
+            return Optional.of(principal);
+        }
+        return Optional.empty();
+    }
+}
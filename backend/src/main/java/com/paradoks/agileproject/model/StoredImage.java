@@ -0,0 +1,27 @@
+package com.paradoks.agileproject.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A content-addressed file under the upload directory, named after the SHA-256 of its bytes, with the number
+ * of club images that point at it. Unreferenced files are removed by {@code ImageStore} after a grace period.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "stored_images", indexes = @Index(name = "idx_stored_images_unreferenced", columnList = "ref_count, updated_at"))
+public class StoredImage {
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
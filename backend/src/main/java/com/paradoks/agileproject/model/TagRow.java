@@ -0,0 +1,7 @@
+package com.paradoks.agileproject.model;
+
+/**
+ * One tag of a club or user, for loading the tags of a whole page in one query.
+ */
+public record TagRow(Long ownerId, String tag) {
+}
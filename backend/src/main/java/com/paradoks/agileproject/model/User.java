@@ -1,19 +1,24 @@
 package com.paradoks.agileproject.model;
 
+import com.paradoks.agileproject.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
 import java.util.List;
 
 @Entity(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.USERS)
 @Getter
 @Setter
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -23,7 +28,9 @@ public class User {
     private String lastName;
 
     @ElementCollection
-    @CollectionTable(name = "user_tags", joinColumns = @JoinColumn(name = "user_id"))
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.USER_TAGS)
+    @CollectionTable(name = "user_tags", joinColumns = @JoinColumn(name = "user_id"),
+            indexes = @Index(name = "idx_user_tags_user", columnList = "user_id"))
     @Column(name = "tag")
     private List<String> tags;
 
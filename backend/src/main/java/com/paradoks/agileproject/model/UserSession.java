@@ -8,17 +8,21 @@ import java.util.UUID;
 
 @Data
 @Entity
-@Table(name = "user_sessions")
+@Table(name = "user_sessions", indexes = {
+        @Index(name = "idx_user_sessions_user_active_expires", columnList = "user_id, active, expires_at"),
+        @Index(name = "idx_user_sessions_expires", columnList = "expires_at")
+})
 public class UserSession {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_sessions_seq")
+    @SequenceGenerator(name = "user_sessions_seq", sequenceName = "user_sessions_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @Column(nullable = false, unique = true, length = 36)
+    @Column(nullable = false, unique = true, length = 128)
     private String token;
 
     @Column(nullable = false)
@@ -9,9 +9,14 @@ import java.time.LocalDateTime;
 @Entity
 @Getter
 @Setter
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_verification_code_email", columnNames = "email"), indexes = {
+        @Index(name = "idx_verification_code_expiration", columnList = "expiration_time"),
+        @Index(name = "idx_verification_code_email", columnList = "email, code")
+})
 public class VerificationCode {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "verification_code_seq")
+    @SequenceGenerator(name = "verification_code_seq", sequenceName = "verification_code_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -10,13 +10,15 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.Instant;
 
 @Entity
+@Table(indexes = @Index(name = "idx_announcement_end_date", columnList = "end_date"))
 @Builder
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Announcement {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "announcement_seq")
+    @SequenceGenerator(name = "announcement_seq", sequenceName = "announcement_seq", allocationSize = 50)
     private Integer id;
 
     private String title;
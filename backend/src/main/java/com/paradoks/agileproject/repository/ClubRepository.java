@@ -1,14 +1,68 @@
 package com.paradoks.agileproject.repository;
 
+import com.paradoks.agileproject.dto.response.ClubResponse;
 import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.TagRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ClubRepository extends JpaRepository<ClubModel, Long> {
 
+    // Served from the query cache; invalidated whenever the clubs table changes
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<ClubModel> findByEmail(String email);
+
+    @Query("SELECT c FROM clubs c LEFT JOIN FETCH c.tags WHERE c.id = :id")
+    Optional<ClubModel> findWithTagsById(@Param("id") Long id);
+
+    @Query(value = "SELECT id FROM clubs WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByName(String name);
-}
\ No newline at end of file
+
+    Window<ClubModel> findAllBy(ScrollPosition position, Limit limit, Sort sort);
+
+    // Listing rows straight into the response, without entities, lazy collections or password hashes
+    @Query(value = "SELECT new com.paradoks.agileproject.dto.response.ClubResponse(c.id, c.name, c.description, c.profilePicture, c.profilePictureRenditions, c.banner, c.bannerRenditions) FROM clubs c",
+            countQuery = "SELECT COUNT(c) FROM clubs c")
+    Page<ClubResponse> findResponsesBy(Pageable pageable);
+
+    @Query("SELECT new com.paradoks.agileproject.dto.response.ClubResponse(c.id, c.name, c.description, c.profilePicture, c.profilePictureRenditions, c.banner, c.bannerRenditions) FROM clubs c")
+    Slice<ClubResponse> findResponseSliceBy(Pageable pageable);
+
+    @Query("SELECT new com.paradoks.agileproject.model.TagRow(c.id, t) FROM clubs c JOIN c.tags t WHERE c.id IN :clubIds")
+    List<TagRow> findTagsByClubIds(@Param("clubIds") Collection<Long> clubIds);
+
+    // Membership is changed on the join table directly so the member collection is never loaded.
+    // The native spaces hint keeps Hibernate from evicting every second-level cache region on each toggle.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "club_members"))
+    @Query(value = "DELETE FROM club_members WHERE club_id = :clubId AND user_id = :userId", nativeQuery = true)
+    int deleteMember(@Param("clubId") Long clubId, @Param("userId") Long userId);
+
+    // Flushes first: with sequence ids a club or user saved in the same transaction may not be inserted yet,
+    // and the native spaces hint limits auto-flush to club_members
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "club_members"))
+    @Query(value = "INSERT INTO club_members (club_id, user_id) VALUES (:clubId, :userId)", nativeQuery = true)
+    int insertMember(@Param("clubId") Long clubId, @Param("userId") Long userId);
+}
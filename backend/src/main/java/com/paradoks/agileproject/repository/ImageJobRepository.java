@@ -0,0 +1,47 @@
+package com.paradoks.agileproject.repository;
+
+import com.paradoks.agileproject.model.ImageJob;
+import com.paradoks.agileproject.model.ImageJobStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageJobRepository extends JpaRepository<ImageJob, Long> {
+
+    Optional<ImageJob> findByIdAndClubId(Long id, Long clubId);
+
+    // One statement per status change, so workers never hold a job row between steps
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImageJob j SET j.status = :status, j.resultUrl = :resultUrl, j.error = :error, j.updatedAt = :now WHERE j.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") ImageJobStatus status, @Param("resultUrl") String resultUrl,
+                     @Param("error") String error, @Param("now") LocalDateTime now);
+
+    List<ImageJob> findByStatusInAndUpdatedAtBefore(Collection<ImageJobStatus> statuses, LocalDateTime cutoff);
+
+    // Re-checks status and age, so a job a worker picked up in the meantime is left alone
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImageJob j SET j.status = com.paradoks.agileproject.model.ImageJobStatus.FAILED, j.error = :error, j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.status IN :statuses AND j.updatedAt < :cutoff")
+    int failIfStale(@Param("id") Long id, @Param("statuses") Collection<ImageJobStatus> statuses, @Param("cutoff") LocalDateTime cutoff,
+                    @Param("error") String error, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "image_jobs"))
+    @Query(value = "DELETE FROM image_jobs WHERE id IN (SELECT id FROM image_jobs WHERE expires_at < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
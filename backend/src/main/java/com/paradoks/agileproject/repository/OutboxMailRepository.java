@@ -0,0 +1,23 @@
+package com.paradoks.agileproject.repository;
+
+import com.paradoks.agileproject.model.OutboxMail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMailRepository extends JpaRepository<OutboxMail, Long> {
+
+    // Rows another dispatcher is claiming are skipped rather than waited for
+    @Query(value = "SELECT * FROM mail_outbox WHERE failed = false AND next_attempt_at <= :now ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxMail> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByFailedFalse();
+
+    long countByFailedTrue();
+}
@@ -1,12 +1,38 @@
 package com.paradoks.agileproject.repository;
 
 import com.paradoks.agileproject.model.Post;
+import com.paradoks.agileproject.model.PostView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
-    Page<Post> findAllByClub_Id(Long clubId, Pageable pageable);
+    Window<Post> findAllByClub_Id(Long clubId, ScrollPosition position, Limit limit, Sort sort);
+    long countByClub_Id(Long clubId);
+
+    @EntityGraph(attributePaths = {"club", "club.tags"})
+    Optional<Post> findWithClubById(Long id);
+
+    // Post rows without the club entity, so mapping a page never touches the lazy club or its tags
+    @Query(value = "SELECT new com.paradoks.agileproject.model.PostView(p.id, p.title, p.content, p.club.id, p.creationDate) FROM posts p WHERE p.club.id = :clubId",
+            countQuery = "SELECT COUNT(p) FROM posts p WHERE p.club.id = :clubId")
+    Page<PostView> findViewsByClubId(@Param("clubId") Long clubId, Pageable pageable);
+
+    @Query("SELECT new com.paradoks.agileproject.model.PostView(p.id, p.title, p.content, p.club.id, p.creationDate) FROM posts p WHERE p.club.id = :clubId")
+    Slice<PostView> findViewSliceByClubId(@Param("clubId") Long clubId, Pageable pageable);
+
+    @Query("SELECT new com.paradoks.agileproject.model.PostView(p.id, p.title, p.content, p.club.id, p.creationDate) FROM posts p WHERE p.id = :id")
+    Optional<PostView> findViewById(@Param("id") Long id);
 }
@@ -1,9 +1,19 @@
 package com.paradoks.agileproject.repository;
 
 import com.paradoks.agileproject.model.ClubSession;
+import com.paradoks.agileproject.model.SessionPrincipal;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,5 +21,26 @@ public interface SessionRepository extends JpaRepository<ClubSession, Long> {
 
     Optional<ClubSession> findByTokenAndActiveTrue(String token);
 
+    @Query("SELECT new com.paradoks.agileproject.model.SessionPrincipal(s.id, com.paradoks.agileproject.model.PrincipalKind.CLUB, s.club.id, s.expiresAt) " +
+            "FROM ClubSession s WHERE s.token = :token AND s.active = true")
+    Optional<SessionPrincipal> findPrincipalByToken(@Param("token") String token);
+
+    @Query("SELECT s.token FROM ClubSession s WHERE s.active = false AND s.expiresAt > :now")
+    List<String> findRevokedTokens(@Param("now") LocalDateTime now);
+
+    @Query("SELECT s FROM ClubSession s JOIN FETCH s.club WHERE s.club.id = :clubId AND s.active = true AND s.expiresAt > :now ORDER BY s.expiresAt DESC LIMIT 1")
+    Optional<ClubSession> findActiveByClubId(@Param("clubId") Long clubId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ClubSession s SET s.active = false WHERE s.club.id = :clubId AND s.active = true")
+    int deactivateAllByClubId(@Param("clubId") Long clubId);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "club_sessions"))
+    @Query(value = "DELETE FROM club_sessions WHERE id IN (SELECT id FROM club_sessions WHERE expires_at < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
     void deleteByToken(String token);
 }
\ No newline at end of file
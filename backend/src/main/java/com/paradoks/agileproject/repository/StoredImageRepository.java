@@ -0,0 +1,41 @@
+package com.paradoks.agileproject.repository;
+
+import com.paradoks.agileproject.model.StoredImage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StoredImageRepository extends JpaRepository<StoredImage, String> {
+
+    // Reference counts only change through these single-row updates, so concurrent uploads never lose a count
+    @Transactional
+    @Modifying
+    @Query("UPDATE StoredImage i SET i.refCount = i.refCount + :delta, i.updatedAt = :now WHERE i.name = :name")
+    int addReferences(@Param("name") String name, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    // Fails on the primary key when another upload of the same bytes inserted the row first
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "stored_images"))
+    @Query(value = "INSERT INTO stored_images (name, ref_count, updated_at) VALUES (:name, 1, :now)", nativeQuery = true)
+    void insertReferenced(@Param("name") String name, @Param("now") LocalDateTime now);
+
+    @Query("SELECT i.name FROM StoredImage i WHERE i.refCount <= 0 AND i.updatedAt < :cutoff ORDER BY i.updatedAt")
+    List<String> findUnreferenced(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    // Re-checks the count, so a file picked up again since findUnreferenced is kept
+    @Modifying
+    @Query("DELETE FROM StoredImage i WHERE i.name = :name AND i.refCount <= 0 AND i.updatedAt < :cutoff")
+    int deleteUnreferenced(@Param("name") String name, @Param("cutoff") LocalDateTime cutoff);
+}
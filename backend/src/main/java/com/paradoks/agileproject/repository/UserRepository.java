@@ -1,16 +1,49 @@
 package com.paradoks.agileproject.repository;
 
+import com.paradoks.agileproject.dto.response.UserResponse;
+import com.paradoks.agileproject.model.TagRow;
 import com.paradoks.agileproject.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
-    Page<User> findAllByJoinedClubsId(Long clubId, Pageable pageable);
+
+    Window<User> findAllByJoinedClubsId(Long clubId, ScrollPosition position, Limit limit, Sort sort);
+    long countByJoinedClubsId(Long clubId);
+
+    @Query(value = "SELECT new com.paradoks.agileproject.dto.response.UserResponse(u.id, u.firstName, u.lastName, u.email, u.dateCreated) FROM users u JOIN u.joinedClubs c WHERE c.id = :clubId",
+            countQuery = "SELECT COUNT(u) FROM users u JOIN u.joinedClubs c WHERE c.id = :clubId")
+    Page<UserResponse> findMemberResponsesByClubId(@Param("clubId") Long clubId, Pageable pageable);
+
+    @Query("SELECT new com.paradoks.agileproject.dto.response.UserResponse(u.id, u.firstName, u.lastName, u.email, u.dateCreated) FROM users u JOIN u.joinedClubs c WHERE c.id = :clubId")
+    Slice<UserResponse> findMemberResponseSliceByClubId(@Param("clubId") Long clubId, Pageable pageable);
+
+    @Query("SELECT new com.paradoks.agileproject.model.TagRow(u.id, t) FROM users u JOIN u.tags t WHERE u.id IN :userIds")
+    List<TagRow> findTagsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT c.id FROM users u JOIN u.joinedClubs c WHERE u.id = :userId")
+    List<Long> findJoinedClubIdsByUserId(@Param("userId") Long userId);
+
+    @Query(value = "SELECT id FROM users WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
 }
@@ -1,12 +1,43 @@
 package com.paradoks.agileproject.repository;
 
+import com.paradoks.agileproject.model.SessionPrincipal;
 import com.paradoks.agileproject.model.UserSession;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserSessionRepository extends JpaRepository<UserSession, Long> {
     Optional<UserSession> findByTokenAndActiveTrue(String token);
+
+    @Query("SELECT new com.paradoks.agileproject.model.SessionPrincipal(s.id, com.paradoks.agileproject.model.PrincipalKind.USER, s.user.id, s.expiresAt) " +
+            "FROM UserSession s WHERE s.token = :token AND s.active = true")
+    Optional<SessionPrincipal> findPrincipalByToken(@Param("token") String token);
+
+    @Query("SELECT s.token FROM UserSession s WHERE s.active = false AND s.expiresAt > :now")
+    List<String> findRevokedTokens(@Param("now") LocalDateTime now);
+
+    @Query("SELECT s FROM UserSession s JOIN FETCH s.user WHERE s.user.id = :userId AND s.active = true AND s.expiresAt > :now ORDER BY s.expiresAt DESC LIMIT 1")
+    Optional<UserSession> findActiveByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserSession s SET s.active = false WHERE s.user.id = :userId AND s.active = true")
+    int deactivateAllByUserId(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_sessions"))
+    @Query(value = "DELETE FROM user_sessions WHERE id IN (SELECT id FROM user_sessions WHERE expires_at < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 }
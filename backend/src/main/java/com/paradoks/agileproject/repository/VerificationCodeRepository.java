@@ -1,9 +1,17 @@
 package com.paradoks.agileproject.repository;
 
 import com.paradoks.agileproject.model.VerificationCode;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +19,14 @@ public interface VerificationCodeRepository extends JpaRepository<VerificationCo
     Optional<VerificationCode> findByEmailAndCode(String email, String code);
     Optional<VerificationCode> findByEmail(String email);
     void deleteByEmail(String email);
+
+    @Modifying
+    @Query("DELETE FROM VerificationCode v WHERE v.id = :id")
+    int deleteByIdAndCount(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "verification_code"))
+    @Query(value = "DELETE FROM verification_code WHERE id IN (SELECT id FROM verification_code WHERE expiration_time < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 }
@@ -3,34 +3,50 @@ package com.paradoks.agileproject.service;
 import com.paradoks.agileproject.dto.request.LoginRequest;
 import com.paradoks.agileproject.dto.request.RegisterRequest;
 import com.paradoks.agileproject.dto.response.ApiResponse;
+import com.paradoks.agileproject.dto.response.ClubResponse;
+import com.paradoks.agileproject.dto.response.UserResponse;
 import com.paradoks.agileproject.model.Post;
+import com.paradoks.agileproject.model.PostView;
 import com.paradoks.agileproject.model.User;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.paradoks.agileproject.dto.request.ClubUpdateRequest;
 import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.ImageJob;
 import com.paradoks.agileproject.dto.request.PageableRequestParams;
 
 @Service
 public interface ClubService {
     ApiResponse register(RegisterRequest registerRequest);
     String  login(LoginRequest loginRequest);
+    /** Detached club with its tags. Concurrent callers may receive the same instance, so do not modify it. */
     ClubModel getClub(Long clubId);
     ClubModel updateClub(Long clubId, ClubUpdateRequest request);
 
-    Page<Post> listClubPosts(Long clubId, @Valid PageableRequestParams params);
+    Slice<PostView> listClubPosts(Long clubId, @Valid PageableRequestParams params);
 
-    Page<ClubModel> listClubs(PageableRequestParams params);
-    ClubModel updateProfilePicture(Long clubId, MultipartFile profilePicture);
-    ClubModel updateBanner(Long clubId, MultipartFile banner);
+    Window<Post> scrollClubPosts(Long clubId, PageableRequestParams params);
+
+    Slice<ClubResponse> listClubs(PageableRequestParams params);
+
+    Window<ClubResponse> scrollClubs(PageableRequestParams params);
+    /** Stores the upload and queues it for processing; the club's picture changes once the job is done. */
+    ImageJob updateProfilePicture(Long clubId, MultipartFile profilePicture);
+    /** Stores the upload and queues it for processing; the club's banner changes once the job is done. */
+    ImageJob updateBanner(Long clubId, MultipartFile banner);
+    /** The club's own image job; other clubs' jobs are reported as not found. */
+    ImageJob getImageJob(Long clubId, Long jobId);
 
     ClubModel updateClubDescription(Long clubId, com.paradoks.agileproject.dto.request.ClubDescriptionUpdateRequest request);
 
     boolean toggleMembership(Long clubId, Long userId);
 
-    Page<User> getClubMembers(Long clubId, PageableRequestParams params);
+    Slice<UserResponse> getClubMembers(Long clubId, PageableRequestParams params);
+
+    Window<UserResponse> scrollClubMembers(Long clubId, PageableRequestParams params);
 
 }
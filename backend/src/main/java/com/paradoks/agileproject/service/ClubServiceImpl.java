@@ -1,47 +1,66 @@
 package com.paradoks.agileproject.service;
 
+import com.paradoks.agileproject.cache.ClubSummaryCache;
+import com.paradoks.agileproject.cache.PageCountCache;
+import com.paradoks.agileproject.cache.ResponseCache;
+import com.paradoks.agileproject.dto.mapper.ClubMapper;
+import com.paradoks.agileproject.dto.mapper.UserMapper;
 import com.paradoks.agileproject.dto.request.ClubUpdateRequest;
 import com.paradoks.agileproject.dto.request.LoginRequest;
 import com.paradoks.agileproject.dto.request.RegisterRequest;
 import com.paradoks.agileproject.dto.response.ApiResponse;
+import com.paradoks.agileproject.dto.response.ClubResponse;
+import com.paradoks.agileproject.dto.response.UserResponse;
 import com.paradoks.agileproject.exception.BadRequestException;
 import com.paradoks.agileproject.exception.FileUploadException;
 import com.paradoks.agileproject.exception.NotFoundException;
 import com.paradoks.agileproject.exception.UnauthorizedException;
 import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.ImageJob;
+import com.paradoks.agileproject.model.ImageKind;
+import com.paradoks.agileproject.model.ImageRendition;
 import com.paradoks.agileproject.model.Post;
+import com.paradoks.agileproject.model.PostView;
+import com.paradoks.agileproject.model.TagRow;
 import com.paradoks.agileproject.model.ClubSession;
 import com.paradoks.agileproject.model.User;
 import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.repository.ImageJobRepository;
 import com.paradoks.agileproject.repository.PostRepository;
 import com.paradoks.agileproject.repository.UserRepository;
+import com.paradoks.agileproject.utils.KeysetCursor;
 import com.paradoks.agileproject.utils.PasswordUtils;
-import org.imgscalr.Scalr;
-import org.jetbrains.annotations.NotNull;
-import org.springframework.beans.factory.annotation.Value;
+import com.paradoks.agileproject.utils.SingleFlight;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.paradoks.agileproject.dto.request.PageableRequestParams;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
 import javax.imageio.stream.ImageInputStream;
-import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
-import java.util.ArrayList;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 public class ClubServiceImpl implements ClubService {
@@ -50,29 +69,69 @@ public class ClubServiceImpl implements ClubService {
     private final ClubSessionService clubSessionService;
 
     private final static List<String> ALLOWED_EXTENSIONS = List.of("png", "jpg");
+
+    // Sort keys allowed in cursor mode, each backed by an index ending in id
+    private final static Map<String, Class<?>> CLUB_CURSOR_KEYS = Map.of("id", Long.class, "name", String.class);
+    private final static Map<String, Class<?>> POST_CURSOR_KEYS = Map.of("id", Long.class, "creationDate", LocalDateTime.class);
+    private final static Map<String, Class<?>> MEMBER_CURSOR_KEYS = Map.of("id", Long.class);
     private final PostRepository postRepository;
     private final UserRepository userRepository;
-
-    @Value("${upload-dir}")
-    private String uploadDir;
-
-    public ClubServiceImpl(ClubRepository clubRepository, PasswordUtils passwordUtils, ClubSessionService clubSessionService, PostRepository postRepository, UserRepository userRepository) {
+    private final PageCountCache pageCountCache;
+    private final ClubSummaryCache clubSummaryCache;
+    private final ResponseCache responseCache;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SingleFlight<Long, ClubModel> clubLoads = new SingleFlight<>();
+    private final ClubMapper clubMapper;
+    private final UserMapper userMapper;
+    private final ImageProcessor imageProcessor;
+    private final ImageStore imageStore;
+    private final ImageJobRepository imageJobRepository;
+
+    public ClubServiceImpl(ClubRepository clubRepository, PasswordUtils passwordUtils, ClubSessionService clubSessionService, PostRepository postRepository, UserRepository userRepository, PageCountCache pageCountCache, ClubSummaryCache clubSummaryCache,
+                           ResponseCache responseCache, ClubMapper clubMapper, UserMapper userMapper, PlatformTransactionManager transactionManager,
+                           ImageProcessor imageProcessor, ImageStore imageStore, ImageJobRepository imageJobRepository) {
         this.clubRepository = clubRepository;
         this.passwordUtils = passwordUtils;
         this.clubSessionService = clubSessionService;
         this.postRepository = postRepository;
         this.userRepository = userRepository;
+        this.pageCountCache = pageCountCache;
+        this.clubSummaryCache = clubSummaryCache;
+        this.responseCache = responseCache;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.clubMapper = clubMapper;
+        this.userMapper = userMapper;
+        this.imageProcessor = imageProcessor;
+        this.imageStore = imageStore;
+        this.imageJobRepository = imageJobRepository;
     }
 
     @Override
     public ClubModel getClub(Long clubId) {
-        return clubRepository.findById(clubId)
+        // A caller inside a transaction must see its own writes, so only transactionless reads are shared
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loadClub(clubId);
+        }
+        // Concurrent misses for one club share a single load. The transaction is opened inside the load,
+        // so callers waiting on it do not hold connections
+        return clubLoads.load(clubId, () -> readOnlyTransaction.execute(status -> loadClub(clubId)));
+    }
+
+    // Loaded by id so both the club and its tags can come from the second-level cache;
+    // tags are initialized here since callers map the club after the session is gone
+    private ClubModel loadClub(Long clubId) {
+        ClubModel club = clubRepository.findById(clubId)
                 .orElseThrow(() -> new NotFoundException("Club not found"));
+        Hibernate.initialize(club.getTags());
+        return club;
     }
 
     @Override
     public ClubModel updateClub(Long clubId, ClubUpdateRequest request) {
-        ClubModel club = getClub(clubId);
+        ClubModel club = loadForUpdate(clubId);
         if (request.getName() != null) {
             club.setName(request.getName());
         }
@@ -82,26 +141,82 @@ public class ClubServiceImpl implements ClubService {
         if (request.getTags() != null) {
             club.setTags(request.getTags());
         }
-        return clubRepository.save(club);
+        return saveClub(club);
+    }
+
+    // Update paths read the row itself rather than the second-level cache, with the tags the response needs
+    private ClubModel loadForUpdate(Long clubId) {
+        return clubRepository.findWithTagsById(clubId)
+                .orElseThrow(() -> new NotFoundException("Club not found"));
+    }
+
+    private void requireClub(Long clubId) {
+        if (!clubRepository.existsById(clubId)) {
+            throw new NotFoundException("Club not found");
+        }
+    }
+
+    private ClubModel saveClub(ClubModel club) {
+        ClubModel saved = clubRepository.save(club);
+        evictClub(saved.getId());
+        return saved;
+    }
+
+    private void evictClub(Long clubId) {
+        clubSummaryCache.evict(clubId);
+        responseCache.invalidate(ResponseCache.CLUBS, ResponseCache.club(clubId));
     }
 
     @Override
     public ClubModel updateClubDescription(Long clubId, com.paradoks.agileproject.dto.request.ClubDescriptionUpdateRequest request) {
-        ClubModel club = getClub(clubId);
+        ClubModel club = loadForUpdate(clubId);
         club.setDescription(request.getDescription());
-        return clubRepository.save(club);
+        return saveClub(club);
     }
 
     @Override
-    public Page<Post> listClubPosts(Long clubId, PageableRequestParams params) {
+    public Slice<PostView> listClubPosts(Long clubId, PageableRequestParams params) {
         Pageable pageable = PageRequest.of(params.getPage(), params.getSize(), Sort.by(params.getSortBy()));
-        return postRepository.findAllByClub_Id(clubId, pageable);
+        return fetchPage(params, pageable, "posts:club:" + clubId,
+                () -> postRepository.findViewsByClubId(clubId, pageable),
+                () -> postRepository.findViewSliceByClubId(clubId, pageable),
+                () -> postRepository.countByClub_Id(clubId));
     }
 
     @Override
-    public Page<ClubModel> listClubs(PageableRequestParams params) {
+    public Window<Post> scrollClubPosts(Long clubId, PageableRequestParams params) {
+        return postRepository.findAllByClub_Id(clubId, KeysetCursor.position(params, POST_CURSOR_KEYS),
+                Limit.of(params.getSize()), KeysetCursor.sort(params, POST_CURSOR_KEYS));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<ClubResponse> listClubs(PageableRequestParams params) {
         Pageable pageable = PageRequest.of(params.getPage(), params.getSize(), Sort.by(params.getSortBy()));
-        return clubRepository.findAll(pageable);
+        Slice<ClubResponse> clubs = fetchPage(params, pageable, "clubs",
+                () -> clubRepository.findResponsesBy(pageable),
+                () -> clubRepository.findResponseSliceBy(pageable),
+                clubRepository::count);
+        attachClubTags(clubs.getContent());
+        return clubs;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<ClubResponse> scrollClubs(PageableRequestParams params) {
+        Window<ClubResponse> clubs = clubRepository.findAllBy(KeysetCursor.position(params, CLUB_CURSOR_KEYS),
+                        Limit.of(params.getSize()), KeysetCursor.sort(params, CLUB_CURSOR_KEYS))
+                .map(clubMapper::clubToClubResponseWithoutTags);
+        attachClubTags(clubs.getContent());
+        return clubs;
+    }
+
+    private void attachClubTags(List<ClubResponse> clubs) {
+        if (clubs.isEmpty()) {
+            return;
+        }
+        Map<Long, List<String>> tags = groupTags(clubRepository.findTagsByClubIds(clubs.stream().map(ClubResponse::getId).toList()));
+        clubs.forEach(club -> club.setTags(tags.getOrDefault(club.getId(), List.of())));
     }
 
     @Override
@@ -119,6 +234,7 @@ public class ClubServiceImpl implements ClubService {
         club.setEmail(request.getEmail());
         club.setPassword(passwordUtils.hashPassword(request.getPassword()));
         clubRepository.save(club);
+        responseCache.invalidate(ResponseCache.CLUBS);
 
         return new ApiResponse(true, "Kayıt başarılı!");
     }
@@ -137,117 +253,95 @@ public class ClubServiceImpl implements ClubService {
             throw new UnauthorizedException("Invalid credentials");
         }
 
+        // Upgrade hashes made with an older cost factor while we have the plain password
+        if (passwordUtils.needsRehash(club.getPassword())) {
+            club.setPassword(passwordUtils.hashPassword(request.getPassword()));
+            clubRepository.save(club);
+        }
+
         ClubSession session = clubSessionService.createSession(club, 24); // 24 saat geçerli
 
         return session.getToken();
     }
 
     @Override
-    public ClubModel updateProfilePicture(Long clubId, MultipartFile profilePicture) {
-        if (profilePicture.isEmpty()) {
+    public ImageJob updateProfilePicture(Long clubId, MultipartFile profilePicture) {
+        String imageFormat = validateImage(profilePicture, 2);
+        requireClub(clubId);
+        return imageProcessor.submit(clubId, ImageKind.PROFILE_PICTURE, imageFormat, profilePicture,
+                (fileUrl, renditions) -> replaceImage(clubId, ImageKind.PROFILE_PICTURE, fileUrl, renditions));
+    }
+
+    @Override
+    public ImageJob updateBanner(Long clubId, MultipartFile banner) {
+        String imageFormat = validateImage(banner, 5);
+        requireClub(clubId);
+        return imageProcessor.submit(clubId, ImageKind.BANNER, imageFormat, banner,
+                (fileUrl, renditions) -> replaceImage(clubId, ImageKind.BANNER, fileUrl, renditions));
+    }
+
+    @Override
+    public ImageJob getImageJob(Long clubId, Long jobId) {
+        return imageJobRepository.findByIdAndClubId(jobId, clubId)
+                .orElseThrow(() -> new NotFoundException("Image job not found"));
+    }
+
+    // Only the cheap checks run on the request thread; decoding and resizing happen in ImageProcessor
+    private String validateImage(MultipartFile image, int maxMegabytes) {
+        if (image.isEmpty()) {
             throw new BadRequestException("Please select a file to upload");
         }
 
-        if (profilePicture.getContentType() == null || !profilePicture.getContentType().startsWith("image/")) {
+        if (image.getContentType() == null || !image.getContentType().startsWith("image/")) {
             throw new BadRequestException("Only image files are allowed");
         }
 
-        if (profilePicture.getSize() > 2 * 1024 * 1024) {
-            throw new BadRequestException("File size must be less than 2MB");
-        }
-
-        ClubModel club = getClub(clubId);
-
-        // Delete old profile picture if it exists
-        if (club.getProfilePicture() != null) {
-            try {
-                String oldFileName = club.getProfilePicture();
-                File file = new File(oldFileName);
-                String fileName = file.getName();
-                Path oldFilePath = Paths.get(uploadDir, fileName);
-                Files.deleteIfExists(oldFilePath);
-            } catch (IOException e) {
-                // Log the exception, but don't block the upload
-                System.err.println("Failed to delete old profile picture: " + e.getMessage());
-            }
+        if (image.getSize() > maxMegabytes * 1024L * 1024L) {
+            throw new BadRequestException("File size must be less than " + maxMegabytes + "MB");
         }
 
-
         try {
-            String imageFormat = getImageFormat(profilePicture);
+            String imageFormat = getImageFormat(image);
             if (imageFormat == null || !ALLOWED_EXTENSIONS.contains(imageFormat)) {
                 throw new FileUploadException("file format not allowed, use one of these: [\"png\", \"jpg\"]");
             }
-
-            BufferedImage originalImage = ImageIO.read(profilePicture.getInputStream());
-
-            // Crop to a square from the center of the image
-            int size = Math.min(originalImage.getWidth(), originalImage.getHeight());
-            int x = (originalImage.getWidth() - size) / 2;
-            int y = (originalImage.getHeight() - size) / 2;
-            BufferedImage croppedImage = Scalr.crop(originalImage, x, y, size, size);
-
-            // Resize to 200x200
-            BufferedImage resizedImage = Scalr.resize(croppedImage, 200);
-
-            String fileUrl = copyFileToDisk(resizedImage, imageFormat);
-
-            club.setProfilePicture(fileUrl);
-            return clubRepository.save(club);
+            return imageFormat;
         } catch (IOException e) {
             throw new FileUploadException("Failed to process image", e);
         }
     }
 
-    @Override
-    public ClubModel updateBanner(Long clubId, MultipartFile banner) {
-        if (banner.isEmpty()) {
-            throw new BadRequestException("Please select a file to upload");
-        }
-
-        if (banner.getContentType() == null || !banner.getContentType().startsWith("image/")) {
-            throw new BadRequestException("Only image files are allowed");
-        }
-
-        if (banner.getSize() > 5 * 1024 * 1024) {
-            throw new BadRequestException("File size must be less than 5MB");
-        }
-
-        ClubModel club = getClub(clubId);
-
-        // Delete old banner if it exists
-        if (club.getBanner() != null) {
-            try {
-                String oldFileName = club.getBanner();
-                File file = new File(oldFileName);
-                String fileName = file.getName();
-                Path oldFilePath = Paths.get(uploadDir, fileName);
-                Files.deleteIfExists(oldFilePath);
-            } catch (IOException e) {
-                // Log the exception, but don't block the upload
-                System.err.println("Failed to delete old banner: " + e.getMessage());
+    // Runs on an image worker once the new renditions are stored. The club row is locked while its current images are
+    // read, swapped and released, so concurrent uploads take turns and each releases exactly the renditions it replaced.
+    // The released files outlive the store's grace period, so URLs clients already hold never dangle
+    private void replaceImage(Long clubId, ImageKind kind, String fileUrl, List<ImageRendition> renditions) {
+        transaction.executeWithoutResult(status -> {
+            clubRepository.lockById(clubId)
+                    .orElseThrow(() -> new NotFoundException("Club not found"));
+            ClubModel club = loadForUpdate(clubId);
+            List<String> oldFileUrls;
+            if (kind == ImageKind.PROFILE_PICTURE) {
+                oldFileUrls = storedFileUrls(club.getProfilePicture(), club.getProfilePictureRenditions());
+                club.setProfilePicture(fileUrl);
+                club.setProfilePictureRenditions(renditions);
+            } else {
+                oldFileUrls = storedFileUrls(club.getBanner(), club.getBannerRenditions());
+                club.setBanner(fileUrl);
+                club.setBannerRenditions(renditions);
             }
-        }
-
-
-        try {
-            String imageFormat = getImageFormat(banner);
-            if (imageFormat == null ||  !ALLOWED_EXTENSIONS.contains(imageFormat)) {
-                throw new FileUploadException("file format not allowed, use one of these: [\"png\", \"jpg\"]");
-            }
-
-            BufferedImage originalImage = ImageIO.read(banner.getInputStream());
-
-            // Resize to 1200x400
-            BufferedImage resizedImage = Scalr.resize(originalImage, 1200, 400);
-
-            String fileUrl = copyFileToDisk(resizedImage, imageFormat);
+            clubRepository.save(club);
+            oldFileUrls.forEach(imageStore::release);
+        });
+        // Evicted after commit, so a concurrent read cannot cache the club as it was before the swap
+        evictClub(clubId);
+    }
 
-            club.setBanner(fileUrl);
-            return clubRepository.save(club);
-        } catch (IOException e) {
-            throw new FileUploadException("Failed to process image", e);
+    // The main URL is one of the renditions, except for images stored before renditions existed
+    private static List<String> storedFileUrls(String fileUrl, List<ImageRendition> renditions) {
+        if (renditions != null) {
+            return renditions.stream().map(ImageRendition::url).toList();
         }
+        return fileUrl != null ? List.of(fileUrl) : List.of();
     }
 
     public String getImageFormat(MultipartFile file) throws IOException {
@@ -261,68 +355,77 @@ public class ClubServiceImpl implements ClubService {
             }
 
             ImageReader reader = readers.next();
-            return reader.getFormatName().toLowerCase();
+            // The JPEG reader reports "jpeg", stored files use the "jpg" extension
+            String format = reader.getFormatName().toLowerCase();
+            return format.equals("jpeg") ? "jpg" : format;
         }
     }
 
+    @Override
+    @Transactional
+    public boolean toggleMembership(Long clubId, Long userId) {
+        requireClub(clubId);
 
-    @NotNull
-    private String copyFileToDisk(BufferedImage resizedImage, String format) {
-        String fileName = UUID.randomUUID() + "." + format;
-        Path uploadPath = Paths.get(uploadDir);
-
-        try {
-
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-            File file = new File(uploadDir, fileName);
-
-            if (!ImageIO.write(resizedImage, format, file)) {
-                throw new FileUploadException("Failed to write image");
-            }
+        // Locking the user row serialises that user's toggles, so a double click joins and then leaves
+        userRepository.lockById(userId)
+                .orElseThrow(() -> new NotFoundException("User not found"));
 
-        } catch (IOException e) {
-            System.err.println(e);
-            throw new BadRequestException("Failed to create image");
+        responseCache.invalidate(ResponseCache.clubMembers(clubId));
+        if (clubRepository.deleteMember(clubId, userId) > 0) {
+            return false;
         }
-
-        return "/" + uploadPath + "/" + fileName;
+        clubRepository.insertMember(clubId, userId);
+        return true;
     }
 
     @Override
-    public boolean toggleMembership(Long clubId, Long userId) {
-        ClubModel club = getClub(clubId);
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found"));
+    @Transactional(readOnly = true)
+    public Slice<UserResponse> getClubMembers(Long clubId, PageableRequestParams params) {
+        requireClub(clubId);
+        Pageable pageable = PageRequest.of(params.getPage(), params.getSize(), Sort.by(params.getSortBy()));
+        Slice<UserResponse> members = fetchPage(params, pageable, "members:club:" + clubId,
+                () -> userRepository.findMemberResponsesByClubId(clubId, pageable),
+                () -> userRepository.findMemberResponseSliceByClubId(clubId, pageable),
+                () -> userRepository.countByJoinedClubsId(clubId));
+        attachUserTags(members.getContent());
+        return members;
+    }
 
-        List<User> members = club.getMembers();
-        if (members == null) {
-            members = new ArrayList<>();
-        }
+    /**
+     * Runs a listing in the requested count mode: exact runs the COUNT query, none fetches size + 1 rows
+     * to tell whether there is a next page, and cached pairs that with a short-lived cached total.
+     */
+    private <T> Slice<T> fetchPage(PageableRequestParams params, Pageable pageable, String countKey,
+                                   Supplier<Page<T>> exact, Supplier<Slice<T>> slice, LongSupplier count) {
+        return switch (params.getCount()) {
+            case "none" -> slice.get();
+            case "cached" -> PageableExecutionUtils.getPage(slice.get().getContent(), pageable,
+                    () -> pageCountCache.get(countKey, count));
+            default -> exact.get();
+        };
+    }
 
-        Optional<User> existingMember = members.stream()
-                .filter(m -> m.getId().equals(userId))
-                .findFirst();
+    @Override
+    @Transactional(readOnly = true)
+    public Window<UserResponse> scrollClubMembers(Long clubId, PageableRequestParams params) {
+        requireClub(clubId);
+        Window<UserResponse> members = userRepository.findAllByJoinedClubsId(clubId, KeysetCursor.position(params, MEMBER_CURSOR_KEYS),
+                        Limit.of(params.getSize()), KeysetCursor.sort(params, MEMBER_CURSOR_KEYS))
+                .map(userMapper::userToUserResponseWithoutTags);
+        attachUserTags(members.getContent());
+        return members;
+    }
 
-        if (existingMember.isPresent()) {
-            members.remove(existingMember.get());
-            club.setMembers(members);
-            clubRepository.save(club);
-            return false;
-        } else {
-            members.add(user);
-            club.setMembers(members);
-            clubRepository.save(club);
-            return true;
+    private void attachUserTags(List<UserResponse> users) {
+        if (users.isEmpty()) {
+            return;
         }
+        Map<Long, List<String>> tags = groupTags(userRepository.findTagsByUserIds(users.stream().map(UserResponse::getId).toList()));
+        users.forEach(user -> user.setTags(tags.getOrDefault(user.getId(), List.of())));
     }
 
-    @Override
-    public Page<User> getClubMembers(Long clubId, PageableRequestParams params) {
-        getClub(clubId); // Check if club exists
-        Pageable pageable = PageRequest.of(params.getPage(), params.getSize(), Sort.by(params.getSortBy()));
-        return userRepository.findAllByJoinedClubsId(clubId, pageable);
+    private static Map<Long, List<String>> groupTags(List<TagRow> rows) {
+        return rows.stream().collect(Collectors.groupingBy(TagRow::ownerId, Collectors.mapping(TagRow::tag, Collectors.toList())));
     }
 
 }
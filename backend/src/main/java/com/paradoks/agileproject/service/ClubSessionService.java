@@ -2,6 +2,7 @@ package com.paradoks.agileproject.service;
 
 import com.paradoks.agileproject.model.ClubModel;
 import com.paradoks.agileproject.model.ClubSession;
+import com.paradoks.agileproject.model.SessionPrincipal;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -10,9 +11,11 @@ import java.util.Optional;
 public interface ClubSessionService {
     ClubSession createSession(ClubModel club, int hoursValid);
     boolean isSessionValid(String token);
+    Optional<SessionPrincipal> resolvePrincipal(String token);
     void invalidateSession(String token);
+    int invalidateAllSessions(Long clubId);
     Optional<ClubSession> getActiveSession(ClubModel club);
 
     Optional<ClubSession> getActiveSessionByEmail(String email);
-    Optional<ClubSession> getCurrentSession();
+    Optional<SessionPrincipal> getCurrentPrincipal();
 }
@@ -1,79 +1,100 @@
 package com.paradoks.agileproject.service;
 
+import com.paradoks.agileproject.cache.SessionTokenCache;
 import com.paradoks.agileproject.model.ClubModel;
 import com.paradoks.agileproject.model.ClubSession;
+import com.paradoks.agileproject.model.PrincipalKind;
+import com.paradoks.agileproject.model.SessionPrincipal;
 import com.paradoks.agileproject.repository.ClubRepository;
 import com.paradoks.agileproject.repository.SessionRepository;
+import com.paradoks.agileproject.utils.SessionTokenSigner;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.Authentication;
-
 @Service
 public class ClubSessionServiceImpl implements ClubSessionService {
     private final SessionRepository sessionRepository;
     private final ClubRepository clubRepository;
+    private final SessionTokenCache<SessionPrincipal> sessionCache;
+    private final SessionTokenSigner tokenSigner;
+    private final SessionRevocationList revocationList;
 
-    public ClubSessionServiceImpl(SessionRepository sessionRepository, ClubRepository clubRepository) {
+    public ClubSessionServiceImpl(SessionRepository sessionRepository, ClubRepository clubRepository, MeterRegistry meterRegistry,
+                                  SessionTokenSigner tokenSigner, SessionRevocationList revocationList,
+                                  @Value("${session.cache.ttl-seconds}") long cacheTtlSeconds,
+                                  @Value("${session.cache.max-size}") long cacheMaxSize) {
         this.sessionRepository = sessionRepository;
         this.clubRepository = clubRepository;
+        this.sessionCache = new SessionTokenCache<>("clubSessions", Duration.ofSeconds(cacheTtlSeconds), cacheMaxSize,
+                SessionPrincipal::getExpiresAt, meterRegistry);
+        this.tokenSigner = tokenSigner;
+        this.revocationList = revocationList;
     }
 
     @Override
-    public Optional<ClubSession> getCurrentSession() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return Optional.empty();
-        }
-        String token = (String) authentication.getPrincipal();
-        return sessionRepository.findByTokenAndActiveTrue(token);
+    public Optional<SessionPrincipal> getCurrentPrincipal() {
+        return SessionPrincipal.current(PrincipalKind.CLUB);
     }
 
     @Override
     public ClubSession createSession(ClubModel club, int hoursValid) {
         ClubSession session = ClubSession.createSession(club, hoursValid);
+        if (tokenSigner.isEnabled()) {
+            session.setToken(tokenSigner.sign(PrincipalKind.CLUB, club.getId(), session.getExpiresAt()));
+        }
         return sessionRepository.save(session);
     }
 
     @Override
     public boolean isSessionValid(String token) {
-        Optional<ClubSession> sessionOpt = sessionRepository.findByTokenAndActiveTrue(token);
-        if (sessionOpt.isEmpty()) return false;
+        return resolvePrincipal(token).isPresent();
+    }
 
-        ClubSession session = sessionOpt.get();
-        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
-            session.setActive(false);
-            sessionRepository.save(session);
-            return false;
+    @Override
+    public Optional<SessionPrincipal> resolvePrincipal(String token) {
+        // The cache only hears about logouts made on this instance; the others arrive with the revocation list
+        if (revocationList.isRevoked(token)) {
+            sessionCache.invalidate(token);
+            return Optional.empty();
         }
-        return true;
+        return sessionCache.get(token, this::findValidPrincipal);
+    }
+
+    // Expired rows are left for ExpiredDataSweeper, so this lookup never writes
+    private Optional<SessionPrincipal> findValidPrincipal(String token) {
+        return sessionRepository.findPrincipalByToken(token)
+                .filter(principal -> principal.getExpiresAt().isAfter(LocalDateTime.now()));
     }
 
     @Override
     public void invalidateSession(String token) {
+        sessionCache.invalidate(token);
+        revocationList.revoke(token);
         sessionRepository.findByTokenAndActiveTrue(token).ifPresent(session -> {
             session.setActive(false);
             sessionRepository.save(session);
         });
     }
 
+    @Override
+    public int invalidateAllSessions(Long clubId) {
+        int invalidated = sessionRepository.deactivateAllByClubId(clubId);
+        sessionCache.invalidateIf(principal -> principal.getPrincipalId().equals(clubId));
+        revocationList.refresh();
+        return invalidated;
+    }
+
     @Override
     public Optional<ClubSession> getActiveSession(ClubModel club) {
-        return sessionRepository.findAll().stream()
-                .filter(s -> s.getClub().equals(club) && s.isActive())
-                .findFirst();
+        return sessionRepository.findActiveByClubId(club.getId(), LocalDateTime.now());
     }
 
     @Override
     public Optional<ClubSession> getActiveSessionByEmail(String email) {
-        Optional<ClubModel> clubOpt = clubRepository.findByEmail(email);
-        if (clubOpt.isEmpty()) return Optional.empty();
-
-        ClubModel club = clubOpt.get();
-        return sessionRepository.findAll().stream()
-                .filter(s -> s.getClub().equals(club) && s.isActive())
-                .findFirst();
+        return clubRepository.findByEmail(email).flatMap(this::getActiveSession);
     }}
@@ -0,0 +1,84 @@
+package com.paradoks.agileproject.service;
+
+import com.paradoks.agileproject.repository.ImageJobRepository;
+import com.paradoks.agileproject.repository.SessionRepository;
+import com.paradoks.agileproject.repository.UserSessionRepository;
+import com.paradoks.agileproject.repository.VerificationCodeRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Deletes expired sessions, verification codes and finished image jobs in the background.
+ * Each batch is its own short transaction, with a pause in between, so the sweep never holds
+ * locks on a large number of rows. Rows removed per run are published as {@code sweeper.rows.swept}.
+ */
+@Component
+public class ExpiredDataSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiredDataSweeper.class);
+
+    private final Map<String, BiFunction<LocalDateTime, Integer, Integer>> tables = new LinkedHashMap<>();
+    private final Map<String, DistributionSummary> sweptRows = new LinkedHashMap<>();
+    private final int batchSize;
+    private final long pauseMs;
+
+    public ExpiredDataSweeper(SessionRepository sessionRepository, UserSessionRepository userSessionRepository,
+                              VerificationCodeRepository verificationCodeRepository, ImageJobRepository imageJobRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${sweeper.batch-size}") int batchSize,
+                              @Value("${sweeper.batch-pause-ms}") long pauseMs) {
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+
+        tables.put("club_sessions", sessionRepository::deleteExpiredBatch);
+        tables.put("user_sessions", userSessionRepository::deleteExpiredBatch);
+        tables.put("verification_code", verificationCodeRepository::deleteExpiredBatch);
+        tables.put("image_jobs", imageJobRepository::deleteExpiredBatch);
+        tables.keySet().forEach(table -> sweptRows.put(table, DistributionSummary.builder("sweeper.rows.swept")
+                .description("Expired rows deleted per sweeper run")
+                .tag("table", table)
+                .register(meterRegistry)));
+    }
+
+    @Scheduled(fixedDelayString = "${sweeper.interval-ms}", initialDelayString = "${sweeper.interval-ms}")
+    public void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now();
+        tables.forEach((table, deleteBatch) -> {
+            int swept = sweepTable(cutoff, deleteBatch);
+            sweptRows.get(table).record(swept);
+            if (swept > 0) {
+                log.info("Swept {} expired rows from {}", swept, table);
+            }
+        });
+    }
+
+    private int sweepTable(LocalDateTime cutoff, BiFunction<LocalDateTime, Integer, Integer> deleteBatch) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = deleteBatch.apply(cutoff, batchSize);
+            total += deleted;
+        } while (deleted == batchSize && pause());
+        return total;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.paradoks.agileproject.service;
+
+import com.paradoks.agileproject.exception.FileUploadException;
+import com.paradoks.agileproject.exception.TooManyRequestsException;
+import com.paradoks.agileproject.model.ImageJob;
+import com.paradoks.agileproject.model.ImageJobStatus;
+import com.paradoks.agileproject.model.ImageKind;
+import com.paradoks.agileproject.model.ImageRendition;
+import com.paradoks.agileproject.repository.ImageJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.imgscalr.Scalr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Crops, resizes and re-encodes club images on a small low-priority pool, so upload bursts neither hold
+ * request threads nor compete with API reads for CPU. Uploads are stored raw and tracked as {@link ImageJob}s;
+ * when the pool and its queue are full they are turned away with a 429. Queue depth and pool usage are
+ * published as the {@code executor.*} metrics tagged {@code name=image}.
+ * <p>
+ * Every upload is rendered at each configured width in the upload's own format and as lossy WebP (through
+ * libwebp) whenever that is smaller, and kept in the content-addressed {@link ImageStore}.
+ */
+@Component
+public class ImageProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageProcessor.class);
+    private static final String WEBP = "webp";
+    private static final Set<ImageJobStatus> UNFINISHED = EnumSet.of(ImageJobStatus.PENDING, ImageJobStatus.PROCESSING);
+
+    private final ImageJobRepository imageJobRepository;
+    private final ImageStore imageStore;
+    private final ThreadPoolExecutor executor;
+    private final Path rawPath;
+    private final Duration retention;
+    private final Duration abandonedAfter;
+    private final Map<ImageKind, int[]> widths;
+    private final boolean webp;
+    private final float webpQuality;
+
+    public ImageProcessor(ImageJobRepository imageJobRepository, ImageStore imageStore, MeterRegistry meterRegistry,
+                          @Value("${upload-dir}") String uploadDir,
+                          @Value("${image.renditions.profile-picture-widths}") int[] profilePictureWidths,
+                          @Value("${image.renditions.banner-widths}") int[] bannerWidths,
+                          @Value("${image.processing.threads}") int threads,
+                          @Value("${image.processing.queue-capacity}") int queueCapacity,
+                          @Value("${image.jobs.retention-hours}") long retentionHours,
+                          @Value("${image.jobs.abandoned-after-minutes}") long abandonedAfterMinutes,
+                          @Value("${image.renditions.webp-quality}") float webpQuality) {
+        this.imageJobRepository = imageJobRepository;
+        this.imageStore = imageStore;
+        this.rawPath = Paths.get(uploadDir, "raw");
+        this.retention = Duration.ofHours(retentionHours);
+        this.abandonedAfter = Duration.ofMinutes(abandonedAfterMinutes);
+        this.widths = Map.of(ImageKind.PROFILE_PICTURE, sorted(profilePictureWidths), ImageKind.BANNER, sorted(bannerWidths));
+        // Registered by webp-imageio; checked so a platform without its native library degrades instead of failing
+        this.webp = ImageIO.getImageWritersByFormatName(WEBP).hasNext();
+        this.webpQuality = webpQuality;
+        if (!webp) {
+            log.warn("No WebP image writer registered, club images are stored in their upload format only");
+        }
+
+        BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("image-");
+        threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue,
+                threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "image");
+    }
+
+    /**
+     * Stores the upload and queues it. {@code onProcessed} runs on the worker with the URL of the largest
+     * rendition in the upload's format and every rendition, before the job is marked done. It takes over
+     * the renditions' {@link ImageStore} references.
+     */
+    public ImageJob submit(Long clubId, ImageKind kind, String format, MultipartFile upload,
+                           BiConsumer<String, List<ImageRendition>> onProcessed) {
+        Path raw = storeRaw(upload, format);
+
+        LocalDateTime now = LocalDateTime.now();
+        ImageJob job = new ImageJob();
+        job.setClubId(clubId);
+        job.setKind(kind);
+        job.setStatus(ImageJobStatus.PENDING);
+        job.setRawPath(raw.toString());
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        job.setExpiresAt(now.plus(retention));
+        imageJobRepository.save(job);
+
+        try {
+            executor.execute(() -> process(job.getId(), kind, format, raw, onProcessed));
+        } catch (RejectedExecutionException e) {
+            imageJobRepository.deleteById(job.getId());
+            deleteQuietly(raw);
+            throw new TooManyRequestsException("Too many image uploads in progress, please try again shortly");
+        }
+        return job;
+    }
+
+    /**
+     * Fails jobs that have not moved for {@code image.jobs.abandoned-after-minutes} and deletes their raw uploads.
+     * The queue only lives in memory, so such jobs lost their worker in a restart or crash and would otherwise stay
+     * pending forever. Runs at startup and then periodically; younger jobs are left alone, since they may still be
+     * queued on another instance.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${image.jobs.recovery-interval-ms}", initialDelayString = "${image.jobs.recovery-interval-ms}")
+    public int failAbandonedJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(abandonedAfter);
+        int failed = 0;
+        for (ImageJob job : imageJobRepository.findByStatusInAndUpdatedAtBefore(UNFINISHED, cutoff)) {
+            if (imageJobRepository.failIfStale(job.getId(), UNFINISHED, cutoff, "Processing was interrupted, please upload the image again", now) == 1) {
+                deleteQuietly(Paths.get(job.getRawPath()));
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            log.warn("Failed {} abandoned image jobs", failed);
+        }
+        return failed;
+    }
+
+    private Path storeRaw(MultipartFile upload, String format) {
+        Path raw = rawPath.resolve(UUID.randomUUID() + "." + format);
+        try (InputStream in = upload.getInputStream()) {
+            Files.createDirectories(rawPath);
+            Files.copy(in, raw);
+            return raw;
+        } catch (IOException e) {
+            throw new FileUploadException("Failed to store image", e);
+        }
+    }
+
+    private void process(Long jobId, ImageKind kind, String format, Path raw, BiConsumer<String, List<ImageRendition>> onProcessed) {
+        imageJobRepository.updateStatus(jobId, ImageJobStatus.PROCESSING, null, null, LocalDateTime.now());
+        List<String> stored = new ArrayList<>();
+        try {
+            BufferedImage image = ImageIO.read(raw.toFile());
+            if (image == null) {
+                throw new FileUploadException("Failed to process image");
+            }
+            List<ImageRendition> renditions = render(kind, image, format, stored);
+            String fileUrl = renditions.getLast().url();
+            onProcessed.accept(fileUrl, renditions);
+            imageJobRepository.updateStatus(jobId, ImageJobStatus.DONE, fileUrl, null, LocalDateTime.now());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image job {} failed: {}", jobId, e.getMessage());
+            stored.forEach(imageStore::release);
+            String error = e instanceof FileUploadException ? e.getMessage() : "Failed to process image";
+            imageJobRepository.updateStatus(jobId, ImageJobStatus.FAILED, null, error, LocalDateTime.now());
+        } finally {
+            deleteQuietly(raw);
+        }
+    }
+
+    // WebP renditions first, then the upload's format, each from smallest to largest
+    private List<ImageRendition> render(ImageKind kind, BufferedImage image, String format, List<String> stored) throws IOException {
+        BufferedImage source = kind == ImageKind.PROFILE_PICTURE ? cropSquare(image) : image;
+
+        List<ImageRendition> renditions = new ArrayList<>();
+        for (int width : widths.get(kind)) {
+            // Banners keep their aspect ratio within width x width/3, like the original 1200x400
+            BufferedImage resized = kind == ImageKind.BANNER ? Scalr.resize(source, width, width / 3) : Scalr.resize(source, width);
+            byte[] encoded = ImageStore.encode(resized, format);
+            renditions.add(store(encoded, format, resized, stored));
+            if (webp) {
+                // Almost always smaller than the JPEG or PNG rendition; skipped in the rare case it is not
+                byte[] webpEncoded = encodeWebP(resized);
+                if (webpEncoded.length < encoded.length) {
+                    renditions.add(store(webpEncoded, WEBP, resized, stored));
+                }
+            }
+        }
+        renditions.sort(Comparator.comparing((ImageRendition rendition) -> !rendition.type().equals(contentType(WEBP)))
+                .thenComparingInt(ImageRendition::width));
+        return List.copyOf(renditions);
+    }
+
+    // Lossy, like the JPEG renditions; libwebp keeps the alpha channel of PNG uploads
+    private byte[] encodeWebP(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(WEBP).next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionType("Lossy");
+        param.setCompressionQuality(webpQuality);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private ImageRendition store(byte[] encoded, String format, BufferedImage image, List<String> stored) throws IOException {
+        String url = imageStore.put(encoded, format);
+        stored.add(url);
+        return new ImageRendition(url, image.getWidth(), image.getHeight(), contentType(format));
+    }
+
+    // Crop to a square from the center of the image
+    private static BufferedImage cropSquare(BufferedImage image) {
+        int size = Math.min(image.getWidth(), image.getHeight());
+        int x = (image.getWidth() - size) / 2;
+        int y = (image.getHeight() - size) / 2;
+        return Scalr.crop(image, x, y, size, size);
+    }
+
+    private static String contentType(String format) {
+        return "image/" + (format.equals("jpg") ? "jpeg" : format);
+    }
+
+    private static int[] sorted(int[] widths) {
+        return Arrays.stream(widths).sorted().distinct().toArray();
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,177 @@
+package com.paradoks.agileproject.service;
+
+import com.paradoks.agileproject.exception.FileUploadException;
+import com.paradoks.agileproject.repository.StoredImageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed storage for processed club images. Files are named after the SHA-256 of their encoded bytes,
+ * so the same image is written once and a URL always means the same bytes, which lets {@code FileController}
+ * serve them as immutable. Every club image pointing at a file holds one reference; files left without
+ * references for {@code image.store.gc-grace-minutes} are deleted by {@link #collectGarbage()}.
+ */
+@Component
+public class ImageStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageStore.class);
+
+    /** File names written by this store: never overwritten with different bytes. */
+    public static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}\\.[a-z]+");
+
+    private final StoredImageRepository storedImageRepository;
+    private final TransactionTemplate transaction;
+    private final Path uploadPath;
+    private final Duration gracePeriod;
+    private final int batchSize;
+
+    public ImageStore(StoredImageRepository storedImageRepository, PlatformTransactionManager transactionManager,
+                      @Value("${upload-dir}") String uploadDir,
+                      @Value("${image.store.gc-grace-minutes}") long graceMinutes,
+                      @Value("${image.store.gc-batch-size}") int batchSize) {
+        this.storedImageRepository = storedImageRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.uploadPath = Paths.get(uploadDir);
+        this.gracePeriod = Duration.ofMinutes(graceMinutes);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Encodes the image, stores it unless the same bytes are already stored, and returns its URL
+     * holding one new reference.
+     */
+    public String put(BufferedImage image, String format) throws IOException {
+        return put(encode(image, format), format);
+    }
+
+    /** Encodes the image with the ImageIO writer for the format. */
+    public static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, out)) {
+            throw new FileUploadException("Failed to write image");
+        }
+        return out.toByteArray();
+    }
+
+    /** Stores already encoded bytes like {@link #put(BufferedImage, String)}. */
+    public String put(byte[] bytes, String format) throws IOException {
+        String name = HexFormat.of().formatHex(sha256(bytes)) + "." + format;
+
+        // Referenced before the file is checked: the collector only deletes a file while holding its
+        // unreferenced row, so from here on the file either stays or is gone before the check below
+        acquire(name);
+        try {
+            writeIfAbsent(name, bytes);
+        } catch (IOException | RuntimeException e) {
+            storedImageRepository.addReferences(name, -1, LocalDateTime.now());
+            throw e;
+        }
+        return "/" + uploadPath + "/" + name;
+    }
+
+    /**
+     * Drops one reference to the file behind the URL. Files from before content addressing were never shared
+     * and are deleted right away.
+     */
+    public void release(String url) {
+        String name = Paths.get(url).getFileName().toString();
+        if (CONTENT_ADDRESSED.matcher(name).matches()) {
+            storedImageRepository.addReferences(name, -1, LocalDateTime.now());
+        } else {
+            deleteQuietly(uploadPath.resolve(name));
+        }
+    }
+
+    /**
+     * Deletes files that have had no references for the grace period, which also covers clients still
+     * holding a replaced image's URL. Returns how many were deleted.
+     */
+    @Scheduled(fixedDelayString = "${image.store.gc-interval-ms}", initialDelayString = "${image.store.gc-interval-ms}")
+    public int collectGarbage() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(gracePeriod);
+        int deleted = 0;
+        for (String name : storedImageRepository.findUnreferenced(cutoff, Limit.of(batchSize))) {
+            // The row stays locked until the file is gone, so an upload of the same bytes waits and writes it again
+            Boolean removed = transaction.execute(status -> {
+                if (storedImageRepository.deleteUnreferenced(name, cutoff) == 0) {
+                    return false;
+                }
+                deleteQuietly(uploadPath.resolve(name));
+                return true;
+            });
+            if (Boolean.TRUE.equals(removed)) {
+                deleted++;
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} unreferenced images", deleted);
+        }
+        return deleted;
+    }
+
+    private void acquire(String name) {
+        LocalDateTime now = LocalDateTime.now();
+        while (storedImageRepository.addReferences(name, 1, now) == 0) {
+            try {
+                storedImageRepository.insertReferenced(name, now);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // An upload of the same bytes inserted the row first; count on that row instead
+            }
+        }
+    }
+
+    private void writeIfAbsent(String name, byte[] bytes) throws IOException {
+        Path file = uploadPath.resolve(name);
+        if (Files.exists(file)) {
+            return;
+        }
+        Files.createDirectories(uploadPath);
+        // Concurrent writers of the same name each move a complete file into place, so readers never see a partial one
+        Path temp = Files.createTempFile(uploadPath, name, ".tmp");
+        try {
+            Files.write(temp, bytes);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+}
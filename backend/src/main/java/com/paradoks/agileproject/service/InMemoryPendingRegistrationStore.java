@@ -0,0 +1,97 @@
+package com.paradoks.agileproject.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.paradoks.agileproject.model.PendingRegistration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Size-bounded in-memory store. Entries disappear on their own when they expire. Only suits a single
+ * instance: entries are lost on restart and not shared.
+ * <p>
+ * The map is not part of the caller's transaction. An entry is visible as soon as it is put, and is removed
+ * again if the surrounding transaction rolls back, so a registration whose outbox mail was never queued
+ * does not block the email until it expires.
+ */
+@Component
+@ConditionalOnProperty(name = "registration.pending-store", havingValue = "memory")
+public class InMemoryPendingRegistrationStore implements PendingRegistrationStore {
+
+    private final Cache<String, PendingRegistration> registrations;
+
+    public InMemoryPendingRegistrationStore(@Value("${registration.pending.max-size}") long maxSize) {
+        this.registrations = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new RegistrationExpiry())
+                .build();
+    }
+
+    @Override
+    public boolean putIfAbsent(PendingRegistration registration) {
+        PendingRegistration stored = registrations.asMap().compute(registration.email(),
+                (email, existing) -> existing == null || existing.isExpired() ? registration : existing);
+        if (stored != registration) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        registrations.asMap().remove(registration.email(), registration);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<PendingRegistration> find(String email) {
+        return Optional.ofNullable(registrations.getIfPresent(email)).filter(registration -> !registration.isExpired());
+    }
+
+    @Override
+    public Optional<PendingRegistration> consume(String email, String code) {
+        AtomicReference<PendingRegistration> consumed = new AtomicReference<>();
+        registrations.asMap().computeIfPresent(email, (key, existing) -> {
+            if (existing.isExpired()) {
+                return null;
+            }
+            if (existing.code().equals(code)) {
+                consumed.set(existing);
+                return null;
+            }
+            return existing;
+        });
+        return Optional.ofNullable(consumed.get());
+    }
+
+    private static final class RegistrationExpiry implements Expiry<String, PendingRegistration> {
+
+        @Override
+        public long expireAfterCreate(String email, PendingRegistration registration, long currentTime) {
+            return Math.max(0, Duration.between(LocalDateTime.now(), registration.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String email, PendingRegistration registration, long currentTime, long currentDuration) {
+            return expireAfterCreate(email, registration, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String email, PendingRegistration registration, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
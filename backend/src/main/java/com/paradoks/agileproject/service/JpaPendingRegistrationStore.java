@@ -0,0 +1,80 @@
+package com.paradoks.agileproject.service;
+
+import com.paradoks.agileproject.model.PendingRegistration;
+import com.paradoks.agileproject.model.VerificationCode;
+import com.paradoks.agileproject.repository.VerificationCodeRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Keeps pending registrations in the verification_code table, which survives restarts and is
+ * shared between instances. Written in the caller's transaction, so a registration exists exactly when
+ * its verification mail was queued in the outbox. Expired rows are removed by {@link ExpiredDataSweeper}.
+ * <p>
+ * Emails are unique in the table, so of several concurrent registrations for one email only the first insert
+ * succeeds. The others get false, and their transaction can only roll back.
+ */
+@Component
+@ConditionalOnProperty(name = "registration.pending-store", havingValue = "database", matchIfMissing = true)
+@Transactional
+public class JpaPendingRegistrationStore implements PendingRegistrationStore {
+
+    private final VerificationCodeRepository verificationCodeRepository;
+
+    public JpaPendingRegistrationStore(VerificationCodeRepository verificationCodeRepository) {
+        this.verificationCodeRepository = verificationCodeRepository;
+    }
+
+    @Override
+    public boolean putIfAbsent(PendingRegistration registration) {
+        Optional<VerificationCode> existing = verificationCodeRepository.findByEmail(registration.email());
+        if (existing.isPresent()) {
+            if (existing.get().getExpirationTime().isAfter(LocalDateTime.now())) {
+                return false;
+            }
+            // Conditional, since a concurrent registration may be replacing the same expired row
+            verificationCodeRepository.deleteByIdAndCount(existing.get().getId());
+        }
+
+        VerificationCode verificationCode = new VerificationCode();
+        verificationCode.setEmail(registration.email());
+        verificationCode.setCode(registration.code());
+        verificationCode.setExpirationTime(registration.expiresAt());
+        verificationCode.setFirstName(registration.firstName());
+        verificationCode.setLastName(registration.lastName());
+        verificationCode.setPassword(registration.passwordHash());
+        try {
+            // Flushed here so a concurrent registration for the same email fails on the constraint now
+            verificationCodeRepository.saveAndFlush(verificationCode);
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<PendingRegistration> find(String email) {
+        return verificationCodeRepository.findByEmail(email)
+                .map(this::toRegistration)
+                .filter(registration -> !registration.isExpired());
+    }
+
+    @Override
+    public Optional<PendingRegistration> consume(String email, String code) {
+        // The conditional delete is the claim: only the caller that actually removed the row may use it
+        return verificationCodeRepository.findByEmailAndCode(email, code)
+                .filter(verificationCode -> verificationCode.getExpirationTime().isAfter(LocalDateTime.now()))
+                .filter(verificationCode -> verificationCodeRepository.deleteByIdAndCount(verificationCode.getId()) == 1)
+                .map(this::toRegistration);
+    }
+
+    private PendingRegistration toRegistration(VerificationCode verificationCode) {
+        return new PendingRegistration(verificationCode.getEmail(), verificationCode.getCode(), verificationCode.getFirstName(),
+                verificationCode.getLastName(), verificationCode.getPassword(), verificationCode.getExpirationTime());
+    }
+}
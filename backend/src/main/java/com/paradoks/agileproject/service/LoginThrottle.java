@@ -0,0 +1,110 @@
+package com.paradoks.agileproject.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paradoks.agileproject.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token-bucket throttling for login and verification attempts, keyed by email and by client IP.
+ * Buckets are updated with compare-and-set, and idle ones are evicted so memory stays bounded.
+ * Rejections happen before any database or BCrypt work.
+ */
+@Component
+public class LoginThrottle {
+
+    private final Cache<String, TokenBucket> emailBuckets;
+    private final Cache<String, TokenBucket> ipBuckets;
+    private final int emailCapacity;
+    private final double emailRefillPerNano;
+    private final int ipCapacity;
+    private final double ipRefillPerNano;
+    private final Counter emailRejections;
+    private final Counter ipRejections;
+
+    public LoginThrottle(@Value("${login.throttle.per-email.capacity}") int emailCapacity,
+                         @Value("${login.throttle.per-email.refill-per-minute}") double emailRefillPerMinute,
+                         @Value("${login.throttle.per-ip.capacity}") int ipCapacity,
+                         @Value("${login.throttle.per-ip.refill-per-minute}") double ipRefillPerMinute,
+                         @Value("${login.throttle.max-keys}") long maxKeys,
+                         @Value("${login.throttle.idle-minutes}") long idleMinutes,
+                         MeterRegistry meterRegistry) {
+        this.emailCapacity = emailCapacity;
+        this.emailRefillPerNano = emailRefillPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.ipCapacity = ipCapacity;
+        this.ipRefillPerNano = ipRefillPerMinute / TimeUnit.MINUTES.toNanos(1);
+        this.emailBuckets = newBucketCache(maxKeys, Duration.ofMinutes(idleMinutes));
+        this.ipBuckets = newBucketCache(maxKeys, Duration.ofMinutes(idleMinutes));
+        this.emailRejections = meterRegistry.counter("login.throttle.rejected", "key", "email");
+        this.ipRejections = meterRegistry.counter("login.throttle.rejected", "key", "ip");
+    }
+
+    private static Cache<String, TokenBucket> newBucketCache(long maxKeys, Duration idle) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idle)
+                .build();
+    }
+
+    /**
+     * Takes one attempt from both the IP and the email bucket, or throws a 429 if either is empty.
+     */
+    public void acquire(String email, String clientIp) {
+        long now = System.nanoTime();
+
+        if (!ipBuckets.get(clientIp, key -> new TokenBucket(ipCapacity, ipRefillPerNano, now)).tryConsume(now)) {
+            ipRejections.increment();
+            throw new TooManyRequestsException("Too many attempts from this address, please try again later");
+        }
+
+        String emailKey = email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+        if (!emailBuckets.get(emailKey, key -> new TokenBucket(emailCapacity, emailRefillPerNano, now)).tryConsume(now)) {
+            emailRejections.increment();
+            throw new TooManyRequestsException("Too many attempts for this account, please try again later");
+        }
+    }
+
+    public long trackedKeys() {
+        emailBuckets.cleanUp();
+        ipBuckets.cleanUp();
+        return emailBuckets.estimatedSize() + ipBuckets.estimatedSize();
+    }
+
+    static final class TokenBucket {
+
+        private final int capacity;
+        private final double refillPerNano;
+        private final AtomicReference<State> state;
+
+        TokenBucket(int capacity, double refillPerNano, long now) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerNano;
+            this.state = new AtomicReference<>(new State(capacity, now));
+        }
+
+        boolean tryConsume(long now) {
+            while (true) {
+                State current = state.get();
+                long elapsed = Math.max(0, now - current.refilledAt());
+                double tokens = Math.min(capacity, current.tokens() + elapsed * refillPerNano);
+                if (tokens < 1) {
+                    return false;
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, Math.max(now, current.refilledAt())))) {
+                    return true;
+                }
+            }
+        }
+
+        private record State(double tokens, long refilledAt) {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.paradoks.agileproject.service;
+
+import com.paradoks.agileproject.mail.MailSender;
+import com.paradoks.agileproject.model.OutboxMail;
+import com.paradoks.agileproject.repository.OutboxMailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the mail outbox in batches. Delivered mails are deleted; failed ones are retried with
+ * exponential backoff and marked failed after {@code mail.outbox.max-attempts}.
+ * Publishes sent/retried/failed counters, the outbox backlog and the enqueue-to-delivery lag.
+ * <p>
+ * Each batch is claimed before it is sent: a short transaction locks the due rows, skipping rows another
+ * instance is claiming, and moves their next attempt {@code mail.outbox.lease-ms} ahead. Other dispatchers
+ * then leave them alone while no lock or connection is held during SMTP, and mails of a dispatcher that
+ * dies mid-batch become due again once the lease runs out.
+ */
+@Component
+public class MailDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(MailDispatcher.class);
+
+    private final OutboxMailRepository outboxMailRepository;
+    private final MailSender mailSender;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final TransactionTemplate transaction;
+
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer lag;
+    private final AtomicLong backlog = new AtomicLong();
+
+    public MailDispatcher(OutboxMailRepository outboxMailRepository, MailSender mailSender, MeterRegistry meterRegistry,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${mail.outbox.batch-size}") int batchSize,
+                          @Value("${mail.outbox.max-attempts}") int maxAttempts,
+                          @Value("${mail.outbox.initial-backoff-ms}") long initialBackoffMs,
+                          @Value("${mail.outbox.max-backoff-ms}") long maxBackoffMs,
+                          @Value("${mail.outbox.lease-ms}") long leaseMs) {
+        this.outboxMailRepository = outboxMailRepository;
+        this.mailSender = mailSender;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.lease = Duration.ofMillis(leaseMs);
+        this.transaction = new TransactionTemplate(transactionManager);
+
+        this.sent = meterRegistry.counter("mail.outbox.dispatched", "result", "sent");
+        this.retried = meterRegistry.counter("mail.outbox.dispatched", "result", "retry");
+        this.failed = meterRegistry.counter("mail.outbox.dispatched", "result", "failed");
+        this.lag = Timer.builder("mail.outbox.lag")
+                .description("Time from enqueue to successful delivery")
+                .register(meterRegistry);
+        Gauge.builder("mail.outbox.backlog", backlog, AtomicLong::get)
+                .description("Mails waiting to be sent")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends every mail that is due, one batch at a time, and returns how many were delivered.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-ms}", initialDelayString = "${mail.outbox.poll-ms}")
+    public int dispatch() {
+        int delivered = 0;
+        List<OutboxMail> batch;
+        do {
+            batch = claimDue();
+            for (OutboxMail mail : batch) {
+                try {
+                    if (deliver(mail)) {
+                        delivered++;
+                    }
+                } catch (RuntimeException e) {
+                    // Bookkeeping of one mail failed; it stays claimed until its lease runs out, the rest of the batch goes on
+                    log.error("Failed to record the delivery attempt of mail {} to {}", mail.getId(), mail.getRecipient(), e);
+                }
+            }
+        } while (batch.size() == batchSize);
+
+        backlog.set(outboxMailRepository.countByFailedFalse());
+        return delivered;
+    }
+
+    private List<OutboxMail> claimDue() {
+        return transaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMail> due = outboxMailRepository.lockDue(now, batchSize);
+            // Flushed on commit; the claimed mails are then sent from detached copies
+            due.forEach(mail -> mail.setNextAttemptAt(now.plus(lease)));
+            return due;
+        });
+    }
+
+    private boolean deliver(OutboxMail mail) {
+        try {
+            mailSender.send(mail.getRecipient(), mail.getSubject(), mail.getBody());
+        } catch (RuntimeException e) {
+            scheduleRetry(mail, e);
+            return false;
+        }
+
+        outboxMailRepository.delete(mail);
+        sent.increment();
+        lag.record(Duration.between(mail.getCreatedAt(), LocalDateTime.now()));
+        return true;
+    }
+
+    private void scheduleRetry(OutboxMail mail, RuntimeException error) {
+        mail.setAttempts(mail.getAttempts() + 1);
+        // SMTP errors can carry whole server responses; kept within the column
+        String message = String.valueOf(error.getMessage());
+        mail.setLastError(message.length() > OutboxMail.LAST_ERROR_LENGTH ? message.substring(0, OutboxMail.LAST_ERROR_LENGTH) : message);
+
+        if (mail.getAttempts() >= maxAttempts) {
+            mail.setFailed(true);
+            failed.increment();
+            log.error("Giving up on mail {} to {} after {} attempts", mail.getId(), mail.getRecipient(), mail.getAttempts(), error);
+        } else {
+            // 1x, 2x, 4x ... the initial backoff, capped
+            Duration backoff = initialBackoff.multipliedBy(1L << Math.min(mail.getAttempts() - 1, 20));
+            mail.setNextAttemptAt(LocalDateTime.now().plus(backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff));
+            retried.increment();
+            log.warn("Mail {} to {} failed (attempt {}), retrying: {}", mail.getId(), mail.getRecipient(), mail.getAttempts(), error.getMessage());
+        }
+        outboxMailRepository.save(mail);
+    }
+}
@@ -0,0 +1,36 @@
+package com.paradoks.agileproject.service;
+
+import com.paradoks.agileproject.model.OutboxMail;
+import com.paradoks.agileproject.repository.OutboxMailRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Queues mails for {@link MailDispatcher}. Must be called inside the caller's transaction, so a mail is
+ * only sent if the change that produced it commits, and the request never waits on the mail server.
+ */
+@Service
+public class MailOutbox {
+
+    private final OutboxMailRepository outboxMailRepository;
+
+    public MailOutbox(OutboxMailRepository outboxMailRepository) {
+        this.outboxMailRepository = outboxMailRepository;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String recipient, String subject, String body) {
+        LocalDateTime now = LocalDateTime.now();
+
+        OutboxMail mail = new OutboxMail();
+        mail.setRecipient(recipient);
+        mail.setSubject(subject);
+        mail.setBody(body);
+        mail.setCreatedAt(now);
+        mail.setNextAttemptAt(now);
+        outboxMailRepository.save(mail);
+    }
+}
@@ -0,0 +1,28 @@
+package com.paradoks.agileproject.service;
+
+import com.paradoks.agileproject.model.PendingRegistration;
+
+import java.util.Optional;
+
+/**
+ * Holds registrations until they are verified. Selected with {@code registration.pending-store}:
+ * {@code database} (default) or {@code memory}.
+ */
+public interface PendingRegistrationStore {
+
+    /**
+     * Stores the registration unless an unexpired one already exists for the same email.
+     * Of several concurrent calls for the same email, at most one returns true.
+     *
+     * @return false if an unexpired registration was already present
+     */
+    boolean putIfAbsent(PendingRegistration registration);
+
+    Optional<PendingRegistration> find(String email);
+
+    /**
+     * Removes and returns the registration if the code matches and it has not expired.
+     * Of several concurrent calls with the same code, at most one gets a result.
+     */
+    Optional<PendingRegistration> consume(String email, String code);
+}
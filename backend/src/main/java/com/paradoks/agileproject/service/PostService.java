@@ -2,12 +2,15 @@ package com.paradoks.agileproject.service;
 
 import com.paradoks.agileproject.dto.request.CreatePostRequest;
 import com.paradoks.agileproject.model.Post;
+import com.paradoks.agileproject.model.PostView;
 import org.springframework.stereotype.Service;
 
 @Service
 public interface PostService {
     Post createPost(CreatePostRequest createPostRequest, Long clubId);
+    /** Concurrent callers may receive the same instance, so do not modify it. */
     Post getPostById(Long postId);
+    PostView getPostView(Long postId);
     void deletePost(Long postId, Long clubId);
     Post updatePost(Long postId, CreatePostRequest updatePostRequest);
 }
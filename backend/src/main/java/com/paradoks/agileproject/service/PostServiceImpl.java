@@ -1,27 +1,39 @@
 package com.paradoks.agileproject.service;
 
+import com.paradoks.agileproject.cache.ResponseCache;
 import com.paradoks.agileproject.dto.request.CreatePostRequest;
 import com.paradoks.agileproject.model.ClubModel;
 import com.paradoks.agileproject.model.Post;
+import com.paradoks.agileproject.model.PostView;
 import com.paradoks.agileproject.repository.ClubRepository;
 import com.paradoks.agileproject.repository.PostRepository;
 import com.paradoks.agileproject.exception.NotFoundException;
+import com.paradoks.agileproject.utils.SingleFlight;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 public class PostServiceImpl implements PostService {
 
     private final PostRepository postRepository;
     private final ClubRepository clubRepository;
+    private final ResponseCache responseCache;
+    private final SingleFlight<Long, Post> postLoads = new SingleFlight<>();
+    private final SingleFlight<Long, PostView> postViewLoads = new SingleFlight<>();
 
-    public PostServiceImpl(PostRepository postRepository, ClubRepository clubRepository) {
+    public PostServiceImpl(PostRepository postRepository, ClubRepository clubRepository, ResponseCache responseCache) {
         this.postRepository = postRepository;
         this.clubRepository = clubRepository;
+        this.responseCache = responseCache;
     }
 
     @Override
     public Post createPost(CreatePostRequest createPostRequest, Long clubId) {
-        ClubModel club = clubRepository.findById(clubId)
+        ClubModel club = clubRepository.findWithTagsById(clubId)
                 .orElseThrow(() -> new NotFoundException("Club not found"));
 
         Post post = new Post();
@@ -29,11 +41,26 @@ public class PostServiceImpl implements PostService {
         post.setContent(createPostRequest.getContent());
         post.setClub(club);
 
-        return postRepository.save(post);
-    }    @Override
+        Post saved = postRepository.save(post);
+        responseCache.invalidate(ResponseCache.clubPosts(clubId));
+        return saved;
+    }
+
+    @Override
     public Post getPostById(Long postId) {
-        return postRepository.findById(postId)
-                .orElseThrow(() -> new NotFoundException("Post not found"));
+        return load(postLoads, postId, () -> postRepository.findById(postId));
+    }
+
+    @Override
+    public PostView getPostView(Long postId) {
+        return load(postViewLoads, postId, () -> postRepository.findViewById(postId));
+    }
+
+    // Concurrent lookups of one post share a single query; callers only read the result.
+    // A caller inside a transaction must see its own writes, so it queries directly
+    private static <T> T load(SingleFlight<Long, T> loads, Long postId, Supplier<Optional<T>> query) {
+        Supplier<T> loader = () -> query.get().orElseThrow(() -> new NotFoundException("Post not found"));
+        return TransactionSynchronizationManager.isActualTransactionActive() ? loader.get() : loads.load(postId, loader);
     }
 
     @Override
@@ -43,13 +70,18 @@ public class PostServiceImpl implements PostService {
             throw new com.paradoks.agileproject.exception.UnauthorizedException("You are not authorized to delete this post");
         }
         postRepository.delete(post);
+        responseCache.invalidate(ResponseCache.clubPosts(clubId));
     }
 
     @Override
+    @Transactional
     public Post updatePost(Long postId, CreatePostRequest updatePostRequest) {
-        Post post = getPostById(postId);
+        // Club and its tags are part of the response
+        Post post = postRepository.findWithClubById(postId)
+                .orElseThrow(() -> new NotFoundException("Post not found"));
         post.setTitle(updatePostRequest.getTitle());
         post.setContent(updatePostRequest.getContent());
+        responseCache.invalidate(ResponseCache.clubPosts(post.getClub().getId()));
         return postRepository.save(post);
     }
 }
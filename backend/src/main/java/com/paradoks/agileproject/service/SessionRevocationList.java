@@ -0,0 +1,66 @@
+package com.paradoks.agileproject.service;
+
+import com.paradoks.agileproject.repository.SessionRepository;
+import com.paradoks.agileproject.repository.UserSessionRepository;
+import com.paradoks.agileproject.utils.SessionTokenSigner;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of tokens that were logged out before they expired.
+ * Only revoked, not-yet-expired sessions are kept, so the set stays small. It is rebuilt from the
+ * session tables on a fixed delay so that logouts on other instances are picked up: signed tokens are
+ * checked against it directly, and in database mode it bounds how long another instance's
+ * SessionTokenCache keeps serving a logged-out token.
+ */
+@Component
+public class SessionRevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionRevocationList.class);
+
+    private final SessionRepository sessionRepository;
+    private final UserSessionRepository userSessionRepository;
+    private final SessionTokenSigner tokenSigner;
+
+    private volatile Set<String> revokedTokens = Set.of();
+    // Revocations made on this instance, kept until they expire so a refresh racing with the write cannot drop them
+    private final Map<String, LocalDateTime> localRevocations = new ConcurrentHashMap<>();
+
+    public SessionRevocationList(SessionRepository sessionRepository, UserSessionRepository userSessionRepository, SessionTokenSigner tokenSigner) {
+        this.sessionRepository = sessionRepository;
+        this.userSessionRepository = userSessionRepository;
+        this.tokenSigner = tokenSigner;
+    }
+
+    public boolean isRevoked(String token) {
+        return revokedTokens.contains(token) || localRevocations.containsKey(token);
+    }
+
+    public void revoke(String token) {
+        if (!tokenSigner.isEnabled()) {
+            return;
+        }
+        tokenSigner.verify(token).ifPresent(claims -> localRevocations.put(token, claims.expiresAt()));
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${session.revocation.refresh-ms}", initialDelayString = "${session.revocation.refresh-ms}")
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> tokens = new HashSet<>(sessionRepository.findRevokedTokens(now));
+        tokens.addAll(userSessionRepository.findRevokedTokens(now));
+        revokedTokens = Set.copyOf(tokens);
+        localRevocations.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+
+        log.debug("Session revocation list refreshed with {} tokens", tokens.size());
+    }
+}
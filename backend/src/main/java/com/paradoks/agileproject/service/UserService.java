@@ -12,6 +12,7 @@ import com.paradoks.agileproject.dto.request.UserUpdateRequest; // Added import
 public interface UserService {
     ApiResponse register(UserRegisterRequest registerRequest);
     String login(UserLoginRequest loginRequest);
+    /** Detached user with its tags. Concurrent callers may receive the same instance, so do not modify it. */
     User getUser(Long userId);
     ApiResponse deleteUser(Long userId);
     ApiResponse verifyUser(String email, String code);
@@ -1,5 +1,6 @@
 package com.paradoks.agileproject.service;
 
+import com.paradoks.agileproject.cache.ResponseCache;
 import com.paradoks.agileproject.dto.request.UserLoginRequest;
 import com.paradoks.agileproject.dto.request.UserRegisterRequest;
 import com.paradoks.agileproject.dto.request.UserUpdateRequest;
@@ -9,17 +10,23 @@ import com.paradoks.agileproject.exception.NotFoundException;
 import com.paradoks.agileproject.exception.UnauthorizedException;
 import com.paradoks.agileproject.model.User;
 import com.paradoks.agileproject.model.UserSession;
-import com.paradoks.agileproject.model.VerificationCode;
+import com.paradoks.agileproject.model.PendingRegistration;
 import com.paradoks.agileproject.repository.UserRepository;
-import com.paradoks.agileproject.repository.VerificationCodeRepository;
 import com.paradoks.agileproject.utils.PasswordUtils;
+import com.paradoks.agileproject.utils.SingleFlight;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.ArrayList;
 import java.util.Random;
 
 @Service
@@ -27,87 +34,91 @@ import java.util.Random;
 public class UserServiceImpl implements UserService {
 
     private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
+    private static final String CODE_ALREADY_SENT = "A valid verification code has already been sent to this email. Please check your inbox.";
 
     private final UserRepository userRepository;
-    private final VerificationCodeRepository verificationCodeRepository;
+    private final PendingRegistrationStore pendingRegistrationStore;
     private final UserSessionService userSessionService;
     private final PasswordUtils passwordUtils;
-
-    public UserServiceImpl(UserRepository userRepository, VerificationCodeRepository verificationCodeRepository, UserSessionService userSessionService, PasswordUtils passwordUtils) {
+    private final MailOutbox mailOutbox;
+    private final ResponseCache responseCache;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SingleFlight<Long, User> userLoads = new SingleFlight<>();
+
+    public UserServiceImpl(UserRepository userRepository, PendingRegistrationStore pendingRegistrationStore, UserSessionService userSessionService, PasswordUtils passwordUtils, MailOutbox mailOutbox,
+                           ResponseCache responseCache, PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
-        this.verificationCodeRepository = verificationCodeRepository;
+        this.pendingRegistrationStore = pendingRegistrationStore;
         this.userSessionService = userSessionService;
         this.passwordUtils = passwordUtils;
+        this.mailOutbox = mailOutbox;
+        this.responseCache = responseCache;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
+    // BCrypt takes tens of milliseconds, so register and login hash outside any transaction and only hold a
+    // connection for the short reads and the writes around it
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ApiResponse register(UserRegisterRequest registerRequest) {
         if (userRepository.existsByEmail(registerRequest.getEmail())) {
             throw new BadRequestException("Email already in use");
         }
 
-        // Check for existing verification code
-        Optional<VerificationCode> existingCodeOpt = verificationCodeRepository.findByEmail(registerRequest.getEmail());
-        if (existingCodeOpt.isPresent()) {
-            VerificationCode existingCode = existingCodeOpt.get();
-            if (existingCode.getExpirationTime().isAfter(LocalDateTime.now())) {
-                throw new BadRequestException("A valid verification code has already been sent to this email. Please check your inbox.");
-            } else {
-                // Delete expired code
-                verificationCodeRepository.delete(existingCode);
-            }
+        // Checked before hashing so repeated attempts do not cost a BCrypt round
+        if (pendingRegistrationStore.find(registerRequest.getEmail()).isPresent()) {
+            throw new BadRequestException(CODE_ALREADY_SENT);
         }
 
         // Generate verification code
         String code = String.format("%06d", new Random().nextInt(999999));
 
-        // Create VerificationCode entity
-        VerificationCode verificationCode = new VerificationCode();
-        verificationCode.setEmail(registerRequest.getEmail());
-        verificationCode.setCode(code);
-        verificationCode.setExpirationTime(LocalDateTime.now().plusMinutes(15));
-        verificationCode.setFirstName(registerRequest.getFirstName());
-        verificationCode.setLastName(registerRequest.getSecondName());
-        verificationCode.setPassword(passwordUtils.hashPassword(registerRequest.getPassword()));
-
-        verificationCodeRepository.save(verificationCode);
+        PendingRegistration registration = new PendingRegistration(
+                registerRequest.getEmail(),
+                code,
+                registerRequest.getFirstName(),
+                registerRequest.getSecondName(),
+                passwordUtils.hashPassword(registerRequest.getPassword()),
+                LocalDateTime.now().plusMinutes(15));
+
+        transaction.executeWithoutResult(status -> {
+            if (!pendingRegistrationStore.putIfAbsent(registration)) {
+                throw new BadRequestException(CODE_ALREADY_SENT);
+            }
 
-        // Log the code as per requirements
-        log.info("Verification code for {}: {}", registerRequest.getEmail(), code);
+            // Sent after commit by MailDispatcher; the default log sender still prints the code
+            mailOutbox.enqueue(registerRequest.getEmail(), "Your verification code",
+                    "Your verification code is " + code + ". It expires in 15 minutes.");
+        });
 
         return new ApiResponse(true, "Verification code sent to email");
     }
 
     @Override
     public ApiResponse verifyUser(String email, String code) {
-        // Double check if user exists to prevent race conditions
-        if (userRepository.existsByEmail(email)) {
-            // Clean up any lingering verification code
-            verificationCodeRepository.deleteByEmail(email);
-            throw new BadRequestException("User already registered");
-        }
-
-        VerificationCode verificationCode = verificationCodeRepository.findByEmailAndCode(email, code)
+        PendingRegistration registration = pendingRegistrationStore.consume(email, code)
                 .orElseThrow(() -> new BadRequestException("Invalid email or verification code"));
 
-        if (verificationCode.getExpirationTime().isBefore(LocalDateTime.now())) {
-            verificationCodeRepository.delete(verificationCode);
-            throw new BadRequestException("Verification code expired");
-        }
-
         User user = new User();
-        user.setEmail(verificationCode.getEmail());
-        user.setFirstName(verificationCode.getFirstName());
-        user.setLastName(verificationCode.getLastName());
-        user.setPassword(verificationCode.getPassword());
-        
-        userRepository.save(user);
-        verificationCodeRepository.delete(verificationCode);
+        user.setEmail(registration.email());
+        user.setFirstName(registration.firstName());
+        user.setLastName(registration.lastName());
+        user.setPassword(registration.passwordHash());
+
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new BadRequestException("User already registered");
+        }
 
         return new ApiResponse(true, "User registered successfully");
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String login(UserLoginRequest loginRequest) {
         User user = userRepository.findByEmail(loginRequest.getEmail())
                 .orElseThrow(() -> new UnauthorizedException("Invalid email or password"));
@@ -116,15 +127,36 @@ public class UserServiceImpl implements UserService {
             throw new UnauthorizedException("Invalid email or password");
         }
 
-        UserSession session = userSessionService.createSession(user, 24);
+        // Upgrade hashes made with an older cost factor while we have the plain password
+        String rehashed = passwordUtils.needsRehash(user.getPassword()) ? passwordUtils.hashPassword(loginRequest.getPassword()) : null;
 
-        return session.getToken();
+        return transaction.execute(status -> {
+            if (rehashed != null) {
+                user.setPassword(rehashed);
+                userRepository.save(user);
+            }
+            UserSession session = userSessionService.createSession(user, 24);
+            return session.getToken();
+        });
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public User getUser(Long userId) {
-        return userRepository.findById(userId)
+        // Same fetch plan and coalescing as ClubServiceImpl.getClub. SUPPORTS instead of the class-level
+        // transaction, so only the leading caller holds a connection
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loadUser(userId);
+        }
+        return userLoads.load(userId, () -> readOnlyTransaction.execute(status -> loadUser(userId)));
+    }
+
+    // By id, so the second-level cache can serve it, with the tags the response needs
+    private User loadUser(Long userId) {
+        User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User not found"));
+        Hibernate.initialize(user.getTags());
+        return user;
     }
 
     @Override
@@ -132,13 +164,17 @@ public class UserServiceImpl implements UserService {
         if (!userRepository.existsById(userId)) {
             throw new NotFoundException("User not found");
         }
+        // Looked up before the delete removes the memberships
+        evictMemberLists(userId);
         userRepository.deleteById(userId);
         return new ApiResponse(true, "User deleted successfully");
     }
 
     @Override
+    @Transactional
     public User updateUser(Long userId, UserUpdateRequest updateRequest) {
-        User user = getUser(userId);
+        // Not getUser: a coalesced result may be shared with concurrent readers
+        User user = loadUser(userId);
 
         if (updateRequest.getFirstName() != null) {
             user.setFirstName(updateRequest.getFirstName());
@@ -146,10 +182,24 @@ public class UserServiceImpl implements UserService {
         if (updateRequest.getSecondName() != null) {
             user.setLastName(updateRequest.getSecondName());
         }
+        if (updateRequest.getFirstName() != null || updateRequest.getSecondName() != null) {
+            evictMemberLists(userId);
+        }
         if (updateRequest.getTags() != null) {
-            user.setTags(updateRequest.getTags());
+            // Copied, since saving the managed user replaces its tag collection element by element
+            user.setTags(new ArrayList<>(updateRequest.getTags()));
         }
 
         return userRepository.save(user);
     }
+
+    // Cached member lists of the user's clubs show their name; dropped after commit
+    private void evictMemberLists(Long userId) {
+        String[] tags = userRepository.findJoinedClubIdsByUserId(userId).stream()
+                .map(ResponseCache::clubMembers)
+                .toArray(String[]::new);
+        if (tags.length > 0) {
+            responseCache.invalidate(tags);
+        }
+    }
 }
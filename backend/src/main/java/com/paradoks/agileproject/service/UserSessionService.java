@@ -2,6 +2,7 @@ package com.paradoks.agileproject.service;
 
 import com.paradoks.agileproject.model.User;
 import com.paradoks.agileproject.model.UserSession;
+import com.paradoks.agileproject.model.SessionPrincipal;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -10,9 +11,11 @@ import java.util.Optional;
 public interface UserSessionService {
     UserSession createSession(User user, int hoursValid);
     boolean isSessionValid(String token);
+    Optional<SessionPrincipal> resolvePrincipal(String token);
     void invalidateSession(String token);
+    int invalidateAllSessions(Long userId);
     Optional<UserSession> getActiveSession(User user);
 
     Optional<UserSession> getActiveSessionByEmail(String email);
-    Optional<UserSession> getCurrentSession();
+    Optional<SessionPrincipal> getCurrentPrincipal();
 }
@@ -1,13 +1,18 @@
 package com.paradoks.agileproject.service;
 
+import com.paradoks.agileproject.cache.SessionTokenCache;
 import com.paradoks.agileproject.model.User;
 import com.paradoks.agileproject.model.UserSession;
+import com.paradoks.agileproject.model.PrincipalKind;
+import com.paradoks.agileproject.model.SessionPrincipal;
 import com.paradoks.agileproject.repository.UserRepository;
 import com.paradoks.agileproject.repository.UserSessionRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import com.paradoks.agileproject.utils.SessionTokenSigner;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
@@ -16,69 +21,82 @@ public class UserSessionServiceImpl implements UserSessionService {
 
     private final UserSessionRepository userSessionRepository;
     private final UserRepository userRepository;
+    private final SessionTokenCache<SessionPrincipal> sessionCache;
+    private final SessionTokenSigner tokenSigner;
+    private final SessionRevocationList revocationList;
 
-    public UserSessionServiceImpl(UserSessionRepository userSessionRepository, UserRepository userRepository) {
+    public UserSessionServiceImpl(UserSessionRepository userSessionRepository, UserRepository userRepository, MeterRegistry meterRegistry,
+                                  SessionTokenSigner tokenSigner, SessionRevocationList revocationList,
+                                  @Value("${session.cache.ttl-seconds}") long cacheTtlSeconds,
+                                  @Value("${session.cache.max-size}") long cacheMaxSize) {
         this.userSessionRepository = userSessionRepository;
         this.userRepository = userRepository;
+        this.sessionCache = new SessionTokenCache<>("userSessions", Duration.ofSeconds(cacheTtlSeconds), cacheMaxSize,
+                SessionPrincipal::getExpiresAt, meterRegistry);
+        this.tokenSigner = tokenSigner;
+        this.revocationList = revocationList;
     }
 
     @Override
     public UserSession createSession(User user, int hoursValid) {
         UserSession session = UserSession.createSession(user, hoursValid);
+        if (tokenSigner.isEnabled()) {
+            session.setToken(tokenSigner.sign(PrincipalKind.USER, user.getId(), session.getExpiresAt()));
+        }
         return userSessionRepository.save(session);
     }
 
     @Override
     public boolean isSessionValid(String token) {
-        Optional<UserSession> sessionOpt = userSessionRepository.findByTokenAndActiveTrue(token);
-        if (sessionOpt.isEmpty()) return false;
+        return resolvePrincipal(token).isPresent();
+    }
 
-        UserSession session = sessionOpt.get();
-        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
-            session.setActive(false);
-            userSessionRepository.save(session);
-            return false;
+    @Override
+    public Optional<SessionPrincipal> resolvePrincipal(String token) {
+        // The cache only hears about logouts made on this instance; the others arrive with the revocation list
+        if (revocationList.isRevoked(token)) {
+            sessionCache.invalidate(token);
+            return Optional.empty();
         }
-        return true;
+        return sessionCache.get(token, this::findValidPrincipal);
+    }
+
+    // Expired rows are left for ExpiredDataSweeper, so this lookup never writes
+    private Optional<SessionPrincipal> findValidPrincipal(String token) {
+        return userSessionRepository.findPrincipalByToken(token)
+                .filter(principal -> principal.getExpiresAt().isAfter(LocalDateTime.now()));
     }
 
     @Override
     public void invalidateSession(String token) {
+        sessionCache.invalidate(token);
+        revocationList.revoke(token);
         userSessionRepository.findByTokenAndActiveTrue(token).ifPresent(session -> {
             session.setActive(false);
             userSessionRepository.save(session);
         });
     }
 
+    @Override
+    public int invalidateAllSessions(Long userId) {
+        int invalidated = userSessionRepository.deactivateAllByUserId(userId);
+        sessionCache.invalidateIf(principal -> principal.getPrincipalId().equals(userId));
+        revocationList.refresh();
+        return invalidated;
+    }
+
     @Override
     public Optional<UserSession> getActiveSession(User user) {
-        return userSessionRepository.findAll().stream()
-                .filter(s -> s.getUser().equals(user) && s.isActive())
-                .findFirst();
+        return userSessionRepository.findActiveByUserId(user.getId(), LocalDateTime.now());
     }
 
     @Override
     public Optional<UserSession> getActiveSessionByEmail(String email) {
-        Optional<User> userOpt = userRepository.findByEmail(email);
-        if (userOpt.isEmpty()) return Optional.empty();
-
-        User user = userOpt.get();
-        return userSessionRepository.findAll().stream()
-                .filter(s -> s.getUser().equals(user) && s.isActive())
-                .findFirst();
+        return userRepository.findByEmail(email).flatMap(this::getActiveSession);
     }
 
     @Override
-    public Optional<UserSession> getCurrentSession() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return Optional.empty();
-        }
-        // Assuming the principal is the token string as handled in AuthMiddleware
-        Object principal = authentication.getPrincipal();
-        if (!(principal instanceof String token)) {
-            return Optional.empty();
-        }
-        return userSessionRepository.findByTokenAndActiveTrue(token);
+    public Optional<SessionPrincipal> getCurrentPrincipal() {
+        return SessionPrincipal.current(PrincipalKind.USER);
     }
 }
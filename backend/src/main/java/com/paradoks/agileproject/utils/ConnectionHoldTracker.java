@@ -0,0 +1,100 @@
+package com.paradoks.agileproject.utils;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adds up how long the current thread keeps JDBC connections checked out of the pool,
+ * between {@link #start()} and {@link #stop()}. Threads without an open scope are not tracked.
+ */
+public final class ConnectionHoldTracker {
+
+    private static final ThreadLocal<Hold> CURRENT = new ThreadLocal<>();
+
+    private ConnectionHoldTracker() {
+    }
+
+    public static Hold start() {
+        Hold hold = new Hold();
+        CURRENT.set(hold);
+        return hold;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /** Total checkout time and number of checkouts within one scope. */
+    public static final class Hold {
+        private final AtomicLong nanos = new AtomicLong();
+        private final AtomicInteger acquisitions = new AtomicInteger();
+
+        public long getNanos() {
+            return nanos.get();
+        }
+
+        public int getAcquisitions() {
+            return acquisitions.get();
+        }
+    }
+
+    /** Times every connection handed out while a scope is open, until it is closed back into the pool. */
+    public static class TrackingDataSource extends DelegatingDataSource {
+
+        public TrackingDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return track(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return track(super.getConnection(username, password));
+        }
+
+        private static Connection track(Connection connection) {
+            Hold hold = CURRENT.get();
+            if (hold == null) {
+                return connection;
+            }
+            hold.acquisitions.incrementAndGet();
+            long acquiredAt = System.nanoTime();
+            AtomicBoolean closed = new AtomicBoolean();
+
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "equals" -> {
+                                return proxy == args[0];
+                            }
+                            case "hashCode" -> {
+                                return System.identityHashCode(proxy);
+                            }
+                            case "close" -> {
+                                if (closed.compareAndSet(false, true)) {
+                                    hold.nanos.addAndGet(System.nanoTime() - acquiredAt);
+                                }
+                            }
+                            default -> {
+                            }
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.paradoks.agileproject.utils;
+
+import com.paradoks.agileproject.dto.request.PageableRequestParams;
+import com.paradoks.agileproject.exception.BadRequestException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+/**
+ * Opaque cursors for keyset pagination. A cursor holds the sort key values of the last row of a page
+ * (the whitelisted sort key plus id), so the next page is a seek on an index instead of an OFFSET scan.
+ */
+public final class KeysetCursor {
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Sort for a keyset query: {@code sortBy} ascending with id as tie-breaker. Only whitelisted keys are allowed.
+     */
+    public static Sort sort(PageableRequestParams params, Map<String, Class<?>> allowedKeys) {
+        if (!allowedKeys.containsKey(params.getSortBy())) {
+            throw new BadRequestException("Cursor pagination supports sortBy: " + String.join(", ", allowedKeys.keySet()));
+        }
+        return "id".equals(params.getSortBy()) ? Sort.by("id") : Sort.by(params.getSortBy()).and(Sort.by("id"));
+    }
+
+    public static ScrollPosition position(PageableRequestParams params, Map<String, Class<?>> allowedKeys) {
+        if (params.getCursor().isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(params.getCursor()), StandardCharsets.UTF_8);
+            for (String pair : decoded.split("&")) {
+                int separator = pair.indexOf('=');
+                String name = pair.substring(0, separator);
+                String value = URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+                keys.put(name, parse(value, allowedKeys.get(name)));
+            }
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+
+        // A cursor only continues the ordering it was issued for
+        if (!keys.keySet().equals(sort(params, allowedKeys).stream().map(Sort.Order::getProperty).collect(Collectors.toSet()))) {
+            throw new BadRequestException("Cursor does not match sortBy");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    public static String encode(ScrollPosition position) {
+        StringJoiner joiner = new StringJoiner("&");
+        ((KeysetScrollPosition) position).getKeys().forEach((name, value) ->
+                joiner.add(name + "=" + URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8)));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object parse(String value, Class<?> type) {
+        if (type == Long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        if (type == String.class) {
+            return value;
+        }
+        throw new IllegalArgumentException("Unknown cursor key");
+    }
+}
@@ -1,16 +1,82 @@
 package com.paradoks.agileproject.utils;
 
+import com.paradoks.agileproject.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt hashing on a small dedicated pool, so a burst of logins cannot occupy every request thread.
+ * When the pool and its queue are full, callers are turned away with a 429 instead of waiting.
+ */
 @Component
 public class PasswordUtils {
 
+    private final int cost;
+    private final ThreadPoolExecutor executor;
+
+    public PasswordUtils(@Value("${password.bcrypt.cost}") int cost,
+                         @Value("${password.bcrypt.threads}") int threads,
+                         @Value("${password.bcrypt.queue-capacity}") int queueCapacity,
+                         MeterRegistry meterRegistry) {
+        this.cost = cost;
+        BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue,
+                new CustomizableThreadFactory("bcrypt-"), new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "bcrypt");
+    }
+
     public String hashPassword(String password) {
-        return BCrypt.hashpw(password, BCrypt.gensalt());
+        return run(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
     }
 
     public Boolean checkPassword(String passwd, String hash) {
-        return BCrypt.checkpw(passwd, hash);
+        return run(() -> BCrypt.checkpw(passwd, hash));
+    }
+
+    /**
+     * True if the hash was made with a different cost than the configured one and should be replaced.
+     */
+    public boolean needsRehash(String hash) {
+        // BCrypt hashes look like $2a$10$..., with the cost in characters 4-5
+        try {
+            return Integer.parseInt(hash.substring(4, 6)) != cost;
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    private <T> T run(Callable<T> task) {
+        try {
+            return executor.submit(task).get();
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Too many login attempts in progress, please try again shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
     }
 }
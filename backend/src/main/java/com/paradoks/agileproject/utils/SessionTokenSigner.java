@@ -0,0 +1,116 @@
+package com.paradoks.agileproject.utils;
+
+import com.paradoks.agileproject.model.PrincipalKind;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and verifies self-contained session tokens when {@code session.token-mode=signed}.
+ * A token has the form {@code kind.principalId.expiresAtEpochSecond.nonce.signature} where the
+ * signature is an HMAC-SHA256 over everything before it, so it can be checked without any I/O.
+ */
+@Component
+public class SessionTokenSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final boolean enabled;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+    private final SecureRandom random = new SecureRandom();
+
+    public SessionTokenSigner(@Value("${session.token-mode}") String tokenMode,
+                              @Value("${session.signing-secret}") String signingSecret) {
+        this.enabled = "signed".equalsIgnoreCase(tokenMode);
+        if (enabled && signingSecret.length() < 32) {
+            throw new IllegalStateException("session.signing-secret must be at least 32 characters when session.token-mode=signed");
+        }
+        this.key = enabled ? new SecretKeySpec(signingSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM) : null;
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String sign(PrincipalKind kind, Long principalId, LocalDateTime expiresAt) {
+        byte[] nonce = new byte[16];
+        random.nextBytes(nonce);
+
+        String payload = kind.name().toLowerCase() + "." + principalId + "."
+                + expiresAt.atZone(ZoneId.systemDefault()).toEpochSecond() + "." + ENCODER.encodeToString(nonce);
+        return payload + "." + ENCODER.encodeToString(signature(payload));
+    }
+
+    /**
+     * Returns the claims of the token if its signature is valid. Expiry is not checked here.
+     */
+    public Optional<SignedSessionToken> verify(String token) {
+        int lastDot = token.lastIndexOf('.');
+        if (lastDot < 0) {
+            return Optional.empty();
+        }
+
+        String payload = token.substring(0, lastDot);
+        byte[] expected = signature(payload);
+        byte[] actual;
+        try {
+            actual = Base64.getUrlDecoder().decode(token.substring(lastDot + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return Optional.empty();
+        }
+
+        String[] parts = payload.split("\\.");
+        if (parts.length != 4) {
+            return Optional.empty();
+        }
+        try {
+            PrincipalKind kind = PrincipalKind.valueOf(parts[0].toUpperCase());
+            Long principalId = Long.parseLong(parts[1]);
+            LocalDateTime expiresAt = LocalDateTime.ofInstant(Instant.ofEpochSecond(Long.parseLong(parts[2])), ZoneId.systemDefault());
+            return Optional.of(new SignedSessionToken(kind, principalId, expiresAt));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] signature(String payload) {
+        return mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        if (key == null) {
+            throw new IllegalStateException("Signed session tokens are disabled");
+        }
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not initialise " + ALGORITHM, e);
+        }
+    }
+
+    public record SignedSessionToken(PrincipalKind kind, Long principalId, LocalDateTime expiresAt) {
+
+        public boolean isExpired() {
+            return !expiresAt.isAfter(LocalDateTime.now());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+-- Ids come from pooled sequences instead of IDENTITY columns; V3 moves each sequence past the ids already taken.
+-- The IDENTITY defaults stay in place and go unused, since Hibernate always supplies the id
+create sequence if not exists users_seq start with 1 increment by 50;
+create sequence if not exists clubs_seq start with 1 increment by 50;
+create sequence if not exists posts_seq start with 1 increment by 50;
+create sequence if not exists user_sessions_seq start with 1 increment by 50;
+create sequence if not exists club_sessions_seq start with 1 increment by 50;
+create sequence if not exists verification_code_seq start with 1 increment by 50;
+create sequence if not exists announcement_seq start with 1 increment by 50;
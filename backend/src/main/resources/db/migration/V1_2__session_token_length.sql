@@ -0,0 +1,3 @@
+-- Signed session tokens (session.token-mode=signed) are longer than the 36-character random ones
+alter table user_sessions alter column token set data type varchar(128);
+alter table club_sessions alter column token set data type varchar(128);
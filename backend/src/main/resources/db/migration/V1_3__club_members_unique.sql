@@ -0,0 +1,8 @@
+-- Membership toggles insert and delete single (club_id, user_id) rows and rely on them being unique.
+-- Duplicates the old list mapping could leave behind are collapsed first
+create table club_members_distinct as select distinct club_id, user_id from club_members;
+delete from club_members;
+insert into club_members (club_id, user_id) select club_id, user_id from club_members_distinct;
+drop table club_members_distinct;
+
+alter table club_members add constraint uk_club_members_club_user unique (club_id, user_id);
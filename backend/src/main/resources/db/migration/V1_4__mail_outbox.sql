@@ -0,0 +1,15 @@
+-- Mails queued in the transaction that produces them and sent by MailDispatcher
+create sequence if not exists mail_outbox_seq start with 1 increment by 50;
+
+create table mail_outbox (
+    id bigint not null,
+    recipient varchar(255) not null,
+    subject varchar(255) not null,
+    body text not null,
+    created_at timestamp(6) not null,
+    next_attempt_at timestamp(6) not null,
+    attempts integer not null,
+    failed boolean not null,
+    last_error varchar(1000),
+    primary key (id)
+);
@@ -0,0 +1,97 @@
+-- Schema as Hibernate's ddl-auto produced it before migrations took over: IDENTITY ids, 36-character session
+-- tokens, no extra indexes. Databases created that way are baselined at this version
+-- (spring.flyway.baseline-on-migrate), so this script only runs on empty databases and everything added
+-- since comes from the migrations after it.
+
+create table users (
+    id bigint generated by default as identity,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    email varchar(255) not null unique,
+    password varchar(255) not null,
+    date_created timestamp(6) not null,
+    primary key (id)
+);
+
+create table user_tags (
+    user_id bigint not null,
+    tag varchar(255),
+    constraint fk_user_tags_user foreign key (user_id) references users (id)
+);
+
+create table clubs (
+    id bigint generated by default as identity,
+    name varchar(100) not null unique,
+    description text,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    profile_picture varchar(255),
+    banner varchar(255),
+    primary key (id)
+);
+
+create table club_tags (
+    club_id bigint not null,
+    tag varchar(255),
+    constraint fk_club_tags_club foreign key (club_id) references clubs (id)
+);
+
+create table club_members (
+    club_id bigint not null,
+    user_id bigint not null,
+    constraint fk_club_members_club foreign key (club_id) references clubs (id),
+    constraint fk_club_members_user foreign key (user_id) references users (id)
+);
+
+create table posts (
+    id bigint generated by default as identity,
+    title varchar(255) not null,
+    content text not null,
+    club_id bigint not null,
+    creation_date timestamp(6),
+    primary key (id),
+    constraint fk_posts_club foreign key (club_id) references clubs (id)
+);
+
+create table user_sessions (
+    id bigint generated by default as identity,
+    token varchar(36) not null unique,
+    user_id bigint not null,
+    created_at timestamp(6) not null,
+    expires_at timestamp(6) not null,
+    active boolean not null,
+    primary key (id),
+    constraint fk_user_sessions_user foreign key (user_id) references users (id)
+);
+
+create table club_sessions (
+    id bigint generated by default as identity,
+    token varchar(36) not null unique,
+    club_id bigint not null,
+    created_at timestamp(6) not null,
+    expires_at timestamp(6) not null,
+    active boolean not null,
+    primary key (id),
+    constraint fk_club_sessions_club foreign key (club_id) references clubs (id)
+);
+
+create table verification_code (
+    id bigint generated by default as identity,
+    code varchar(255) not null,
+    expiration_time timestamp(6) not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    primary key (id)
+);
+
+create table announcement (
+    id integer generated by default as identity,
+    title varchar(255),
+    content varchar(255),
+    severity varchar(255) check (severity in ('INFO', 'WARNING', 'CRITICAL')),
+    creation_date timestamp(6) with time zone,
+    end_date timestamp(6) with time zone,
+    primary key (id)
+);
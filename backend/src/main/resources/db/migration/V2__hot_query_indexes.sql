@@ -0,0 +1,21 @@
+-- Indexes from the entity mappings plus the ones the hot queries were missing. "if not exists" covers databases
+-- where ddl-auto=update already created some of them
+create index if not exists idx_club_members_user on club_members (user_id);
+create index if not exists idx_posts_club_id on posts (club_id, id);
+create index if not exists idx_posts_club_creation_date on posts (club_id, creation_date, id);
+create index if not exists idx_user_sessions_user_active_expires on user_sessions (user_id, active, expires_at);
+create index if not exists idx_user_sessions_expires on user_sessions (expires_at);
+create index if not exists idx_club_sessions_club_active_expires on club_sessions (club_id, active, expires_at);
+create index if not exists idx_club_sessions_expires on club_sessions (expires_at);
+create index if not exists idx_verification_code_expiration on verification_code (expiration_time);
+create index if not exists idx_mail_outbox_due on mail_outbox (failed, next_attempt_at);
+
+-- Club login and registration look clubs up by email
+create index if not exists idx_clubs_email on clubs (email);
+-- Tags are loaded per club / per user, and foreign keys are not indexed implicitly
+create index if not exists idx_club_tags_club on club_tags (club_id);
+create index if not exists idx_user_tags_user on user_tags (user_id);
+-- Pending registrations are found and replaced by email
+create index if not exists idx_verification_code_email on verification_code (email, code);
+-- Active announcements: end_date >= now
+create index if not exists idx_announcement_end_date on announcement (end_date);
@@ -0,0 +1,19 @@
+-- Club image uploads processed in the background by ImageProcessor
+create sequence image_jobs_seq start with 1 increment by 50;
+
+create table image_jobs (
+    id bigint not null,
+    club_id bigint not null,
+    kind varchar(20) not null,
+    status varchar(20) not null,
+    raw_path varchar(255) not null,
+    result_url varchar(255),
+    error varchar(1000),
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    expires_at timestamp(6) not null,
+    primary key (id),
+    constraint fk_image_jobs_club foreign key (club_id) references clubs (id) on delete cascade
+);
+-- Finished jobs are swept by expires_at
+create index idx_image_jobs_expires on image_jobs (expires_at);
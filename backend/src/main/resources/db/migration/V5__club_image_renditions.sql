@@ -0,0 +1,3 @@
+-- Every size and format generated for a club's profile picture and banner, as a JSON array
+alter table clubs add column profile_picture_renditions text;
+alter table clubs add column banner_renditions text;
@@ -0,0 +1,9 @@
+-- Reference counts for the content-addressed files under the upload directory
+create table stored_images (
+    name varchar(100) not null,
+    ref_count integer not null,
+    updated_at timestamp(6) not null,
+    primary key (name)
+);
+-- Unreferenced files are collected once their grace period is over
+create index idx_stored_images_unreferenced on stored_images (ref_count, updated_at);
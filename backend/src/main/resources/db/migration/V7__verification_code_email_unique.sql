@@ -0,0 +1,5 @@
+-- One pending registration per email: putIfAbsent relies on the constraint to turn away concurrent registrations.
+-- Earlier racing registrations may have left several rows for an email; the newest one is kept
+delete from verification_code where id not in (select max(id) from verification_code group by email);
+
+alter table verification_code add constraint uk_verification_code_email unique (email);
@@ -0,0 +1,2 @@
+-- Unfinished jobs are looked up by status and age when abandoned ones are failed
+create index idx_image_jobs_status_updated on image_jobs (status, updated_at);
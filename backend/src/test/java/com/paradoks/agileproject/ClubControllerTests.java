@@ -246,4 +246,25 @@ public class ClubControllerTests {
                 .andExpect(jsonPath("$.size").value(30))
                 .andExpect(jsonPath("$.totalElements").value(3));
     }
+
+    @Test
+    @Transactional
+    public void testListPostsOfUnknownClubIsNotFound() throws Exception {
+        registerAndLogin("Quiet Club", "quietclub@example.com", "password");
+        Long clubId = clubRepository.findByEmail("quietclub@example.com").orElseThrow().getId();
+
+        // A club without posts gets an empty page, in either pagination mode
+        mockMvc.perform(get("/api/v1/clubs/" + clubId + "/posts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isEmpty());
+        mockMvc.perform(get("/api/v1/clubs/" + clubId + "/posts?cursor="))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isEmpty());
+
+        // A club that does not exist is a 404, as it was before the summary cache
+        mockMvc.perform(get("/api/v1/clubs/" + (clubId + 1000) + "/posts"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/clubs/" + (clubId + 1000) + "/posts?cursor="))
+                .andExpect(status().isNotFound());
+    }
 }
@@ -6,21 +6,34 @@ import com.paradoks.agileproject.dto.request.RegisterRequest;
 import com.paradoks.agileproject.dto.request.UserLoginRequest;
 import com.paradoks.agileproject.dto.request.UserRegisterRequest;
 import com.paradoks.agileproject.model.ClubModel;
-import com.paradoks.agileproject.model.VerificationCode;
+import com.paradoks.agileproject.model.PendingRegistration;
+import com.paradoks.agileproject.model.User;
 import com.paradoks.agileproject.repository.ClubRepository;
-import com.paradoks.agileproject.repository.VerificationCodeRepository;
+import com.paradoks.agileproject.repository.UserRepository;
+import com.paradoks.agileproject.service.ClubService;
+import com.paradoks.agileproject.service.PendingRegistrationStore;
 import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestConstructor;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -35,13 +48,20 @@ public class ClubMembershipTests {
     private final MockMvc mockMvc;
     private final ObjectMapper objectMapper;
     private final ClubRepository clubRepository;
-    private final VerificationCodeRepository verificationCodeRepository;
+    private final PendingRegistrationStore pendingRegistrationStore;
+    private final UserRepository userRepository;
+    private final ClubService clubService;
+    private final JdbcTemplate jdbcTemplate;
 
-    public ClubMembershipTests(MockMvc mockMvc, ObjectMapper objectMapper, ClubRepository clubRepository, VerificationCodeRepository verificationCodeRepository) {
+    public ClubMembershipTests(MockMvc mockMvc, ObjectMapper objectMapper, ClubRepository clubRepository, PendingRegistrationStore pendingRegistrationStore,
+                               UserRepository userRepository, ClubService clubService, JdbcTemplate jdbcTemplate) {
         this.mockMvc = mockMvc;
         this.objectMapper = objectMapper;
         this.clubRepository = clubRepository;
-        this.verificationCodeRepository = verificationCodeRepository;
+        this.pendingRegistrationStore = pendingRegistrationStore;
+        this.userRepository = userRepository;
+        this.clubService = clubService;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     private Cookie registerAndLoginUser(String email, String password) throws Exception {
@@ -58,17 +78,14 @@ public class ClubMembershipTests {
                 .andExpect(status().isOk());
 
         // 2. Get Verification Code
-        VerificationCode verificationCode = verificationCodeRepository.findAll().stream()
-                .filter(vc -> vc.getEmail().equals(email))
-                .findFirst()
-                .orElse(null);
+        PendingRegistration verificationCode = pendingRegistrationStore.find(email).orElse(null);
 
-        assertNotNull(verificationCode, "Verification code should exist in DB");
+        assertNotNull(verificationCode, "Verification code should be pending");
 
         // 3. Verify User
         mockMvc.perform(post("/api/v1/auth/user/verify")
                         .param("email", email)
-                        .param("code", verificationCode.getCode()))
+                        .param("code", verificationCode.code()))
                 .andExpect(status().isOk());
 
         // 4. Login User
@@ -95,42 +112,107 @@ public class ClubMembershipTests {
                 .andExpect(status().isOk());
     }
 
+    // Not @Transactional: login commits its own transaction after hashing, so the data is cleaned up instead
     @Test
-    @Transactional
     public void testJoinAndLeaveClub() throws Exception {
-        // Register Club
         String clubEmail = "membershipclub@example.com";
-        registerClub("Membership Club", clubEmail, "password");
-        ClubModel club = clubRepository.findByEmail(clubEmail).orElseThrow();
-
-        // Register and Login User
         String userEmail = "member@example.com";
-        Cookie userSession = registerAndLoginUser(userEmail, "Password123!");
-
-        // 1. Join Club
-        mockMvc.perform(post("/api/v1/clubs/" + club.getId() + "/membership")
-                        .cookie(userSession))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.message").value("Successfully joined the club"));
-
-        // 2. Verify Membership in List
-        mockMvc.perform(get("/api/v1/clubs/" + club.getId() + "/members")
-                        .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.content[0].email").value(userEmail));
+        try {
+            // Register Club
+            registerClub("Membership Club", clubEmail, "password");
+            ClubModel club = clubRepository.findByEmail(clubEmail).orElseThrow();
+
+            // Register and Login User
+            Cookie userSession = registerAndLoginUser(userEmail, "Password123!");
+
+            // 1. Join Club
+            mockMvc.perform(post("/api/v1/clubs/" + club.getId() + "/membership")
+                            .cookie(userSession))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.success").value(true))
+                    .andExpect(jsonPath("$.message").value("Successfully joined the club"));
+
+            // 2. Verify Membership in List
+            mockMvc.perform(get("/api/v1/clubs/" + club.getId() + "/members")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].email").value(userEmail));
+
+            // 3. Leave Club
+            mockMvc.perform(post("/api/v1/clubs/" + club.getId() + "/membership")
+                            .cookie(userSession))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.success").value(true))
+                    .andExpect(jsonPath("$.message").value("Successfully left the club"));
+
+            // 4. Verify Membership Removed
+            mockMvc.perform(get("/api/v1/clubs/" + club.getId() + "/members")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content").isEmpty());
+        } finally {
+            jdbcTemplate.update("DELETE FROM club_members WHERE club_id IN (SELECT id FROM clubs WHERE email = ?)", clubEmail);
+            jdbcTemplate.update("DELETE FROM club_sessions WHERE club_id IN (SELECT id FROM clubs WHERE email = ?)", clubEmail);
+            jdbcTemplate.update("DELETE FROM clubs WHERE email = ?", clubEmail);
+            jdbcTemplate.update("DELETE FROM user_sessions WHERE user_id IN (SELECT id FROM users WHERE email = ?)", userEmail);
+            jdbcTemplate.update("DELETE FROM users WHERE email = ?", userEmail);
+            jdbcTemplate.update("DELETE FROM mail_outbox WHERE recipient = ?", userEmail);
+        }
+    }
 
-        // 3. Leave Club
-        mockMvc.perform(post("/api/v1/clubs/" + club.getId() + "/membership")
-                        .cookie(userSession))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.message").value("Successfully left the club"));
+    @Test
+    public void testConcurrentTogglesAreNeitherDuplicatedNorLost() throws Exception {
+        ClubModel club = new ClubModel();
+        club.setName("Double Click Club");
+        club.setEmail("doubleclick@example.com");
+        club.setPassword("x");
+        club = clubRepository.save(club);
+
+        User user = new User();
+        user.setFirstName("Double");
+        user.setLastName("Click");
+        user.setEmail("doubleclick-user@example.com");
+        user.setPassword("x");
+        user = userRepository.save(user);
+
+        Long clubId = club.getId();
+        Long userId = user.getId();
+        int toggles = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(toggles);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < toggles; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return clubService.toggleMembership(clubId, userId);
+                }));
+            }
+            start.countDown();
+
+            int joined = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    joined++;
+                }
+            }
+
+            // Every toggle took effect, alternating join and leave
+            assertEquals(toggles / 2, joined);
+            assertEquals(0, memberRows(clubId, userId));
+
+            assertTrue(clubService.toggleMembership(clubId, userId));
+            assertEquals(1, memberRows(clubId, userId));
+        } finally {
+            executor.shutdownNow();
+            jdbcTemplate.update("DELETE FROM club_members WHERE club_id = ?", clubId);
+            clubRepository.deleteById(clubId);
+            userRepository.deleteById(userId);
+        }
+    }
 
-        // 4. Verify Membership Removed
-        mockMvc.perform(get("/api/v1/clubs/" + club.getId() + "/members")
-                        .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.content").isEmpty());
+    private int memberRows(Long clubId, Long userId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM club_members WHERE club_id = ? AND user_id = ?",
+                Integer.class, clubId, userId);
     }
 }
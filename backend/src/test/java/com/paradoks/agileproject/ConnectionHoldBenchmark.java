@@ -0,0 +1,90 @@
+package com.paradoks.agileproject;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Average db.connection.hold per endpoint. Run with {@code mvn test -Pbenchmark}, and once more with
+ * {@code -Dspring.jpa.open-in-view=true} to compare against holding the session through serialization.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class ConnectionHoldBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionHoldBenchmark.class);
+
+    private static final int POSTS = 2_000;
+    private static final int REQUESTS = 300;
+
+    private final MockMvc mockMvc;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean openInView;
+
+    public ConnectionHoldBenchmark(MockMvc mockMvc, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                   @Value("${spring.jpa.open-in-view}") boolean openInView) {
+        this.mockMvc = mockMvc;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.openInView = openInView;
+    }
+
+    private void measure(String url, String pattern) throws Exception {
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(get(url)).andExpect(status().isOk()); // warm up
+        }
+        Timer timer = meterRegistry.get("db.connection.hold").tag("uri", pattern).timer();
+        long countBefore = timer.count();
+        double totalBefore = timer.totalTime(TimeUnit.MICROSECONDS);
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(get(url)).andExpect(status().isOk());
+        }
+
+        long count = timer.count() - countBefore;
+        assertTrue(count > 0, pattern + " recorded no connection hold");
+        log.info("open-in-view={} {}: connection held {} us per request",
+                openInView, pattern, String.format("%.1f", (timer.totalTime(TimeUnit.MICROSECONDS) - totalBefore) / count));
+    }
+
+    // Not @Transactional: the test transaction would hold one connection for the whole run
+    @Test
+    public void benchmarkConnectionHoldPerEndpoint() throws Exception {
+        try {
+            jdbcTemplate.update("INSERT INTO clubs (id, name, email, password) VALUES (NEXT VALUE FOR clubs_seq, 'bench-hold-club', 'bench-hold@example.com', 'x')");
+            Long clubId = jdbcTemplate.queryForObject("SELECT id FROM clubs WHERE name = 'bench-hold-club'", Long.class);
+            jdbcTemplate.update("INSERT INTO club_tags (club_id, tag) VALUES (?, 'chess'), (?, 'games')", clubId, clubId);
+            jdbcTemplate.update("""
+                    INSERT INTO posts (id, title, content, club_id, creation_date)
+                    SELECT NEXT VALUE FOR posts_seq, 'bench-hold-post-' || X, REPEAT('content ', 50), ?, NOW() FROM SYSTEM_RANGE(1, ?)
+                    """, clubId, POSTS);
+
+            measure("/api/v1/clubs/" + clubId, "/api/v1/clubs/{id}");
+            measure("/api/v1/clubs/" + clubId + "/posts?size=50&cursor=", "/api/v1/clubs/{id}/posts");
+            measure("/api/v1/clubs?size=50&count=none", "/api/v1/clubs");
+        } finally {
+            jdbcTemplate.update("DELETE FROM posts WHERE title LIKE 'bench-hold-post-%'");
+            jdbcTemplate.update("DELETE FROM club_tags WHERE club_id IN (SELECT id FROM clubs WHERE name = 'bench-hold-club')");
+            jdbcTemplate.update("DELETE FROM clubs WHERE name = 'bench-hold-club'");
+        }
+    }
+}
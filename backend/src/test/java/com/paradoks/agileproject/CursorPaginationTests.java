@@ -0,0 +1,197 @@
+package com.paradoks.agileproject;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.Post;
+import com.paradoks.agileproject.model.User;
+import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.repository.PostRepository;
+import com.paradoks.agileproject.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class CursorPaginationTests {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final ClubRepository clubRepository;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final Statistics statistics;
+
+    public CursorPaginationTests(MockMvc mockMvc, ObjectMapper objectMapper, ClubRepository clubRepository,
+                                 PostRepository postRepository, UserRepository userRepository,
+                                 EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.clubRepository = clubRepository;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private ClubModel createClub(String name) {
+        ClubModel club = new ClubModel();
+        club.setName(name);
+        club.setEmail(name.replace(' ', '-') + "@example.com");
+        club.setPassword("x");
+        return clubRepository.save(club);
+    }
+
+    private JsonNode getJson(String url) throws Exception {
+        String body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    /** Follows nextCursor to the end and returns the given field of every row. */
+    private List<String> scrollAll(String url, String field) throws Exception {
+        List<String> values = new ArrayList<>();
+        String cursor = "";
+        while (true) {
+            JsonNode page = getJson(url + (url.contains("?") ? "&" : "?") + "size=3&cursor=" + cursor);
+            assertFalse(page.has("totalElements"));
+            page.get("content").forEach(row -> values.add(row.get(field).asText()));
+            if (page.get("last").asBoolean()) {
+                assertFalse(page.has("nextCursor"));
+                return values;
+            }
+            cursor = page.get("nextCursor").asText();
+        }
+    }
+
+    @Test
+    @Transactional
+    public void testScrollClubsByNameVisitsEveryClubOnce() throws Exception {
+        for (String name : List.of("Cursor Delta", "Cursor Alpha", "Cursor Echo", "Cursor Bravo", "Cursor Golf", "Cursor Charlie", "Cursor Foxtrot")) {
+            createClub(name);
+        }
+
+        List<String> expected = clubRepository.findAll().stream()
+                .map(ClubModel::getName)
+                .sorted()
+                .toList();
+
+        assertEquals(expected, scrollAll("/api/v1/clubs?sortBy=name", "name"));
+    }
+
+    @Test
+    @Transactional
+    public void testScrollPostsAndMembers() throws Exception {
+        ClubModel club = createClub("Cursor Posts Club");
+        List<Long> postIds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Post post = new Post();
+            post.setTitle("Post " + i);
+            post.setContent("Content " + i);
+            post.setClub(club);
+            postIds.add(postRepository.save(post).getId());
+
+            User user = new User();
+            user.setFirstName("Member");
+            user.setLastName(String.valueOf(i));
+            user.setEmail("cursor-member-" + i + "@example.com");
+            user.setPassword("x");
+            userRepository.save(user);
+            clubRepository.insertMember(club.getId(), user.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<String> expectedPosts = postRepository.findAll().stream()
+                .filter(post -> postIds.contains(post.getId()))
+                .sorted(Comparator.comparing(Post::getCreationDate).thenComparing(Post::getId))
+                .map(post -> String.valueOf(post.getId()))
+                .toList();
+        assertEquals(expectedPosts, scrollAll("/api/v1/clubs/" + club.getId() + "/posts?sortBy=creationDate", "id"));
+
+        List<String> members = scrollAll("/api/v1/clubs/" + club.getId() + "/members", "email");
+        assertEquals(8, members.size());
+        assertTrue(members.contains("cursor-member-7@example.com"));
+    }
+
+    @Test
+    @Transactional
+    public void testDeepCursorPageCostsTheSameAsTheFirst() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            createClub("Cursor Deep " + i);
+        }
+        entityManager.flush();
+
+        entityManager.clear();
+        statistics.clear();
+        JsonNode first = getJson("/api/v1/clubs?size=3&cursor=");
+        long firstPageStatements = statistics.getPrepareStatementCount();
+
+        String cursor = first.get("nextCursor").asText();
+        for (int i = 0; i < 10; i++) {
+            cursor = getJson("/api/v1/clubs?size=3&cursor=" + cursor).get("nextCursor").asText();
+        }
+
+        entityManager.clear();
+        statistics.clear();
+        getJson("/api/v1/clubs?size=3&cursor=" + cursor);
+
+        // No COUNT query, and a seek rather than an offset
+        assertEquals(firstPageStatements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @Transactional
+    public void testOffsetPaginationIsUnchanged() throws Exception {
+        createClub("Cursor Offset Club");
+
+        mockMvc.perform(get("/api/v1/clubs?page=0&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page").value(0))
+                .andExpect(jsonPath("$.totalElements").isNumber())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    public void testInvalidCursorsAreRejected() throws Exception {
+        createClub("Cursor Invalid One");
+        createClub("Cursor Invalid Two");
+
+        mockMvc.perform(get("/api/v1/clubs?cursor=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        // Only whitelisted sort keys in cursor mode
+        mockMvc.perform(get("/api/v1/clubs?sortBy=password&cursor="))
+                .andExpect(status().isBadRequest());
+
+        // A cursor issued for one ordering cannot continue another
+        String idCursor = getJson("/api/v1/clubs?size=1&cursor=").get("nextCursor").asText();
+        mockMvc.perform(get("/api/v1/clubs?sortBy=name&cursor=" + idCursor))
+                .andExpect(status().isBadRequest());
+    }
+}
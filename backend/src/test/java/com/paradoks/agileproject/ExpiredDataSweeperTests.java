@@ -0,0 +1,91 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.service.ClubSessionService;
+import com.paradoks.agileproject.service.ExpiredDataSweeper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class ExpiredDataSweeperTests {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExpiredDataSweeper sweeper;
+    private final ClubSessionService clubSessionService;
+    private final MeterRegistry meterRegistry;
+
+    public ExpiredDataSweeperTests(JdbcTemplate jdbcTemplate, ExpiredDataSweeper sweeper, ClubSessionService clubSessionService, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sweeper = sweeper;
+        this.clubSessionService = clubSessionService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    private long createClub(String name) {
+        jdbcTemplate.update("INSERT INTO clubs (id, name, email, password) VALUES (NEXT VALUE FOR clubs_seq, ?, ?, 'x')", name, name + "@example.com");
+        return jdbcTemplate.queryForObject("SELECT id FROM clubs WHERE name = ?", Long.class, name);
+    }
+
+    private void insertClubSessions(long clubId, String prefix, int count, int hoursFromNow) {
+        jdbcTemplate.update("""
+                INSERT INTO club_sessions (id, club_id, token, created_at, expires_at, active)
+                SELECT NEXT VALUE FOR club_sessions_seq, ?, ? || X, NOW(), DATEADD('HOUR', ?, NOW()), TRUE FROM SYSTEM_RANGE(1, ?)
+                """, clubId, prefix, hoursFromNow, count);
+    }
+
+    private int count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+
+    private DistributionSummary sweptRows(String table) {
+        return meterRegistry.get("sweeper.rows.swept").tag("table", table).summary();
+    }
+
+    @Test
+    @Transactional
+    public void testSweepDeletesExpiredRowsInBatches() {
+        long clubId = createClub("Sweeper Club");
+        // More than one batch worth of expired sessions
+        insertClubSessions(clubId, "sweep-expired-", 2_500, -1);
+        insertClubSessions(clubId, "sweep-live-", 3, 1);
+        jdbcTemplate.update("""
+                INSERT INTO verification_code (id, code, expiration_time, first_name, last_name, email, password)
+                VALUES (NEXT VALUE FOR verification_code_seq, '123456', DATEADD('MINUTE', -1, NOW()), 'A', 'B', 'expired-code@example.com', 'x'),
+                       (NEXT VALUE FOR verification_code_seq, '654321', DATEADD('MINUTE', 15, NOW()), 'A', 'B', 'live-code@example.com', 'x')
+                """);
+
+        long runsBefore = sweptRows("club_sessions").count();
+        double sweptBefore = sweptRows("club_sessions").totalAmount();
+
+        sweeper.sweep();
+
+        assertEquals(0, count("SELECT COUNT(*) FROM club_sessions WHERE club_id = ? AND expires_at < NOW()", clubId));
+        assertEquals(3, count("SELECT COUNT(*) FROM club_sessions WHERE club_id = ?", clubId));
+        assertEquals(0, count("SELECT COUNT(*) FROM verification_code WHERE email = 'expired-code@example.com'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM verification_code WHERE email = 'live-code@example.com'"));
+
+        assertEquals(runsBefore + 1, sweptRows("club_sessions").count());
+        assertEquals(2_500, sweptRows("club_sessions").totalAmount() - sweptBefore);
+    }
+
+    @Test
+    @Transactional
+    public void testExpiredSessionIsRejectedWithoutWrites() {
+        long clubId = createClub("Expired Session Club");
+        insertClubSessions(clubId, "expired-no-write-", 1, -1);
+
+        assertFalse(clubSessionService.isSessionValid("expired-no-write-1"));
+        assertTrue(jdbcTemplate.queryForObject("SELECT active FROM club_sessions WHERE token = 'expired-no-write-1'", Boolean.class));
+    }
+}
@@ -0,0 +1,172 @@
+package com.paradoks.agileproject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paradoks.agileproject.dto.request.ClubUpdateRequest;
+import com.paradoks.agileproject.dto.request.CreatePostRequest;
+import com.paradoks.agileproject.dto.request.LoginRequest;
+import com.paradoks.agileproject.dto.request.RegisterRequest;
+import com.paradoks.agileproject.dto.request.UserLoginRequest;
+import com.paradoks.agileproject.dto.request.UserRegisterRequest;
+import com.paradoks.agileproject.dto.request.UserUpdateRequest;
+import com.paradoks.agileproject.service.PendingRegistrationStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * With open-session-in-view off, every endpoint that maps an entity must fetch what the response needs
+ * inside the service call. Not transactional on purpose: a test transaction would keep the session open.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class FetchPlanTests {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final PendingRegistrationStore pendingRegistrationStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public FetchPlanTests(MockMvc mockMvc, ObjectMapper objectMapper, PendingRegistrationStore pendingRegistrationStore,
+                          JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.pendingRegistrationStore = pendingRegistrationStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Test
+    public void testClubAndPostEndpointsMapOutsideTheSession() throws Exception {
+        String email = "fetchplan-club@example.com";
+        try {
+            RegisterRequest registerRequest = new RegisterRequest();
+            registerRequest.setClubName("Fetch Plan Club");
+            registerRequest.setEmail(email);
+            registerRequest.setPassword("password");
+            mockMvc.perform(post("/api/v1/auth/register")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(registerRequest)))
+                    .andExpect(status().isOk());
+
+            LoginRequest loginRequest = new LoginRequest();
+            loginRequest.setEmail(email);
+            loginRequest.setPassword("password");
+            Cookie session = mockMvc.perform(post("/api/v1/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(loginRequest)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getCookie("CLUB_SESSION");
+
+            ClubUpdateRequest updateRequest = new ClubUpdateRequest();
+            updateRequest.setTags(List.of("chess", "games"));
+            mockMvc.perform(put("/api/v1/clubs").cookie(session)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(updateRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.tags[1]").value("games"));
+
+            Long clubId = objectMapper.readTree(mockMvc.perform(get("/api/v1/auth/me").cookie(session))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.tags[0]").value("chess"))
+                    .andReturn().getResponse().getContentAsString()).get("id").asLong();
+
+            mockMvc.perform(get("/api/v1/clubs/" + clubId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.tags[1]").value("games"));
+
+            CreatePostRequest postRequest = new CreatePostRequest();
+            postRequest.setTitle("Fetch plan");
+            postRequest.setContent("Created");
+            Long postId = objectMapper.readTree(mockMvc.perform(post("/api/v1/posts").cookie(session)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(postRequest)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.club.tags[0]").value("chess"))
+                    .andReturn().getResponse().getContentAsString()).get("id").asLong();
+
+            postRequest.setContent("Updated");
+            mockMvc.perform(put("/api/v1/posts/" + postId).cookie(session)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(postRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content").value("Updated"))
+                    .andExpect(jsonPath("$.club.tags[1]").value("games"));
+
+            assertTrue(meterRegistry.get("db.connection.hold").tag("uri", "/api/v1/clubs/{id}").timer().count() > 0);
+            assertTrue(meterRegistry.get("db.connection.hold").tag("uri", "/api/v1/posts/{id}").tag("method", "PUT").timer().count() > 0);
+        } finally {
+            Long clubId = jdbcTemplate.queryForObject("SELECT id FROM clubs WHERE email = ?", Long.class, email);
+            jdbcTemplate.update("DELETE FROM posts WHERE club_id = ?", clubId);
+            jdbcTemplate.update("DELETE FROM club_sessions WHERE club_id = ?", clubId);
+            jdbcTemplate.update("DELETE FROM club_tags WHERE club_id = ?", clubId);
+            jdbcTemplate.update("DELETE FROM clubs WHERE id = ?", clubId);
+        }
+    }
+
+    @Test
+    public void testUserEndpointsMapOutsideTheSession() throws Exception {
+        String email = "fetchplan-user@example.com";
+        try {
+            UserRegisterRequest registerRequest = new UserRegisterRequest();
+            registerRequest.setFirstName("Fetch");
+            registerRequest.setSecondName("Plan");
+            registerRequest.setEmail(email);
+            registerRequest.setPassword("StrongPassword123!");
+            mockMvc.perform(post("/api/v1/auth/user/register")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(registerRequest)))
+                    .andExpect(status().isOk());
+            mockMvc.perform(post("/api/v1/auth/user/verify")
+                            .param("email", email)
+                            .param("code", pendingRegistrationStore.find(email).orElseThrow().code()))
+                    .andExpect(status().isOk());
+
+            UserLoginRequest loginRequest = new UserLoginRequest();
+            loginRequest.setEmail(email);
+            loginRequest.setPassword("StrongPassword123!");
+            Cookie session = mockMvc.perform(post("/api/v1/auth/user/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(loginRequest)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getCookie("USER_SESSION");
+
+            UserUpdateRequest updateRequest = new UserUpdateRequest();
+            updateRequest.setTags(List.of("hiking"));
+            mockMvc.perform(put("/api/v1/auth/user").cookie(session)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(updateRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.tags[0]").value("hiking"));
+
+            mockMvc.perform(get("/api/v1/auth/user/me").cookie(session))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.tags[0]").value("hiking"));
+
+            assertTrue(meterRegistry.get("db.connection.hold").tag("uri", "/api/v1/auth/user/me").timer().count() > 0);
+        } finally {
+            jdbcTemplate.update("DELETE FROM mail_outbox WHERE recipient = ?", email);
+            jdbcTemplate.update("DELETE FROM user_sessions WHERE user_id IN (SELECT id FROM users WHERE email = ?)", email);
+            jdbcTemplate.update("DELETE FROM user_tags WHERE user_id IN (SELECT id FROM users WHERE email = ?)", email);
+            jdbcTemplate.update("DELETE FROM users WHERE email = ?", email);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.paradoks.agileproject;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pictures are served with strong validators and cache headers, answer conditional GETs with 304 and
+ * Range requests with 206.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class FileControllerTests {
+
+    private static final byte[] CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+
+    private final MockMvc mockMvc;
+    private final Path uploadPath;
+    private Path file;
+
+    public FileControllerTests(MockMvc mockMvc, @Value("${upload-dir}") String uploadDir) {
+        this.mockMvc = mockMvc;
+        this.uploadPath = Paths.get(uploadDir);
+    }
+
+    @BeforeEach
+    public void writeFile() throws Exception {
+        Files.createDirectories(uploadPath);
+        file = Files.write(uploadPath.resolve(UUID.randomUUID() + ".png"), CONTENT);
+    }
+
+    @AfterEach
+    public void deleteFile() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    private String url() {
+        return "/pictures/" + file.getFileName();
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    @Test
+    public void testFileIsServedWithValidatorsAndCacheHeaders() throws Exception {
+        MvcResult result = mockMvc.perform(get(url()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + sha256(CONTENT) + "\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, public"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length))
+                .andReturn();
+        assertArrayEquals(CONTENT, result.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    public void testMatchingValidatorsAreAnsweredWithNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(get(url())).andExpect(status().isOk()).andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get(url()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get(url()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(url()).header(HttpHeaders.IF_NONE_MATCH, "\"" + sha256(new byte[0]) + "\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testChangedFileGetsNewETag() throws Exception {
+        String eTag = mockMvc.perform(get(url())).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        byte[] changed = "changed".getBytes(StandardCharsets.US_ASCII);
+        Files.write(file, changed);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+
+        mockMvc.perform(get(url()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + sha256(changed) + "\""))
+                .andExpect(content().bytes(changed));
+    }
+
+    @Test
+    public void testRangeRequestsAreAnsweredWithPartialContent() throws Exception {
+        mockMvc.perform(get(url()).header(HttpHeaders.RANGE, "bytes=0-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-9/" + CONTENT.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 0, 10)));
+        mockMvc.perform(get(url()).header(HttpHeaders.RANGE, "bytes=-6"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, CONTENT.length - 6, CONTENT.length)));
+        mockMvc.perform(get(url()).header(HttpHeaders.RANGE, "bytes=1000-2000"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+
+    @Test
+    public void testRangeWithStaleIfRangeReturnsWholeFile() throws Exception {
+        String eTag = mockMvc.perform(get(url())).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(url()).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, eTag))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 0, 10)));
+        mockMvc.perform(get(url()).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length))
+                .andExpect(content().bytes(CONTENT));
+        mockMvc.perform(get(url()).header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, "Thu, 01 Jan 1970 00:00:00 GMT"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    public void testContentAddressedFileUsesItsNameAsETag() throws Exception {
+        String hash = sha256(CONTENT);
+        Path stored = Files.write(uploadPath.resolve(hash + ".png"), CONTENT);
+        try {
+            mockMvc.perform(get("/pictures/" + stored.getFileName()))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "\""));
+        } finally {
+            Files.deleteIfExists(stored);
+        }
+    }
+
+    @Test
+    public void testMissingFileIsNotFound() throws Exception {
+        mockMvc.perform(get("/pictures/" + UUID.randomUUID() + ".png"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/pictures/raw"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,168 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.service.ImageStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Images are stored once per distinct content, counted per reference and collected once unreferenced
+ * for the grace period.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class ImageStoreTests {
+
+    private static final int WRITERS = 16;
+
+    private final ImageStore imageStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final MockMvc mockMvc;
+    private final Path uploadPath;
+
+    public ImageStoreTests(ImageStore imageStore, JdbcTemplate jdbcTemplate, MockMvc mockMvc,
+                           @Value("${upload-dir}") String uploadDir) {
+        this.imageStore = imageStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.mockMvc = mockMvc;
+        this.uploadPath = Paths.get(uploadDir);
+    }
+
+    // Content no other test has stored
+    private static BufferedImage uniqueImage() {
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, ThreadLocalRandom.current().nextInt(0xffffff));
+        image.setRGB(1, 0, ThreadLocalRandom.current().nextInt(0xffffff));
+        return image;
+    }
+
+    private Path file(String url) {
+        return uploadPath.resolve(Paths.get(url).getFileName());
+    }
+
+    private Integer references(String url) {
+        return jdbcTemplate.query("SELECT ref_count FROM stored_images WHERE name = ?",
+                result -> result.next() ? result.getInt(1) : null, file(url).getFileName().toString());
+    }
+
+    private void deleteStored(String url) throws IOException {
+        jdbcTemplate.update("DELETE FROM stored_images WHERE name = ?", file(url).getFileName().toString());
+        Files.deleteIfExists(file(url));
+    }
+
+    @Test
+    public void testIdenticalImagesAreStoredOnceAndCollectedWhenUnreferenced() throws Exception {
+        BufferedImage image = uniqueImage();
+        String url = imageStore.put(image, "png");
+        try {
+            assertTrue(ImageStore.CONTENT_ADDRESSED.matcher(file(url).getFileName().toString()).matches());
+            assertEquals(url, imageStore.put(image, "png"));
+            assertEquals(2, references(url));
+
+            imageStore.release(url);
+            imageStore.release(url);
+            assertEquals(0, references(url));
+
+            // Still within the grace period
+            imageStore.collectGarbage();
+            assertTrue(Files.exists(file(url)));
+
+            jdbcTemplate.update("UPDATE stored_images SET updated_at = DATEADD('DAY', -1, updated_at) WHERE name = ?",
+                    file(url).getFileName().toString());
+            assertTrue(imageStore.collectGarbage() >= 1);
+            assertFalse(Files.exists(file(url)));
+            assertNull(references(url));
+
+            // Storing the same bytes again brings the file back
+            assertEquals(url, imageStore.put(image, "png"));
+            assertEquals(1, references(url));
+            assertNotNull(ImageIO.read(file(url).toFile()));
+        } finally {
+            deleteStored(url);
+        }
+    }
+
+    @Test
+    public void testConcurrentIdenticalPutsShareOneFile() throws Exception {
+        BufferedImage image = uniqueImage();
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<String> urls = new ConcurrentLinkedQueue<>();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                    urls.add(imageStore.put(image, "png"));
+                } catch (Exception e) {
+                    failures.add(e);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        String url = urls.peek();
+        try {
+            assertTrue(failures.isEmpty(), "failures: " + failures);
+            assertEquals(WRITERS, urls.size());
+            urls.forEach(other -> assertEquals(url, other));
+            assertEquals(WRITERS, references(url));
+            assertNotNull(ImageIO.read(file(url).toFile()));
+            // No temporary files left behind
+            try (Stream<Path> files = Files.list(uploadPath)) {
+                assertTrue(files.noneMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+            }
+        } finally {
+            deleteStored(url);
+        }
+    }
+
+    @Test
+    public void testStoredImagesAreServedAsImmutable() throws Exception {
+        String url = imageStore.put(uniqueImage(), "png");
+        try {
+            mockMvc.perform(get("/pictures/" + file(url).getFileName()))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"));
+        } finally {
+            deleteStored(url);
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package com.paradoks.agileproject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paradoks.agileproject.dto.request.LoginRequest;
+import com.paradoks.agileproject.dto.request.RegisterRequest;
+import com.paradoks.agileproject.dto.response.ClubResponse;
+import com.paradoks.agileproject.dto.response.ImageJobResponse;
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.ImageJob;
+import com.paradoks.agileproject.model.ImageJobStatus;
+import com.paradoks.agileproject.model.ImageKind;
+import com.paradoks.agileproject.model.ImageRendition;
+import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.repository.ImageJobRepository;
+import com.paradoks.agileproject.service.ImageProcessor;
+import com.paradoks.agileproject.service.ImageStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Uploads are accepted with a 202 and a job to poll; the club's image and its renditions change once an
+ * image worker is done.
+ * Not transactional, since the workers run on their own threads.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class ImageUploadTests {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final ClubRepository clubRepository;
+    private final ImageJobRepository imageJobRepository;
+    private final ImageProcessor imageProcessor;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String uploadDir;
+
+    public ImageUploadTests(MockMvc mockMvc, ObjectMapper objectMapper, ClubRepository clubRepository,
+                            ImageJobRepository imageJobRepository, ImageProcessor imageProcessor, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, @Value("${upload-dir}") String uploadDir) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.clubRepository = clubRepository;
+        this.imageJobRepository = imageJobRepository;
+        this.imageProcessor = imageProcessor;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.uploadDir = uploadDir;
+    }
+
+    private Cookie registerAndLogin(String clubName, String email) throws Exception {
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setClubName(clubName);
+        registerRequest.setEmail(email);
+        registerRequest.setPassword("password");
+        mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isOk());
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(email);
+        loginRequest.setPassword("password");
+        return mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie("CLUB_SESSION");
+    }
+
+    private void deleteClub(String email) {
+        clubRepository.findByEmail(email).ifPresent(club -> {
+            jdbcTemplate.update("DELETE FROM club_sessions WHERE club_id = ?", club.getId());
+            clubRepository.deleteById(club.getId());
+        });
+    }
+
+    // Every file the image store wrote, referenced or not
+    private void deleteStoredImages() throws IOException {
+        jdbcTemplate.update("DELETE FROM stored_images");
+        try (Stream<Path> files = Files.list(Paths.get(uploadDir))) {
+            for (Path file : files.filter(file -> ImageStore.CONTENT_ADDRESSED.matcher(file.getFileName().toString()).matches()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private int references(String url) {
+        return jdbcTemplate.queryForObject("SELECT ref_count FROM stored_images WHERE name = ?", Integer.class,
+                imageFile(url).getFileName().toString());
+    }
+
+    private Path imageFile(String url) {
+        return Paths.get(uploadDir, Paths.get(url).getFileName().toString());
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        return png(width, height, 0);
+    }
+
+    private static byte[] png(int width, int height, int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(rgb));
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    // Smooth gradients with some grain, closer to a photo than the flat test images
+    private static byte[] photo(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int grain = random.nextInt(16);
+                int r = 40 + 160 * x / width + grain;
+                int g = 60 + 120 * y / height + grain;
+                int b = 120 + (int) (60 * Math.sin(x / 40.0 + y / 25.0)) + grain;
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    // Mean absolute difference per channel, for comparing lossy encodings of the same image
+    private static double meanDifference(BufferedImage a, BufferedImage b) {
+        long total = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                int p = a.getRGB(x, y);
+                int q = b.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    total += Math.abs(((p >> shift) & 0xff) - ((q >> shift) & 0xff));
+                }
+            }
+        }
+        return total / (3.0 * a.getWidth() * a.getHeight());
+    }
+
+    private MockHttpServletResponse upload(String path, String param, byte[] content, Cookie session) throws Exception {
+        return mockMvc.perform(multipart("/api/v1/clubs/" + path)
+                        .file(new MockMultipartFile(param, "image.png", MediaType.IMAGE_PNG_VALUE, content))
+                        .cookie(session))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse();
+    }
+
+    private ImageJobResponse awaitFinished(MockHttpServletResponse accepted, Cookie session) throws Exception {
+        String location = accepted.getHeader(HttpHeaders.LOCATION);
+        assertNotNull(location);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            String body = mockMvc.perform(get(location).cookie(session))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            ImageJobResponse job = objectMapper.readValue(body, ImageJobResponse.class);
+            if (job.getStatus() == ImageJobStatus.DONE || job.getStatus() == ImageJobStatus.FAILED) {
+                return job;
+            }
+            assertTrue(System.nanoTime() < deadline, "image job did not finish");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void testProfilePictureIsSwappedInWhenProcessed() throws Exception {
+        String email = "image-upload@example.com";
+        try {
+            Cookie session = registerAndLogin("Image Upload Club", email);
+            Long clubId = clubRepository.findByEmail(email).get().getId();
+
+            ImageJobResponse first = awaitFinished(upload("profile-picture", "profilePicture", png(400, 300), session), session);
+            assertEquals(ImageJobStatus.DONE, first.getStatus());
+            mockMvc.perform(get("/api/v1/clubs/" + clubId))
+                    .andExpect(jsonPath("$.profilePicture").value(first.getResultUrl()));
+            BufferedImage stored = ImageIO.read(imageFile(first.getResultUrl()).toFile());
+            assertEquals(200, stored.getWidth());
+            assertEquals(200, stored.getHeight());
+
+            // Every configured size, in the upload's format, smallest first
+            List<ImageRendition> renditions = fetchClub(clubId).getProfilePictureRenditions().stream()
+                    .filter(rendition -> rendition.type().equals(MediaType.IMAGE_PNG_VALUE))
+                    .toList();
+            assertEquals(List.of(48, 96, 200), renditions.stream().map(ImageRendition::width).toList());
+            for (ImageRendition rendition : renditions) {
+                BufferedImage file = ImageIO.read(imageFile(rendition.url()).toFile());
+                assertEquals(rendition.width(), file.getWidth());
+                assertEquals(rendition.width(), file.getHeight());
+            }
+            assertEquals(first.getResultUrl(), renditions.getLast().url());
+
+            // Uploading the same picture again reuses its files
+            ImageJobResponse again = awaitFinished(upload("profile-picture", "profilePicture", png(400, 300), session), session);
+            assertEquals(first.getResultUrl(), again.getResultUrl());
+            renditions.forEach(rendition -> assertEquals(1, references(rendition.url())));
+
+            // A new picture drops the previous files' references; the files stay until the store collects them
+            ImageJobResponse second = awaitFinished(upload("profile-picture", "profilePicture", png(300, 300, 0x3366cc), session), session);
+            assertEquals(ImageJobStatus.DONE, second.getStatus());
+            assertEquals(second.getResultUrl(), clubRepository.findById(clubId).get().getProfilePicture());
+            assertNotEquals(first.getResultUrl(), second.getResultUrl());
+            for (ImageRendition rendition : renditions) {
+                assertEquals(0, references(rendition.url()));
+                assertTrue(Files.exists(imageFile(rendition.url())));
+            }
+        } finally {
+            deleteClub(email);
+            deleteStoredImages();
+        }
+    }
+
+    @Test
+    public void testBannerRenditionsKeepTheAspectRatio() throws Exception {
+        String email = "image-upload-banner@example.com";
+        try {
+            Cookie session = registerAndLogin("Image Upload Banner Club", email);
+            Long clubId = clubRepository.findByEmail(email).get().getId();
+
+            ImageJobResponse job = awaitFinished(upload("banner", "banner", png(1500, 500), session), session);
+            assertEquals(ImageJobStatus.DONE, job.getStatus());
+
+            ClubResponse club = fetchClub(clubId);
+            assertEquals(job.getResultUrl(), club.getBanner());
+            List<ImageRendition> renditions = club.getBannerRenditions().stream()
+                    .filter(rendition -> rendition.type().equals(MediaType.IMAGE_PNG_VALUE))
+                    .toList();
+            assertEquals(List.of(400, 800, 1200), renditions.stream().map(ImageRendition::width).toList());
+            assertEquals(List.of(133, 267, 400), renditions.stream().map(ImageRendition::height).toList());
+            assertNull(club.getProfilePictureRenditions());
+        } finally {
+            deleteClub(email);
+            deleteStoredImages();
+        }
+    }
+
+    @Test
+    public void testPhotosGetSmallerWebPRenditionsListedFirst() throws Exception {
+        String email = "image-upload-webp@example.com";
+        try {
+            Cookie session = registerAndLogin("Image Upload WebP Club", email);
+            Long clubId = clubRepository.findByEmail(email).get().getId();
+
+            ImageJobResponse job = awaitFinished(upload("banner", "banner", photo(1500, 500), session), session);
+            assertEquals(ImageJobStatus.DONE, job.getStatus());
+
+            mockMvc.perform(get("/api/v1/clubs/" + clubId))
+                    .andExpect(jsonPath("$.bannerRenditions[0].type").value("image/webp"));
+            List<ImageRendition> renditions = fetchClub(clubId).getBannerRenditions();
+            assertEquals(List.of("image/webp", "image/webp", "image/webp", "image/jpeg", "image/jpeg", "image/jpeg"),
+                    renditions.stream().map(ImageRendition::type).toList());
+            assertEquals(List.of(400, 800, 1200, 400, 800, 1200), renditions.stream().map(ImageRendition::width).toList());
+            // The banner itself stays in the upload's format for clients that only read the single URL
+            assertEquals(job.getResultUrl(), renditions.getLast().url());
+
+            for (int i = 0; i < 3; i++) {
+                ImageRendition webp = renditions.get(i);
+                ImageRendition jpeg = renditions.get(i + 3);
+                byte[] webpBytes = Files.readAllBytes(imageFile(webp.url()));
+                assertTrue(webp.url().endsWith(".webp"));
+                assertTrue(webpBytes.length < Files.size(imageFile(jpeg.url())));
+                // A lossy (VP8) bitstream rather than a lossless (VP8L) one
+                assertEquals("VP8 ", new String(webpBytes, 12, 4, StandardCharsets.US_ASCII));
+
+                BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(webpBytes));
+                BufferedImage expected = ImageIO.read(imageFile(jpeg.url()).toFile());
+                assertEquals(webp.width(), decoded.getWidth());
+                assertEquals(webp.height(), decoded.getHeight());
+                assertTrue(meanDifference(expected, decoded) < 8, "WebP rendition differs from the JPEG one");
+            }
+        } finally {
+            deleteClub(email);
+            deleteStoredImages();
+        }
+    }
+
+    @Test
+    public void testConcurrentUploadsReleaseEveryReplacedRendition() throws Exception {
+        String email = "image-upload-concurrent@example.com";
+        try {
+            Cookie session = registerAndLogin("Image Upload Concurrent Club", email);
+            Long clubId = clubRepository.findByEmail(email).get().getId();
+            List<String> before = jdbcTemplate.queryForList("SELECT name FROM stored_images", String.class);
+
+            // Queued back to back, so the workers swap the club's banner concurrently
+            List<MockHttpServletResponse> accepted = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                accepted.add(upload("banner", "banner", png(600, 200, 0x102030 * (i + 1)), session));
+            }
+            for (MockHttpServletResponse response : accepted) {
+                assertEquals(ImageJobStatus.DONE, awaitFinished(response, session).getStatus());
+            }
+
+            // Only the banner the club ended up with is still referenced, once per rendition
+            List<String> current = fetchClub(clubId).getBannerRenditions().stream()
+                    .map(rendition -> imageFile(rendition.url()).getFileName().toString())
+                    .toList();
+            Map<String, Integer> references = new HashMap<>();
+            jdbcTemplate.query("SELECT name, ref_count FROM stored_images", row -> {
+                references.put(row.getString("name"), row.getInt("ref_count"));
+            });
+            before.forEach(references::remove);
+            assertTrue(references.size() > current.size());
+            references.forEach((name, count) -> assertEquals(current.contains(name) ? 1 : 0, count, name));
+        } finally {
+            deleteClub(email);
+            deleteStoredImages();
+        }
+    }
+
+    private ClubResponse fetchClub(Long clubId) throws Exception {
+        String body = mockMvc.perform(get("/api/v1/clubs/" + clubId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, ClubResponse.class);
+    }
+
+    @Test
+    public void testUndecodableImagesFailWithoutTouchingTheClub() throws Exception {
+        String email = "image-upload-broken@example.com";
+        String otherEmail = "image-upload-other@example.com";
+        try {
+            Cookie session = registerAndLogin("Image Upload Broken Club", email);
+            Cookie otherSession = registerAndLogin("Image Upload Other Club", otherEmail);
+
+            // A PNG signature followed by garbage passes the upload checks but cannot be decoded
+            byte[] broken = png(10, 10);
+            for (int i = 16; i < broken.length; i++) {
+                broken[i] = 0;
+            }
+            MockHttpServletResponse accepted = upload("banner", "banner", broken, session);
+            ImageJobResponse job = awaitFinished(accepted, session);
+            assertEquals(ImageJobStatus.FAILED, job.getStatus());
+            assertNotNull(job.getError());
+            ClubModel club = clubRepository.findByEmail(email).get();
+            assertNull(club.getBanner());
+
+            // Jobs are only visible to the club that uploaded them
+            mockMvc.perform(get(accepted.getHeader(HttpHeaders.LOCATION)).cookie(otherSession))
+                    .andExpect(status().isNotFound());
+
+            // Files that are not images at all are still rejected on the request thread
+            mockMvc.perform(multipart("/api/v1/clubs/banner")
+                            .file(new MockMultipartFile("banner", "banner.png", MediaType.IMAGE_PNG_VALUE, new byte[]{1, 2, 3}))
+                            .cookie(session))
+                    .andExpect(status().isBadRequest());
+        } finally {
+            deleteClub(email);
+            deleteClub(otherEmail);
+            deleteStoredImages();
+        }
+    }
+
+    // A job as submit saves it, left behind by a worker that never ran
+    private ImageJob unfinishedJob(Long clubId, LocalDateTime updatedAt) throws IOException {
+        Path raw = Paths.get(uploadDir, "raw", "abandoned-" + updatedAt.toLocalTime().toNanoOfDay() + ".png");
+        Files.createDirectories(raw.getParent());
+        Files.write(raw, png(10, 10));
+
+        ImageJob job = new ImageJob();
+        job.setClubId(clubId);
+        job.setKind(ImageKind.BANNER);
+        job.setStatus(ImageJobStatus.PENDING);
+        job.setRawPath(raw.toString());
+        job.setCreatedAt(updatedAt);
+        job.setUpdatedAt(updatedAt);
+        job.setExpiresAt(updatedAt.plusDays(1));
+        return imageJobRepository.save(job);
+    }
+
+    @Test
+    public void testJobsAbandonedByARestartAreFailed() throws Exception {
+        String email = "image-upload-abandoned@example.com";
+        List<Path> raws = new ArrayList<>();
+        try {
+            registerAndLogin("Image Upload Abandoned Club", email);
+            Long clubId = clubRepository.findByEmail(email).get().getId();
+            ImageJob abandoned = unfinishedJob(clubId, LocalDateTime.now().minusHours(1));
+            ImageJob recent = unfinishedJob(clubId, LocalDateTime.now());
+            raws.add(Paths.get(abandoned.getRawPath()));
+            raws.add(Paths.get(recent.getRawPath()));
+
+            assertEquals(1, imageProcessor.failAbandonedJobs());
+
+            ImageJob failed = imageJobRepository.findById(abandoned.getId()).get();
+            assertEquals(ImageJobStatus.FAILED, failed.getStatus());
+            assertNotNull(failed.getError());
+            assertFalse(Files.exists(Paths.get(abandoned.getRawPath())));
+
+            // Younger jobs may still be queued on another instance
+            assertEquals(ImageJobStatus.PENDING, imageJobRepository.findById(recent.getId()).get().getStatus());
+            assertTrue(Files.exists(Paths.get(recent.getRawPath())));
+
+            assertEquals(0, imageProcessor.failAbandonedJobs());
+        } finally {
+            deleteClub(email);
+            for (Path raw : raws) {
+                Files.deleteIfExists(raw);
+            }
+        }
+    }
+
+    @Test
+    public void testQueueDepthIsPublished() {
+        assertNotNull(meterRegistry.find("executor.queued").tag("name", "image").gauge());
+        assertNotNull(meterRegistry.find("executor.active").tag("name", "image").gauge());
+    }
+}
@@ -0,0 +1,74 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.Post;
+import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.repository.PostRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sequence ids let Hibernate batch inserts: saving many rows costs a handful of statements, not one per row.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class JdbcBatchingTests {
+
+    private final ClubRepository clubRepository;
+    private final PostRepository postRepository;
+    private final EntityManager entityManager;
+    private final Statistics statistics;
+
+    public JdbcBatchingTests(ClubRepository clubRepository, PostRepository postRepository,
+                             EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.clubRepository = clubRepository;
+        this.postRepository = postRepository;
+        this.entityManager = entityManager;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @Transactional
+    public void testBulkInsertsAreBatched() {
+        ClubModel club = new ClubModel();
+        club.setName("Batching Club");
+        club.setEmail("batching@example.com");
+        club.setPassword("x");
+        clubRepository.save(club);
+        entityManager.flush();
+
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Post post = new Post();
+            post.setTitle("Batched post " + i);
+            post.setContent("Content " + i);
+            post.setClub(club);
+            posts.add(post);
+        }
+
+        statistics.clear();
+        postRepository.saveAll(posts);
+        entityManager.flush();
+
+        // 4 sequence calls for 200 ids plus one insert batch
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= 6, "statements " + statements);
+        assertEquals(200, posts.stream().map(Post::getId).distinct().count());
+        entityManager.clear();
+        assertEquals(200, postRepository.countByClub_Id(club.getId()));
+    }
+}
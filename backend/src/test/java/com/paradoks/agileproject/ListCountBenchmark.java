@@ -0,0 +1,95 @@
+package com.paradoks.agileproject;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * List endpoint latency on large tables with count=exact, cached and none.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class ListCountBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(ListCountBenchmark.class);
+
+    private static final int POSTS = 200_000;
+    private static final int MEMBERS = 100_000;
+    private static final int REQUESTS = 200;
+
+    private final MockMvc mockMvc;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ListCountBenchmark(MockMvc mockMvc, JdbcTemplate jdbcTemplate) {
+        this.mockMvc = mockMvc;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private double averageMillis(String url) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            mockMvc.perform(get(url)).andExpect(status().isOk());
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / REQUESTS;
+    }
+
+    private void compareModes(String endpoint) throws Exception {
+        String url = endpoint + "?size=30&page=100&count=";
+        for (String mode : new String[]{"exact", "cached", "none"}) {
+            averageMillis(url + mode); // warm up
+        }
+        double exact = averageMillis(url + "exact");
+        double cached = averageMillis(url + "cached");
+        double none = averageMillis(url + "none");
+
+        log.info("{}: exact {} ms, cached {} ms, none {} ms per request",
+                endpoint, String.format("%.2f", exact), String.format("%.2f", cached), String.format("%.2f", none));
+        assertTrue(none < exact, endpoint + ": slice " + none + "ms is not faster than counted " + exact + "ms");
+        assertTrue(cached < exact, endpoint + ": cached " + cached + "ms is not faster than counted " + exact + "ms");
+    }
+
+    // Not @Transactional: a single test-wide persistence context would dominate the timings
+    @Test
+    public void benchmarkListCountModes() throws Exception {
+        try {
+            runBenchmark();
+        } finally {
+            jdbcTemplate.update("DELETE FROM posts WHERE title LIKE 'bench-post-%'");
+            jdbcTemplate.update("DELETE FROM club_members WHERE club_id IN (SELECT id FROM clubs WHERE name = 'bench-list-club')");
+            jdbcTemplate.update("DELETE FROM users WHERE email LIKE 'bench-list-member-%'");
+            jdbcTemplate.update("DELETE FROM clubs WHERE name = 'bench-list-club'");
+        }
+    }
+
+    private void runBenchmark() throws Exception {
+        jdbcTemplate.update("INSERT INTO clubs (id, name, email, password) VALUES (NEXT VALUE FOR clubs_seq, 'bench-list-club', 'bench-list@example.com', 'x')");
+        Long clubId = jdbcTemplate.queryForObject("SELECT id FROM clubs WHERE name = 'bench-list-club'", Long.class);
+        jdbcTemplate.update("""
+                INSERT INTO posts (id, title, content, club_id, creation_date)
+                SELECT NEXT VALUE FOR posts_seq, 'bench-post-' || X, 'content', ?, NOW() FROM SYSTEM_RANGE(1, ?)
+                """, clubId, POSTS);
+        jdbcTemplate.update("""
+                INSERT INTO users (id, first_name, last_name, email, password, date_created)
+                SELECT NEXT VALUE FOR users_seq, 'Bench', 'Member', 'bench-list-member-' || X || '@example.com', 'x', NOW() FROM SYSTEM_RANGE(1, ?)
+                """, MEMBERS);
+        jdbcTemplate.update("INSERT INTO club_members (club_id, user_id) SELECT ?, id FROM users WHERE email LIKE 'bench-list-member-%'", clubId);
+
+        compareModes("/api/v1/clubs/" + clubId + "/posts");
+        compareModes("/api/v1/clubs/" + clubId + "/members");
+    }
+}
@@ -0,0 +1,112 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.User;
+import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Club and member listings are read as projections, with the tags of a whole page loaded in one query.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class ListingProjectionTests {
+
+    private final MockMvc mockMvc;
+    private final ClubRepository clubRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final Statistics statistics;
+
+    public ListingProjectionTests(MockMvc mockMvc, ClubRepository clubRepository, UserRepository userRepository,
+                                  EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.mockMvc = mockMvc;
+        this.clubRepository = clubRepository;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private long statementsFor(String url) throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @Transactional
+    public void testClubListingLoadsRowsAndTagsInTwoQueries() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            ClubModel club = new ClubModel();
+            club.setName("Projection Club " + i);
+            club.setEmail("projection" + i + "@example.com");
+            club.setPassword("x");
+            club.setTags(new ArrayList<>(List.of("tag" + i, "shared")));
+            clubRepository.save(club);
+        }
+
+        assertEquals(2, statementsFor("/api/v1/clubs?size=20&count=none"));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(3, statementsFor("/api/v1/clubs?size=20&count=exact"));
+        // The cursor path still reads entities, but tags are batched the same way
+        assertEquals(2, statementsFor("/api/v1/clubs?size=20&cursor="));
+
+        mockMvc.perform(get("/api/v1/clubs?size=50&count=none"))
+                .andExpect(jsonPath("$.content[?(@.name == 'Projection Club 7')].tags[*]", containsInAnyOrder("tag7", "shared")))
+                .andExpect(jsonPath("$.content[0].password").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    public void testMemberListingLoadsRowsAndTagsInOneQueryEach() throws Exception {
+        ClubModel club = new ClubModel();
+        club.setName("Projection Members Club");
+        club.setEmail("projection-members@example.com");
+        club.setPassword("x");
+        clubRepository.save(club);
+
+        for (int i = 0; i < 15; i++) {
+            User user = new User();
+            user.setFirstName("Member");
+            user.setLastName(String.valueOf(i));
+            user.setEmail("projection-member-" + i + "@example.com");
+            user.setPassword("x");
+            user.setTags(new ArrayList<>(List.of("member" + i)));
+            userRepository.save(user);
+            clubRepository.insertMember(club.getId(), user.getId());
+        }
+
+        // Club existence check + member rows + tags
+        assertEquals(3, statementsFor("/api/v1/clubs/" + club.getId() + "/members?size=15&count=none"));
+
+        mockMvc.perform(get("/api/v1/clubs/" + club.getId() + "/members?size=15&sortBy=lastName"))
+                .andExpect(jsonPath("$.totalElements").value(15))
+                .andExpect(jsonPath("$.content[0].lastName").value("0"))
+                .andExpect(jsonPath("$.content[0].tags[0]").value("member0"))
+                .andExpect(jsonPath("$.content[0].password").doesNotExist());
+    }
+}
@@ -0,0 +1,58 @@
+package com.paradoks.agileproject;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Behind a reverse proxy every request arrives from the proxy's address. The per-IP login bucket must be keyed
+ * by the client address the proxy reports in X-Forwarded-For, or all clients would share one bucket. Runs on a
+ * real server, since Tomcat's RemoteIpValve is what resolves the header.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "login.throttle.per-ip.capacity=3",
+        "login.throttle.per-ip.refill-per-minute=0"
+})
+@ActiveProfiles("test")
+public class LoginThrottleProxyTests {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    private int login(String email, String forwardedFor) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + email + "\",\"password\":\"guess\"}"));
+        if (forwardedFor != null) {
+            request.header("X-Forwarded-For", forwardedFor);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Test
+    public void testClientsBehindTheProxyHaveTheirOwnBuckets() throws Exception {
+        // Unknown clubs, each email once, so only the per-IP bucket can run out
+        for (int i = 0; i < 3; i++) {
+            assertEquals(404, login("proxied-a-" + i + "@example.com", "203.0.113.10"));
+        }
+        assertEquals(429, login("proxied-a-3@example.com", "203.0.113.10"));
+
+        // Another client through the same proxy, and the proxy's own address, are unaffected
+        assertEquals(404, login("proxied-b@example.com", "203.0.113.20"));
+        assertEquals(404, login("proxied-c@example.com", "198.51.100.7, 203.0.113.30"));
+        assertEquals(404, login("direct@example.com", null));
+
+        // The client address is the rightmost untrusted entry, so a forged leftmost one does not reset the bucket
+        assertEquals(429, login("proxied-a-4@example.com", "192.0.2.99, 203.0.113.10"));
+    }
+}
@@ -0,0 +1,121 @@
+package com.paradoks.agileproject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paradoks.agileproject.dto.request.LoginRequest;
+import com.paradoks.agileproject.exception.TooManyRequestsException;
+import com.paradoks.agileproject.service.LoginThrottle;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class LoginThrottleTests {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final Statistics statistics;
+
+    public LoginThrottleTests(MockMvc mockMvc, ObjectMapper objectMapper, EntityManagerFactory entityManagerFactory) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @Transactional
+    public void testRepeatedLoginIsRejectedWithoutTouchingTheDatabase() throws Exception {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("stuffing@example.com");
+        loginRequest.setPassword("guess");
+        String body = objectMapper.writeValueAsString(loginRequest);
+
+        // The default per-email bucket holds 10 attempts
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(post("/api/v1/auth/login").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isNotFound());
+        }
+
+        statistics.clear();
+        mockMvc.perform(post("/api/v1/auth/login").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isTooManyRequests());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // Same limit for a differently-cased address
+        loginRequest.setEmail("Stuffing@Example.com");
+        mockMvc.perform(post("/api/v1/auth/login").contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    public void testConcurrentAttemptsNeverExceedCapacity() throws Exception {
+        int capacity = 50;
+        int threads = 32;
+        int attemptsPerThread = 500;
+        String[] emails = {"a@example.com", "b@example.com", "c@example.com", "d@example.com"};
+
+        // No refill, so exactly `capacity` attempts per email may succeed
+        LoginThrottle throttle = new LoginThrottle(capacity, 0, Integer.MAX_VALUE, 0, 1_000, 15, new SimpleMeterRegistry());
+        ConcurrentHashMap<String, AtomicInteger> granted = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    String email = emails[(thread + i) % emails.length];
+                    try {
+                        throttle.acquire(email, "10.0.0." + thread);
+                        granted.computeIfAbsent(email, key -> new AtomicInteger()).incrementAndGet();
+                    } catch (TooManyRequestsException ignored) {
+                        // expected once the bucket is empty
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        for (String email : emails) {
+            assertEquals(capacity, granted.get(email).get(), email);
+        }
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("a@example.com", "10.0.0.99"));
+    }
+
+    @Test
+    public void testTrackedKeysAreBounded() {
+        LoginThrottle throttle = new LoginThrottle(5, 5, 5, 5, 100, 15, new SimpleMeterRegistry());
+        for (int i = 0; i < 10_000; i++) {
+            throttle.acquire("user" + i + "@example.com", "10.1." + (i / 256) + "." + (i % 256));
+        }
+        assertTrue(throttle.trackedKeys() <= 200, "tracked " + throttle.trackedKeys());
+    }
+}
@@ -0,0 +1,261 @@
+package com.paradoks.agileproject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.paradoks.agileproject.dto.request.UserRegisterRequest;
+import com.paradoks.agileproject.model.OutboxMail;
+import com.paradoks.agileproject.repository.OutboxMailRepository;
+import com.paradoks.agileproject.service.MailDispatcher;
+import com.paradoks.agileproject.service.MailOutbox;
+import com.paradoks.agileproject.service.PendingRegistrationStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@TestPropertySource(properties = {
+        "mail.sender=smtp",
+        "spring.mail.host=127.0.0.1",
+        "spring.mail.port=3025"
+})
+public class MailOutboxTests {
+
+    // SMTP stub on ServerSetupTest.SMTP (port 3025)
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final PendingRegistrationStore pendingRegistrationStore;
+    private final OutboxMailRepository outboxMailRepository;
+    private final MailOutbox mailOutbox;
+    private final MailDispatcher mailDispatcher;
+    private final MeterRegistry meterRegistry;
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public MailOutboxTests(MockMvc mockMvc, ObjectMapper objectMapper, PendingRegistrationStore pendingRegistrationStore,
+                           OutboxMailRepository outboxMailRepository, MailOutbox mailOutbox, MailDispatcher mailDispatcher,
+                           MeterRegistry meterRegistry, PlatformTransactionManager transactionManager) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.pendingRegistrationStore = pendingRegistrationStore;
+        this.outboxMailRepository = outboxMailRepository;
+        this.mailOutbox = mailOutbox;
+        this.mailDispatcher = mailDispatcher;
+        this.meterRegistry = meterRegistry;
+        this.transactionManager = transactionManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    public void testRegistrationMailIsQueuedAndDeliveredBySmtp() throws Exception {
+        String email = "outbox@example.com";
+
+        UserRegisterRequest registerRequest = new UserRegisterRequest();
+        registerRequest.setFirstName("Mail");
+        registerRequest.setSecondName("Box");
+        registerRequest.setEmail(email);
+        registerRequest.setPassword("StrongPassword123!");
+
+        mockMvc.perform(post("/api/v1/auth/user/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isOk());
+
+        // The request only queued the mail
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        assertEquals(1, outboxMailRepository.countByFailedFalse());
+
+        assertEquals(1, mailDispatcher.dispatch());
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(1, received.length);
+        assertEquals(email, received[0].getAllRecipients()[0].toString());
+        String code = pendingRegistrationStore.find(email).orElseThrow().code();
+        assertTrue(GreenMailUtil.getBody(received[0]).contains(code));
+
+        assertEquals(0, outboxMailRepository.count());
+        assertEquals(1, meterRegistry.get("mail.outbox.lag").timer().count());
+        assertEquals(0, meterRegistry.get("mail.outbox.backlog").gauge().value());
+    }
+
+    @Test
+    public void testMailIsOnlyQueuedWhenTheTransactionCommits() {
+        assertThrows(IllegalTransactionStateException.class,
+                () -> mailOutbox.enqueue("nobody@example.com", "Subject", "Body"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            mailOutbox.enqueue("rolledback@example.com", "Subject", "Body");
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, outboxMailRepository.count());
+    }
+
+    @Test
+    public void testFailedDeliveryIsRetriedWithBackoffAndThenGivenUp() {
+        MailDispatcher failing = new MailDispatcher(outboxMailRepository, (recipient, subject, body) -> {
+            throw new IllegalStateException("SMTP unavailable");
+        }, new SimpleMeterRegistry(), transactionManager, 10, 3, 60_000, 90_000, 300_000);
+
+        transactionTemplate.executeWithoutResult(status -> mailOutbox.enqueue("retry@example.com", "Subject", "Body"));
+        try {
+            assertEquals(0, failing.dispatch());
+            OutboxMail mail = outboxMailRepository.findAll().get(0);
+            assertEquals(1, mail.getAttempts());
+            assertEquals("SMTP unavailable", mail.getLastError());
+            assertBackoff(Duration.ofSeconds(60), mail.getNextAttemptAt());
+
+            // Not due yet, so nothing is attempted
+            failing.dispatch();
+            assertEquals(1, outboxMailRepository.findAll().get(0).getAttempts());
+
+            makeDue();
+            failing.dispatch();
+            mail = outboxMailRepository.findAll().get(0);
+            assertEquals(2, mail.getAttempts());
+            // 120s doubled backoff, capped at 90s
+            assertBackoff(Duration.ofSeconds(90), mail.getNextAttemptAt());
+
+            makeDue();
+            failing.dispatch();
+            mail = outboxMailRepository.findAll().get(0);
+            assertEquals(3, mail.getAttempts());
+            assertTrue(mail.isFailed());
+            assertEquals(1, outboxMailRepository.countByFailedTrue());
+
+            // Failed mails stay for inspection but are never picked up again
+            makeDue();
+            failing.dispatch();
+            assertEquals(3, outboxMailRepository.findAll().get(0).getAttempts());
+        } finally {
+            outboxMailRepository.deleteAll();
+        }
+    }
+
+    @Test
+    public void testLongErrorsAreTruncatedAndDoNotStopTheBatch() {
+        String longError = "550 " + "x".repeat(2000);
+        List<String> sent = new ArrayList<>();
+        MailDispatcher dispatcher = new MailDispatcher(outboxMailRepository, (recipient, subject, body) -> {
+            if (recipient.equals("long-error@example.com")) {
+                throw new IllegalStateException(longError);
+            }
+            sent.add(recipient);
+        }, new SimpleMeterRegistry(), transactionManager, 10, 3, 60_000, 90_000, 300_000);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            mailOutbox.enqueue("long-error@example.com", "Subject", "Body");
+            mailOutbox.enqueue("after-long-error@example.com", "Subject", "Body");
+        });
+        try {
+            assertEquals(1, dispatcher.dispatch());
+            assertEquals(List.of("after-long-error@example.com"), sent);
+
+            // The attempt is recorded, so the mail backs off and eventually fails instead of re-firing every lease
+            OutboxMail mail = outboxMailRepository.findAll().get(0);
+            assertEquals(1, mail.getAttempts());
+            assertEquals(longError.substring(0, OutboxMail.LAST_ERROR_LENGTH), mail.getLastError());
+            assertBackoff(Duration.ofSeconds(60), mail.getNextAttemptAt());
+        } finally {
+            outboxMailRepository.deleteAll();
+        }
+    }
+
+    @Test
+    public void testClaimedMailsAreSkippedByOtherDispatchers() {
+        List<String> sentByOther = new CopyOnWriteArrayList<>();
+        MailDispatcher other = new MailDispatcher(outboxMailRepository, (recipient, subject, body) -> sentByOther.add(recipient),
+                new SimpleMeterRegistry(), transactionManager, 10, 3, 60_000, 90_000, 300_000);
+        List<Integer> deliveredByOther = new ArrayList<>();
+        List<String> sent = new ArrayList<>();
+        // Runs the other dispatcher while this one is in the middle of sending its claimed batch
+        MailDispatcher dispatcher = new MailDispatcher(outboxMailRepository, (recipient, subject, body) -> {
+            if (sent.isEmpty()) {
+                deliveredByOther.add(other.dispatch());
+            }
+            sent.add(recipient);
+        }, new SimpleMeterRegistry(), transactionManager, 10, 3, 60_000, 90_000, 300_000);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                mailOutbox.enqueue("claim-" + i + "@example.com", "Subject", "Body");
+            }
+        });
+        try {
+            assertEquals(5, dispatcher.dispatch());
+            assertEquals(List.of(0), deliveredByOther);
+            assertEquals(5, sent.size());
+            assertTrue(sentByOther.isEmpty());
+            assertEquals(0, outboxMailRepository.count());
+        } finally {
+            outboxMailRepository.deleteAll();
+        }
+    }
+
+    @Test
+    public void testClaimsOfADeadDispatcherExpire() {
+        MailDispatcher crashed = new MailDispatcher(outboxMailRepository, (recipient, subject, body) -> {
+            throw new OutOfMemoryError("simulated crash");
+        }, new SimpleMeterRegistry(), transactionManager, 10, 3, 60_000, 90_000, 300_000);
+        MailDispatcher next = new MailDispatcher(outboxMailRepository, (recipient, subject, body) -> {
+        }, new SimpleMeterRegistry(), transactionManager, 10, 3, 60_000, 90_000, 300_000);
+
+        transactionTemplate.executeWithoutResult(status -> mailOutbox.enqueue("lease@example.com", "Subject", "Body"));
+        try {
+            assertThrows(OutOfMemoryError.class, crashed::dispatch);
+            // Claimed for the lease, not retried as a failure
+            OutboxMail mail = outboxMailRepository.findAll().get(0);
+            assertEquals(0, mail.getAttempts());
+            assertBackoff(Duration.ofMinutes(5), mail.getNextAttemptAt());
+            assertEquals(0, next.dispatch());
+
+            makeDue();
+            assertEquals(1, next.dispatch());
+            assertEquals(0, outboxMailRepository.count());
+        } finally {
+            outboxMailRepository.deleteAll();
+        }
+    }
+
+    private void makeDue() {
+        OutboxMail mail = outboxMailRepository.findAll().get(0);
+        mail.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        outboxMailRepository.save(mail);
+    }
+
+    private static void assertBackoff(Duration expected, LocalDateTime nextAttemptAt) {
+        Duration actual = Duration.between(LocalDateTime.now(), nextAttemptAt);
+        assertTrue(actual.compareTo(expected) <= 0 && actual.compareTo(expected.minusSeconds(5)) > 0, "backoff " + actual);
+    }
+}
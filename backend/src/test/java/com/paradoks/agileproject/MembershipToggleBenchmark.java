@@ -0,0 +1,117 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.service.ClubService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Membership toggle cost on a club with 50k members, against loading the member collection as the old toggle did.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class MembershipToggleBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(MembershipToggleBenchmark.class);
+
+    private static final int MEMBERS = 50_000;
+    private static final int TOGGLES = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClubService clubService;
+    private final ClubRepository clubRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Statistics statistics;
+
+    public MembershipToggleBenchmark(JdbcTemplate jdbcTemplate, ClubService clubService, ClubRepository clubRepository,
+                                     PlatformTransactionManager transactionManager, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clubService = clubService;
+        this.clubRepository = clubRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private double legacyLookupMillis(Long clubId, Long userId) {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            ClubModel club = clubRepository.findById(clubId).orElseThrow();
+            assertTrue(club.getMembers().stream().anyMatch(member -> member.getId().equals(userId)));
+        });
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+
+    private double averageToggleMicros(Long clubId, List<Long> userIds) {
+        long start = System.nanoTime();
+        for (int i = 0; i < TOGGLES; i++) {
+            clubService.toggleMembership(clubId, userIds.get((i / 2) % MEMBERS));
+        }
+        return (System.nanoTime() - start) / 1_000.0 / TOGGLES;
+    }
+
+    // Not @Transactional: a single test-wide persistence context would dominate the timings
+    @Test
+    public void benchmarkMembershipToggle() {
+        try {
+            runBenchmark();
+        } finally {
+            jdbcTemplate.update("DELETE FROM club_members WHERE club_id IN (SELECT id FROM clubs WHERE name = 'bench-members-club')");
+            jdbcTemplate.update("DELETE FROM users WHERE email LIKE 'bench-member-%'");
+            jdbcTemplate.update("DELETE FROM clubs WHERE name = 'bench-members-club'");
+        }
+    }
+
+    private void runBenchmark() {
+        jdbcTemplate.update("INSERT INTO clubs (id, name, email, password) VALUES (NEXT VALUE FOR clubs_seq, 'bench-members-club', 'bench-members@example.com', 'x')");
+        Long clubId = jdbcTemplate.queryForObject("SELECT id FROM clubs WHERE name = 'bench-members-club'", Long.class);
+        jdbcTemplate.update("""
+                INSERT INTO users (id, first_name, last_name, email, password, date_created)
+                SELECT NEXT VALUE FOR users_seq, 'Bench', 'Member', 'bench-member-' || X || '@example.com', 'x', NOW() FROM SYSTEM_RANGE(1, ?)
+                """, MEMBERS);
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT id FROM users WHERE email LIKE 'bench-member-%' ORDER BY id", Long.class);
+        Long firstUserId = userIds.get(0);
+        jdbcTemplate.update("INSERT INTO club_members (club_id, user_id) SELECT ?, id FROM users WHERE email LIKE 'bench-member-%'", clubId);
+
+        for (int i = 0; i < 3; i++) {
+            legacyLookupMillis(clubId, firstUserId); // warm up
+        }
+        double legacy = legacyLookupMillis(clubId, firstUserId);
+
+        for (int i = 0; i < 5; i++) {
+            averageToggleMicros(clubId, userIds); // warm up
+        }
+        double toggle = averageToggleMicros(clubId, userIds);
+
+        statistics.clear();
+        clubService.toggleMembership(clubId, firstUserId);
+        long statements = statistics.getPrepareStatementCount();
+        clubService.toggleMembership(clubId, firstUserId);
+
+        log.info("Membership toggle on a {}-member club: {} us and {} statements per toggle (loading the member list alone took {} ms)",
+                MEMBERS, String.format("%.1f", toggle), statements, String.format("%.1f", legacy));
+
+        assertEquals(MEMBERS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM club_members WHERE club_id = ?", Integer.class, clubId));
+        assertTrue(statements <= 4, "statements " + statements);
+        assertTrue(toggle * 10 < legacy * 1_000, "Toggle " + toggle + "us is not much cheaper than loading members " + legacy + "ms");
+    }
+}
@@ -0,0 +1,97 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.repository.ClubRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class PaginationCountModeTests {
+
+    private final MockMvc mockMvc;
+    private final ClubRepository clubRepository;
+    private final EntityManager entityManager;
+    private final Statistics statistics;
+
+    public PaginationCountModeTests(MockMvc mockMvc, ClubRepository clubRepository,
+                                    EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.mockMvc = mockMvc;
+        this.clubRepository = clubRepository;
+        this.entityManager = entityManager;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private void createClubs(String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            ClubModel club = new ClubModel();
+            club.setName(prefix + " " + i);
+            club.setEmail(prefix.replace(' ', '-') + i + "@example.com");
+            club.setPassword("x");
+            clubRepository.save(club);
+        }
+        entityManager.flush();
+    }
+
+    private long statementsFor(String url) throws Exception {
+        entityManager.clear();
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @Transactional
+    public void testSliceModeSkipsTheCountQuery() throws Exception {
+        createClubs("Count Mode Slice", 3);
+
+        mockMvc.perform(get("/api/v1/clubs?size=2&count=none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.page").value(0))
+                .andExpect(jsonPath("$.last").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.totalPages").doesNotExist());
+
+        assertEquals(statementsFor("/api/v1/clubs?size=2&count=exact") - 1,
+                statementsFor("/api/v1/clubs?size=2&count=none"));
+    }
+
+    @Test
+    @Transactional
+    public void testCachedModeCountsOnceWithinTheTtl() throws Exception {
+        createClubs("Count Mode Cached", 3);
+        long total = clubRepository.count();
+
+        long exact = statementsFor("/api/v1/clubs?size=2&count=exact");
+        // The first cached request may fill the cache, later ones reuse the total
+        statementsFor("/api/v1/clubs?size=2&count=cached");
+        assertEquals(exact - 1, statementsFor("/api/v1/clubs?size=2&count=cached"));
+
+        mockMvc.perform(get("/api/v1/clubs?size=2&count=cached"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(total));
+    }
+
+    @Test
+    public void testUnknownCountModeIsRejected() throws Exception {
+        mockMvc.perform(get("/api/v1/clubs?count=approximate"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,175 @@
+package com.paradoks.agileproject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paradoks.agileproject.dto.request.LoginRequest;
+import com.paradoks.agileproject.dto.request.UserLoginRequest;
+import com.paradoks.agileproject.dto.request.UserRegisterRequest;
+import com.paradoks.agileproject.exception.TooManyRequestsException;
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.User;
+import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.repository.UserRepository;
+import com.paradoks.agileproject.utils.PasswordUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@MockitoSpyBean(types = PasswordUtils.class)
+public class PasswordHashingTests {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final ClubRepository clubRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordUtils passwordUtils;
+
+    public PasswordHashingTests(MockMvc mockMvc, ObjectMapper objectMapper, ClubRepository clubRepository,
+                                UserRepository userRepository, JdbcTemplate jdbcTemplate, PasswordUtils passwordUtils) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.clubRepository = clubRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordUtils = passwordUtils;
+    }
+
+    @Test
+    @Transactional
+    public void testLoginRehashesPasswordWithOutdatedCost() throws Exception {
+        ClubModel club = new ClubModel();
+        club.setName("Old Hash Club");
+        club.setEmail("oldhash@example.com");
+        club.setPassword(BCrypt.hashpw("password", BCrypt.gensalt(4)));
+        clubRepository.save(club);
+        assertTrue(passwordUtils.needsRehash(club.getPassword()));
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("oldhash@example.com");
+        loginRequest.setPassword("password");
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk());
+
+        String storedHash = clubRepository.findByEmail("oldhash@example.com").orElseThrow().getPassword();
+        assertFalse(passwordUtils.needsRehash(storedHash));
+        assertTrue(BCrypt.checkpw("password", storedHash));
+    }
+
+    // Not @Transactional: the test transaction would be the one holding the connection
+    @Test
+    public void testUserPasswordsAreHashedOutsideTransactions() throws Exception {
+        List<Boolean> inTransaction = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            inTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return invocation.callRealMethod();
+        }).when(passwordUtils).hashPassword(anyString());
+        doAnswer(invocation -> {
+            inTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return invocation.callRealMethod();
+        }).when(passwordUtils).checkPassword(anyString(), anyString());
+
+        String email = "hash-outside-tx@example.com";
+        String newEmail = "hash-outside-tx-new@example.com";
+        try {
+            User user = new User();
+            user.setEmail(email);
+            user.setFirstName("Old");
+            user.setLastName("Hash");
+            user.setPassword(BCrypt.hashpw("password", BCrypt.gensalt(4)));
+            userRepository.save(user);
+
+            // Checks the password, then rehashes it at the configured cost
+            UserLoginRequest loginRequest = new UserLoginRequest();
+            loginRequest.setEmail(email);
+            loginRequest.setPassword("password");
+            mockMvc.perform(post("/api/v1/auth/user/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(loginRequest)))
+                    .andExpect(status().isOk());
+            assertFalse(passwordUtils.needsRehash(userRepository.findByEmail(email).orElseThrow().getPassword()));
+
+            UserRegisterRequest registerRequest = new UserRegisterRequest();
+            registerRequest.setFirstName("New");
+            registerRequest.setSecondName("User");
+            registerRequest.setEmail(newEmail);
+            registerRequest.setPassword("password");
+            mockMvc.perform(post("/api/v1/auth/user/register")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(registerRequest)))
+                    .andExpect(status().isOk());
+
+            assertEquals(List.of(false, false, false), inTransaction);
+        } finally {
+            jdbcTemplate.update("DELETE FROM user_sessions WHERE user_id IN (SELECT id FROM users WHERE email = ?)", email);
+            jdbcTemplate.update("DELETE FROM users WHERE email = ?", email);
+            jdbcTemplate.update("DELETE FROM verification_code WHERE email = ?", newEmail);
+            jdbcTemplate.update("DELETE FROM mail_outbox WHERE recipient = ?", newEmail);
+        }
+    }
+
+    @Test
+    public void testFullHashingPoolRejectsImmediately() throws Exception {
+        // One worker and one queue slot: of four simultaneous hashes at least one must be turned away
+        PasswordUtils saturated = new PasswordUtils(12, 1, 1, new SimpleMeterRegistry());
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    try {
+                        return saturated.hashPassword("password");
+                    } catch (TooManyRequestsException e) {
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int rejected = 0;
+            for (Future<String> result : results) {
+                if (result.get() == null) {
+                    rejected++;
+                }
+            }
+            assertTrue(rejected >= 1 && rejected <= 2, "rejected " + rejected);
+        } finally {
+            callers.shutdownNow();
+            saturated.shutdown();
+        }
+    }
+}
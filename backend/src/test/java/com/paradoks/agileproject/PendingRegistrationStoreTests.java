@@ -0,0 +1,179 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.dto.request.UserRegisterRequest;
+import com.paradoks.agileproject.exception.BadRequestException;
+import com.paradoks.agileproject.model.PendingRegistration;
+import com.paradoks.agileproject.repository.VerificationCodeRepository;
+import com.paradoks.agileproject.service.InMemoryPendingRegistrationStore;
+import com.paradoks.agileproject.service.JpaPendingRegistrationStore;
+import com.paradoks.agileproject.service.PendingRegistrationStore;
+import com.paradoks.agileproject.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class PendingRegistrationStoreTests {
+
+    private final VerificationCodeRepository verificationCodeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PendingRegistrationStore pendingRegistrationStore;
+    private final UserService userService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public PendingRegistrationStoreTests(VerificationCodeRepository verificationCodeRepository, TransactionTemplate transactionTemplate,
+                                         PendingRegistrationStore pendingRegistrationStore, UserService userService, JdbcTemplate jdbcTemplate) {
+        this.verificationCodeRepository = verificationCodeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.pendingRegistrationStore = pendingRegistrationStore;
+        this.userService = userService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private static PendingRegistration registration(String email, String code, LocalDateTime expiresAt) {
+        return new PendingRegistration(email, code, "Jane", "Doe", "hash", expiresAt);
+    }
+
+    private static int concurrentSuccesses(int threads, Supplier<Optional<PendingRegistration>> consume) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Optional<PendingRegistration>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return consume.get();
+                }));
+            }
+            start.countDown();
+
+            int successes = 0;
+            for (Future<Optional<PendingRegistration>> result : results) {
+                if (result.get().isPresent()) {
+                    successes++;
+                }
+            }
+            return successes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInMemoryStoreConsumesOnce() throws Exception {
+        PendingRegistrationStore store = new InMemoryPendingRegistrationStore(100);
+        assertTrue(store.putIfAbsent(registration("race@example.com", "123456", LocalDateTime.now().plusMinutes(15))));
+        assertFalse(store.putIfAbsent(registration("race@example.com", "654321", LocalDateTime.now().plusMinutes(15))));
+
+        assertFalse(store.consume("race@example.com", "000000").isPresent());
+        assertEquals(1, concurrentSuccesses(16, () -> store.consume("race@example.com", "123456")));
+        assertFalse(store.find("race@example.com").isPresent());
+    }
+
+    @Test
+    public void testInMemoryStoreIgnoresExpiredRegistrations() {
+        PendingRegistrationStore store = new InMemoryPendingRegistrationStore(100);
+        assertTrue(store.putIfAbsent(registration("expired@example.com", "123456", LocalDateTime.now().minusSeconds(1))));
+
+        assertFalse(store.consume("expired@example.com", "123456").isPresent());
+        assertTrue(store.putIfAbsent(registration("expired@example.com", "654321", LocalDateTime.now().plusMinutes(15))));
+    }
+
+    @Test
+    public void testInMemoryStoreForgetsRegistrationsOfRolledBackTransactions() {
+        PendingRegistrationStore store = new InMemoryPendingRegistrationStore(100);
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(store.putIfAbsent(registration("rolledback@example.com", "123456", LocalDateTime.now().plusMinutes(15))));
+            status.setRollbackOnly();
+        });
+        assertFalse(store.find("rolledback@example.com").isPresent());
+
+        transactionTemplate.executeWithoutResult(status ->
+                assertTrue(store.putIfAbsent(registration("rolledback@example.com", "654321", LocalDateTime.now().plusMinutes(15)))));
+        assertEquals("654321", store.find("rolledback@example.com").orElseThrow().code());
+    }
+
+    // Shares the outbox mail's transaction, so a registration is stored exactly when its mail is queued
+    @Test
+    public void testDatabaseStoreIsTheDefault() {
+        assertInstanceOf(JpaPendingRegistrationStore.class, pendingRegistrationStore);
+    }
+
+    @Test
+    public void testDatabaseStoreConsumesOnce() throws Exception {
+        PendingRegistrationStore store = new JpaPendingRegistrationStore(verificationCodeRepository);
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    assertTrue(store.putIfAbsent(registration("dbrace@example.com", "123456", LocalDateTime.now().plusMinutes(15)))));
+
+            assertEquals(1, concurrentSuccesses(8,
+                    () -> transactionTemplate.execute(status -> store.consume("dbrace@example.com", "123456"))));
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> verificationCodeRepository.deleteByEmail("dbrace@example.com"));
+        }
+    }
+
+    @Test
+    public void testConcurrentRegistrationsStoreOneCode() throws Exception {
+        String email = "double-register@example.com";
+        UserRegisterRequest request = new UserRegisterRequest();
+        request.setFirstName("Double");
+        request.setSecondName("Register");
+        request.setEmail(email);
+        request.setPassword("password");
+
+        int registrations = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(registrations);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < registrations; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        userService.register(request);
+                        return true;
+                    } catch (BadRequestException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int registered = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    registered++;
+                }
+            }
+            assertEquals(1, registered);
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM verification_code WHERE email = ?", Integer.class, email));
+            // The remaining code is found without tripping over duplicates
+            assertTrue(pendingRegistrationStore.find(email).isPresent());
+        } finally {
+            executor.shutdownNow();
+            jdbcTemplate.update("DELETE FROM verification_code WHERE email = ?", email);
+            jdbcTemplate.update("DELETE FROM mail_outbox WHERE recipient = ?", email);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.Post;
+import com.paradoks.agileproject.repository.ClubRepository;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Inserting 100k posts through Hibernate with sequence ids and JDBC batching, against the same rows in a copy of
+ * the posts table keyed by an identity column, which is how posts were stored before. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class PostInsertBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(PostInsertBenchmark.class);
+
+    private static final int POSTS = 100_000;
+    private static final int FLUSH_EVERY = 500;
+    private static final int ROWS_PER_TRANSACTION = 10_000;
+
+    /** The posts mapping as it was with IDENTITY ids, which keeps Hibernate from batching its inserts. */
+    @Entity
+    @Table(name = "bench_identity_posts")
+    @Getter
+    @Setter
+    public static class IdentityPost {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(nullable = false)
+        private String title;
+
+        @Column(nullable = false, columnDefinition = "TEXT")
+        private String content;
+
+        @ManyToOne(fetch = FetchType.LAZY)
+        @JoinColumn(name = "club_id", nullable = false)
+        private ClubModel club;
+
+        @CreationTimestamp
+        private LocalDateTime creationDate;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClubRepository clubRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Statistics statistics;
+
+    public PostInsertBenchmark(JdbcTemplate jdbcTemplate, ClubRepository clubRepository, EntityManager entityManager,
+                               PlatformTransactionManager transactionManager, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clubRepository = clubRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static Post post(ClubModel club, int i) {
+        Post post = new Post();
+        post.setTitle("bench-insert-post-" + i);
+        post.setContent("content " + i);
+        post.setClub(club);
+        return post;
+    }
+
+    private static IdentityPost identityPost(ClubModel club, int i) {
+        IdentityPost post = new IdentityPost();
+        post.setTitle("bench-insert-post-" + i);
+        post.setContent("content " + i);
+        post.setClub(club);
+        return post;
+    }
+
+    /** Persists {@code rows} entities the way a bulk import would; returns elapsed ms and prepared statements. */
+    private long[] insert(Long clubId, int rows, BiFunction<ClubModel, Integer, Object> factory) {
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int from = 0; from < rows; from += ROWS_PER_TRANSACTION) {
+            int first = from;
+            int last = Math.min(rows, from + ROWS_PER_TRANSACTION);
+            transactionTemplate.executeWithoutResult(status -> {
+                ClubModel club = entityManager.getReference(ClubModel.class, clubId);
+                for (int i = first; i < last; i++) {
+                    entityManager.persist(factory.apply(club, i));
+                    if ((i + 1) % FLUSH_EVERY == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                        club = entityManager.getReference(ClubModel.class, clubId);
+                    }
+                }
+            });
+        }
+        return new long[]{(System.nanoTime() - start) / 1_000_000, statistics.getPrepareStatementCount()};
+    }
+
+    private void deleteRows(Long clubId) {
+        jdbcTemplate.update("DELETE FROM posts WHERE club_id = ?", clubId);
+        jdbcTemplate.update("DELETE FROM bench_identity_posts WHERE club_id = ?", clubId);
+    }
+
+    // Not @Transactional: each chunk commits, as an import would
+    @Test
+    public void benchmarkPostInserts() {
+        ClubModel club = new ClubModel();
+        club.setName("bench-insert-club");
+        club.setEmail("bench-insert@example.com");
+        club.setPassword("x");
+        Long clubId = clubRepository.save(club).getId();
+        try {
+            // Warm up both paths
+            insert(clubId, 5_000, PostInsertBenchmark::identityPost);
+            insert(clubId, 5_000, PostInsertBenchmark::post);
+            deleteRows(clubId);
+
+            long[] identity = insert(clubId, POSTS, PostInsertBenchmark::identityPost);
+            long[] sequence = insert(clubId, POSTS, PostInsertBenchmark::post);
+
+            log.info("Inserting {} posts: identity ids {} ms / {} statements, pooled sequence ids with batching {} ms / {} statements",
+                    POSTS, identity[0], identity[1], sequence[0], sequence[1]);
+
+            assertEquals(POSTS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posts WHERE club_id = ?", Integer.class, clubId));
+            assertEquals(POSTS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bench_identity_posts WHERE club_id = ?", Integer.class, clubId));
+            // One statement per row before; per batch and per 50 ids now
+            assertTrue(identity[1] >= POSTS, "identity statements " + identity[1]);
+            assertTrue(sequence[1] * 20 < identity[1], "sequence statements " + sequence[1]);
+        } finally {
+            deleteRows(clubId);
+            clubRepository.deleteById(clubId);
+        }
+    }
+}
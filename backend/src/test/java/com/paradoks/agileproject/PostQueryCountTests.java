@@ -0,0 +1,126 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.dto.request.ClubUpdateRequest;
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.Post;
+import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.repository.PostRepository;
+import com.paradoks.agileproject.service.ClubService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Post read endpoints must cost a fixed number of statements, however many posts are on the page.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class PostQueryCountTests {
+
+    private final MockMvc mockMvc;
+    private final ClubRepository clubRepository;
+    private final PostRepository postRepository;
+    private final ClubService clubService;
+    private final EntityManager entityManager;
+    private final Statistics statistics;
+
+    public PostQueryCountTests(MockMvc mockMvc, ClubRepository clubRepository, PostRepository postRepository,
+                               ClubService clubService, EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.mockMvc = mockMvc;
+        this.clubRepository = clubRepository;
+        this.postRepository = postRepository;
+        this.clubService = clubService;
+        this.entityManager = entityManager;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private ClubModel createClubWithPosts(String name, int posts) {
+        ClubModel club = new ClubModel();
+        club.setName(name);
+        club.setEmail(name.replace(' ', '-') + "@example.com");
+        club.setPassword("x");
+        club.setTags(new ArrayList<>(List.of("chess", "games")));
+        clubRepository.save(club);
+
+        for (int i = 0; i < posts; i++) {
+            Post post = new Post();
+            post.setTitle("Post " + i);
+            post.setContent("Content " + i);
+            post.setClub(club);
+            postRepository.save(post);
+        }
+        entityManager.flush();
+        return club;
+    }
+
+    private long statementsFor(String url) throws Exception {
+        entityManager.clear();
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @Transactional
+    public void testPostPageIssuesAFixedNumberOfQueries() throws Exception {
+        ClubModel club = createClubWithPosts("Query Count Posts Club", 60);
+        String url = "/api/v1/clubs/" + club.getId() + "/posts?size=50";
+
+        // Club summary (with tags) + post page + count
+        assertEquals(3, statementsFor(url));
+        // Summary cached: post page + count
+        assertEquals(2, statementsFor(url));
+        assertEquals(1, statementsFor(url + "&count=none"));
+        assertEquals(1, statementsFor(url + "&cursor="));
+
+        mockMvc.perform(get(url))
+                .andExpect(jsonPath("$.content.length()").value(50))
+                .andExpect(jsonPath("$.content[49].club.name").value("Query Count Posts Club"))
+                .andExpect(jsonPath("$.content[49].club.tags[1]").value("games"));
+    }
+
+    @Test
+    @Transactional
+    public void testGetPostByIdIssuesOneQueryOnceTheClubIsCached() throws Exception {
+        ClubModel club = createClubWithPosts("Query Count Single Post Club", 2);
+        List<Post> posts = postRepository.findAll().stream()
+                .filter(post -> post.getClub().getId().equals(club.getId()))
+                .toList();
+
+        assertEquals(2, statementsFor("/api/v1/posts/" + posts.get(0).getId()));
+        assertEquals(1, statementsFor("/api/v1/posts/" + posts.get(1).getId()));
+    }
+
+    @Test
+    @Transactional
+    public void testClubUpdateRefreshesTheCachedSummary() throws Exception {
+        ClubModel club = createClubWithPosts("Query Count Renamed Club", 1);
+        String url = "/api/v1/clubs/" + club.getId() + "/posts";
+        mockMvc.perform(get(url)).andExpect(jsonPath("$.content[0].club.name").value("Query Count Renamed Club"));
+
+        ClubUpdateRequest request = new ClubUpdateRequest();
+        request.setName("Query Count Renamed Club 2");
+        clubService.updateClub(club.getId(), request);
+        entityManager.flush();
+
+        mockMvc.perform(get(url)).andExpect(jsonPath("$.content[0].club.name").value("Query Count Renamed Club 2"));
+    }
+}
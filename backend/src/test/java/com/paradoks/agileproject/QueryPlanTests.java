@@ -0,0 +1,289 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.repository.AnnouncementRepository;
+import com.paradoks.agileproject.model.ImageJobStatus;
+import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.repository.ImageJobRepository;
+import com.paradoks.agileproject.repository.OutboxMailRepository;
+import com.paradoks.agileproject.repository.PostRepository;
+import com.paradoks.agileproject.repository.SessionRepository;
+import com.paradoks.agileproject.repository.StoredImageRepository;
+import com.paradoks.agileproject.repository.UserRepository;
+import com.paradoks.agileproject.repository.UserSessionRepository;
+import com.paradoks.agileproject.repository.VerificationCodeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every repository query, run against seeded tables and then EXPLAINed: none may scan a whole table to evaluate
+ * its WHERE clause. Listings without a predicate (the club list and its count) are allowed to read the table.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@TestPropertySource(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.paradoks.agileproject.QueryPlanTests$RecordingStatementInspector")
+public class QueryPlanTests {
+
+    /** Records the SQL the test thread sends while recording. */
+    public static class RecordingStatementInspector implements StatementInspector {
+        private static volatile Thread recordingThread;
+        private static final Set<String> statements = new LinkedHashSet<>();
+
+        static void start() {
+            statements.clear();
+            recordingThread = Thread.currentThread();
+        }
+
+        static Set<String> stop() {
+            recordingThread = null;
+            return statements;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (Thread.currentThread() == recordingThread) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ClubRepository clubRepository;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final SessionRepository sessionRepository;
+    private final UserSessionRepository userSessionRepository;
+    private final VerificationCodeRepository verificationCodeRepository;
+    private final AnnouncementRepository announcementRepository;
+    private final OutboxMailRepository outboxMailRepository;
+    private final ImageJobRepository imageJobRepository;
+    private final StoredImageRepository storedImageRepository;
+
+    public QueryPlanTests(JdbcTemplate jdbcTemplate, EntityManager entityManager, EntityManagerFactory entityManagerFactory,
+                          ClubRepository clubRepository, PostRepository postRepository, UserRepository userRepository,
+                          SessionRepository sessionRepository, UserSessionRepository userSessionRepository,
+                          VerificationCodeRepository verificationCodeRepository, AnnouncementRepository announcementRepository,
+                          OutboxMailRepository outboxMailRepository, ImageJobRepository imageJobRepository,
+                          StoredImageRepository storedImageRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.clubRepository = clubRepository;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.sessionRepository = sessionRepository;
+        this.userSessionRepository = userSessionRepository;
+        this.verificationCodeRepository = verificationCodeRepository;
+        this.announcementRepository = announcementRepository;
+        this.outboxMailRepository = outboxMailRepository;
+        this.imageJobRepository = imageJobRepository;
+        this.storedImageRepository = storedImageRepository;
+    }
+
+    private void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO clubs (id, name, email, password)
+                SELECT NEXT VALUE FOR clubs_seq, 'plan-club-' || X, 'plan-club-' || X || '@example.com', 'x' FROM SYSTEM_RANGE(1, 200)
+                """);
+        jdbcTemplate.update("INSERT INTO club_tags (club_id, tag) SELECT id, 'chess' FROM clubs WHERE name LIKE 'plan-club-%'");
+        jdbcTemplate.update("""
+                INSERT INTO users (id, first_name, last_name, email, password, date_created)
+                SELECT NEXT VALUE FOR users_seq, 'Plan', 'User', 'plan-user-' || X || '@example.com', 'x', NOW() FROM SYSTEM_RANGE(1, 1000)
+                """);
+        jdbcTemplate.update("INSERT INTO user_tags (user_id, tag) SELECT id, 'chess' FROM users WHERE email LIKE 'plan-user-%'");
+        jdbcTemplate.update("""
+                INSERT INTO club_members (club_id, user_id)
+                SELECT c.id, u.id FROM clubs c JOIN users u ON MOD(u.id, 20) = MOD(c.id, 20)
+                WHERE c.name LIKE 'plan-club-%' AND u.email LIKE 'plan-user-%'
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO posts (id, title, content, club_id, creation_date)
+                SELECT NEXT VALUE FOR posts_seq, 'plan-post', 'content', c.id, NOW() FROM clubs c CROSS JOIN SYSTEM_RANGE(1, 20)
+                WHERE c.name LIKE 'plan-club-%'
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO club_sessions (id, club_id, token, created_at, expires_at, active)
+                SELECT NEXT VALUE FOR club_sessions_seq, c.id, 'plan-' || c.id || '-' || X, NOW(), DATEADD('HOUR', 1 - X, NOW()), X = 1
+                FROM clubs c CROSS JOIN SYSTEM_RANGE(1, 10) WHERE c.name LIKE 'plan-club-%'
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO user_sessions (id, user_id, token, created_at, expires_at, active)
+                SELECT NEXT VALUE FOR user_sessions_seq, u.id, 'plan-' || u.id || '-' || X, NOW(), DATEADD('HOUR', 1 - X, NOW()), X = 1
+                FROM users u CROSS JOIN SYSTEM_RANGE(1, 5) WHERE u.email LIKE 'plan-user-%'
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO verification_code (id, code, expiration_time, first_name, last_name, email, password)
+                SELECT NEXT VALUE FOR verification_code_seq, '123456', DATEADD('MINUTE', MOD(X, 30) - 15, NOW()), 'A', 'B',
+                       'plan-code-' || X || '@example.com', 'x' FROM SYSTEM_RANGE(1, 2000)
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO announcement (id, title, content, severity, creation_date, end_date)
+                SELECT NEXT VALUE FOR announcement_seq, 'plan', 'content', 'INFO', NOW(), DATEADD('DAY', X - 1900, NOW())
+                FROM SYSTEM_RANGE(1, 2000)
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO mail_outbox (id, recipient, subject, body, created_at, next_attempt_at, attempts, failed)
+                SELECT NEXT VALUE FOR mail_outbox_seq, 'plan@example.com', 'subject', 'body', NOW(), DATEADD('MINUTE', X, NOW()), 0, MOD(X, 50) = 0
+                FROM SYSTEM_RANGE(1, 2000)
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO image_jobs (id, club_id, kind, status, raw_path, created_at, updated_at, expires_at)
+                SELECT NEXT VALUE FOR image_jobs_seq, c.id, 'BANNER', 'DONE', 'raw', NOW(), NOW(), DATEADD('HOUR', X - 5, NOW())
+                FROM clubs c CROSS JOIN SYSTEM_RANGE(1, 10) WHERE c.name LIKE 'plan-club-%'
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO stored_images (name, ref_count, updated_at)
+                SELECT 'plan-' || X || '.png', MOD(X, 3), DATEADD('MINUTE', -X, NOW()) FROM SYSTEM_RANGE(1, 2000)
+                """);
+    }
+
+    private void runRepositoryQueries() {
+        long clubId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM clubs WHERE name LIKE 'plan-club-%'", Long.class);
+        long userId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users WHERE email LIKE 'plan-user-%'", Long.class);
+        long otherUserId = jdbcTemplate.queryForObject("""
+                SELECT MIN(id) FROM users WHERE email LIKE 'plan-user-%'
+                AND id NOT IN (SELECT user_id FROM club_members WHERE club_id = ?)
+                """, Long.class, clubId);
+        long postId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM posts WHERE club_id = ?", Long.class, clubId);
+        long codeId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM verification_code", Long.class);
+        long imageJobId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM image_jobs WHERE club_id = ?", Long.class, clubId);
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Object> postKeys = new LinkedHashMap<>();
+        postKeys.put("creationDate", now);
+        postKeys.put("id", postId);
+
+        clubRepository.findById(clubId);
+        clubRepository.findByEmail("plan-club-1@example.com");
+        clubRepository.findWithTagsById(clubId);
+        clubRepository.existsByName("plan-club-1");
+        clubRepository.findAllBy(ScrollPosition.forward(Map.of("id", clubId)), Limit.of(20), Sort.by("id"));
+        clubRepository.findResponsesBy(PageRequest.of(2, 20, Sort.by("id")));
+        clubRepository.findResponseSliceBy(PageRequest.of(2, 20, Sort.by("id")));
+        clubRepository.findTagsByClubIds(List.of(clubId, clubId + 50));
+        clubRepository.insertMember(clubId, otherUserId);
+        clubRepository.deleteMember(clubId, otherUserId);
+
+        postRepository.findAllByClub_Id(clubId, ScrollPosition.forward(postKeys), Limit.of(20),
+                Sort.by(Sort.Direction.DESC, "creationDate", "id"));
+        postRepository.countByClub_Id(clubId);
+        postRepository.findWithClubById(postId);
+        postRepository.findViewsByClubId(clubId, PageRequest.of(2, 5, Sort.by("id")));
+        postRepository.findViewSliceByClubId(clubId, PageRequest.of(2, 5, Sort.by("id")));
+        postRepository.findViewById(postId);
+
+        userRepository.findByEmail("plan-user-1@example.com");
+        userRepository.existsByEmail("plan-user-1@example.com");
+        userRepository.findAllByJoinedClubsId(clubId, ScrollPosition.forward(Map.of("id", userId)), Limit.of(20), Sort.by("id"));
+        userRepository.countByJoinedClubsId(clubId);
+        userRepository.findMemberResponsesByClubId(clubId, PageRequest.of(1, 20, Sort.by("id")));
+        userRepository.findMemberResponseSliceByClubId(clubId, PageRequest.of(1, 20, Sort.by("id")));
+        userRepository.findTagsByUserIds(List.of(userId, userId + 50));
+        userRepository.findJoinedClubIdsByUserId(userId);
+        userRepository.lockById(userId);
+        clubRepository.lockById(clubId);
+
+        sessionRepository.findByTokenAndActiveTrue("plan-" + clubId + "-1");
+        sessionRepository.findPrincipalByToken("plan-" + clubId + "-1");
+        sessionRepository.findRevokedTokens(now);
+        sessionRepository.findActiveByClubId(clubId, now);
+        sessionRepository.deactivateAllByClubId(clubId);
+        sessionRepository.deleteExpiredBatch(now.minusDays(1), 100);
+        sessionRepository.deleteByToken("plan-" + clubId + "-2");
+
+        userSessionRepository.findByTokenAndActiveTrue("plan-" + userId + "-1");
+        userSessionRepository.findPrincipalByToken("plan-" + userId + "-1");
+        userSessionRepository.findRevokedTokens(now);
+        userSessionRepository.findActiveByUserId(userId, now);
+        userSessionRepository.deactivateAllByUserId(userId);
+        userSessionRepository.deleteExpiredBatch(now.minusDays(1), 100);
+
+        verificationCodeRepository.findByEmailAndCode("plan-code-1@example.com", "123456");
+        verificationCodeRepository.findByEmail("plan-code-2@example.com");
+        verificationCodeRepository.deleteByEmail("plan-code-3@example.com");
+        verificationCodeRepository.deleteByIdAndCount(codeId);
+        verificationCodeRepository.deleteExpiredBatch(now, 100);
+
+        announcementRepository.findActiveAnnouncements(PageRequest.of(0, 10), Instant.now());
+
+        outboxMailRepository.lockDue(now, 100);
+        outboxMailRepository.countByFailedFalse();
+        outboxMailRepository.countByFailedTrue();
+
+        imageJobRepository.findByIdAndClubId(imageJobId, clubId);
+        imageJobRepository.updateStatus(imageJobId, ImageJobStatus.FAILED, null, "error", now);
+        imageJobRepository.findByStatusInAndUpdatedAtBefore(List.of(ImageJobStatus.PENDING, ImageJobStatus.PROCESSING), now);
+        imageJobRepository.failIfStale(imageJobId, List.of(ImageJobStatus.PENDING, ImageJobStatus.PROCESSING), now, "error", now);
+        imageJobRepository.deleteExpiredBatch(now, 100);
+
+        storedImageRepository.addReferences("plan-1.png", 1, now);
+        storedImageRepository.findUnreferenced(now.minusMinutes(60), Limit.of(100));
+        storedImageRepository.deleteUnreferenced("plan-3.png", now.minusMinutes(1));
+
+        entityManager.flush();
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.query(connection -> connection.prepareStatement("EXPLAIN " + sql),
+                result -> result.next() ? result.getString(1) : "");
+    }
+
+    @Test
+    @Transactional
+    public void testRepositoryQueriesUseIndexes() {
+        seed();
+        // Nothing may be answered from the second-level or query cache
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        entityManager.clear();
+
+        RecordingStatementInspector.start();
+        Set<String> statements;
+        try {
+            runRepositoryQueries();
+        } finally {
+            statements = RecordingStatementInspector.stop();
+        }
+
+        StringBuilder scans = new StringBuilder();
+        int explained = 0;
+        for (String sql : statements) {
+            String lower = sql.toLowerCase();
+            if (lower.startsWith("insert") || lower.contains("next value for")) {
+                continue;
+            }
+            explained++;
+            String plan = explain(sql);
+            if (plan.contains(".tableScan") && lower.contains(" where ")) {
+                scans.append("\n").append(sql).append("\n  -> ").append(plan.replace('\n', ' '));
+            }
+        }
+        assertTrue(explained >= 40, "only " + explained + " statements were recorded");
+        assertTrue(scans.isEmpty(), "Sequential scans:" + scans);
+    }
+}
@@ -0,0 +1,237 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.cache.ResponseCache;
+import com.paradoks.agileproject.dto.request.ClubUpdateRequest;
+import com.paradoks.agileproject.dto.request.CreatePostRequest;
+import com.paradoks.agileproject.dto.request.UserUpdateRequest;
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.Post;
+import com.paradoks.agileproject.model.User;
+import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.repository.PostRepository;
+import com.paradoks.agileproject.repository.UserRepository;
+import com.paradoks.agileproject.service.ClubService;
+import com.paradoks.agileproject.service.PostService;
+import com.paradoks.agileproject.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Anonymous reads are replayed from the response cache until a service write invalidates them.
+ * Not transactional, since invalidation inside a transaction waits for the commit.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@TestPropertySource(properties = "response-cache.enabled=true")
+public class ResponseCacheTests {
+
+    private final MockMvc mockMvc;
+    private final ClubRepository clubRepository;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final ClubService clubService;
+    private final PostService postService;
+    private final UserService userService;
+    private final Statistics statistics;
+
+    public ResponseCacheTests(MockMvc mockMvc, ClubRepository clubRepository, PostRepository postRepository,
+                              UserRepository userRepository, ClubService clubService, PostService postService,
+                              UserService userService, EntityManagerFactory entityManagerFactory) {
+        this.mockMvc = mockMvc;
+        this.clubRepository = clubRepository;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.clubService = clubService;
+        this.postService = postService;
+        this.userService = userService;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private ClubModel createClub(String name) {
+        ClubModel club = new ClubModel();
+        club.setName(name);
+        club.setEmail(name.replace(' ', '-') + "@example.com");
+        club.setPassword("x");
+        club.setTags(new ArrayList<>(List.of("chess")));
+        return clubRepository.save(club);
+    }
+
+    private MockHttpServletResponse fetch(String url, String expectedCache) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Cache", expectedCache))
+                .andReturn().getResponse();
+    }
+
+    @Test
+    public void testHitsSkipTheDatabaseAndWritesInvalidateByTag() throws Exception {
+        ClubModel club = createClub("Response Cache Club");
+        String clubUrl = "/api/v1/clubs/" + club.getId();
+        String postsUrl = clubUrl + "/posts";
+        try {
+            String body = fetch(clubUrl, "MISS").getContentAsString();
+            statistics.clear();
+            assertEquals(body, fetch(clubUrl, "HIT").getContentAsString());
+            assertEquals(0, statistics.getPrepareStatementCount());
+
+            // Parameter order does not matter
+            fetch(postsUrl + "?page=0&size=5", "MISS");
+            fetch(postsUrl + "?size=5&page=0", "HIT");
+
+            CreatePostRequest postRequest = new CreatePostRequest();
+            postRequest.setTitle("Cached post");
+            postRequest.setContent("Content");
+            Post post = postService.createPost(postRequest, club.getId());
+            mockMvc.perform(get(postsUrl + "?page=0&size=5"))
+                    .andExpect(header().string("X-Cache", "MISS"))
+                    .andExpect(jsonPath("$.content[0].title").value("Cached post"));
+            // The club page carries no post data, so it stays cached
+            fetch(clubUrl, "HIT");
+
+            postRequest.setTitle("Edited post");
+            postService.updatePost(post.getId(), postRequest);
+            mockMvc.perform(get(postsUrl + "?page=0&size=5"))
+                    .andExpect(header().string("X-Cache", "MISS"))
+                    .andExpect(jsonPath("$.content[0].title").value("Edited post"));
+
+            // Club updates reach the club page and the club summary embedded in its posts
+            ClubUpdateRequest request = new ClubUpdateRequest();
+            request.setName("Response Cache Club Renamed");
+            clubService.updateClub(club.getId(), request);
+            mockMvc.perform(get(clubUrl))
+                    .andExpect(header().string("X-Cache", "MISS"))
+                    .andExpect(jsonPath("$.name").value("Response Cache Club Renamed"));
+            mockMvc.perform(get(postsUrl + "?page=0&size=5"))
+                    .andExpect(header().string("X-Cache", "MISS"))
+                    .andExpect(jsonPath("$.content[0].club.name").value("Response Cache Club Renamed"));
+        } finally {
+            postRepository.findAll().stream()
+                    .filter(post -> post.getClub().getId().equals(club.getId()))
+                    .forEach(postRepository::delete);
+            clubRepository.deleteById(club.getId());
+        }
+    }
+
+    @Test
+    public void testMembershipToggleInvalidatesTheMemberList() throws Exception {
+        ClubModel club = createClub("Response Cache Members Club");
+        User user = new User();
+        user.setFirstName("Cached");
+        user.setLastName("Member");
+        user.setEmail("response-cache-member@example.com");
+        user.setPassword("x");
+        userRepository.save(user);
+        String url = "/api/v1/clubs/" + club.getId() + "/members";
+        try {
+            mockMvc.perform(get(url)).andExpect(jsonPath("$.content").isEmpty());
+            fetch(url, "HIT");
+
+            clubService.toggleMembership(club.getId(), user.getId());
+            mockMvc.perform(get(url))
+                    .andExpect(header().string("X-Cache", "MISS"))
+                    .andExpect(jsonPath("$.content[0].email").value("response-cache-member@example.com"));
+
+            // Renaming a member reaches the member lists of their clubs
+            fetch(url, "HIT");
+            UserUpdateRequest update = new UserUpdateRequest();
+            update.setFirstName("Renamed");
+            userService.updateUser(user.getId(), update);
+            mockMvc.perform(get(url))
+                    .andExpect(header().string("X-Cache", "MISS"))
+                    .andExpect(jsonPath("$.content[0].firstName").value("Renamed"));
+
+            clubService.toggleMembership(club.getId(), user.getId());
+        } finally {
+            clubRepository.deleteById(club.getId());
+            userRepository.deleteById(user.getId());
+        }
+    }
+
+    @Test
+    public void testRemovedResponsesLeaveNoTagLinksBehind() {
+        ResponseCache cache = new ResponseCache(60, 1 << 20, new SimpleMeterRegistry());
+        ResponseCache.CachedResponse response = new ResponseCache.CachedResponse(Map.of(), new byte[]{1}, null,
+                Set.of(ResponseCache.club(1L), ResponseCache.clubPosts(1L)));
+
+        // Dropped right away because a write committed while it was rendered
+        long version = cache.version();
+        cache.invalidate(ResponseCache.CLUBS);
+        cache.put("/api/v1/clubs/1/posts", response, version);
+        assertNull(cache.get("/api/v1/clubs/1/posts"));
+        assertEquals(0, cache.taggedKeys());
+
+        // Invalidating one tag unlinks the entry from its other tags as well
+        cache.put("/api/v1/clubs/1/posts", response, cache.version());
+        assertEquals(2, cache.taggedKeys());
+        cache.invalidate(ResponseCache.clubPosts(1L));
+        assertNull(cache.get("/api/v1/clubs/1/posts"));
+        assertEquals(0, cache.taggedKeys());
+    }
+
+    @Test
+    public void testLargeResponsesAreServedGzippedAndSessionsBypassTheCache() throws Exception {
+        ClubModel club = createClub("Response Cache Gzip Club");
+        String url = "/api/v1/clubs/" + club.getId() + "/posts?size=50";
+        try {
+            for (int i = 0; i < 20; i++) {
+                Post post = new Post();
+                post.setTitle("Gzip post " + i);
+                post.setContent("A long enough body to make the page worth compressing " + i);
+                post.setClub(club);
+                postRepository.save(post);
+            }
+
+            byte[] plain = fetch(url, "MISS").getContentAsByteArray();
+            MockHttpServletResponse gzipped = mockMvc.perform(get(url).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                    .andExpect(header().string("X-Cache", "HIT"))
+                    .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                    .andReturn().getResponse();
+            assertTrue(gzipped.getContentAsByteArray().length < plain.length);
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+                assertArrayEquals(plain, in.readAllBytes());
+            }
+            assertTrue(new String(plain, StandardCharsets.UTF_8).contains("Gzip post 19"));
+
+            // Requests with a session are never answered from the cache
+            MockHttpServletResponse withSession = mockMvc.perform(get(url).cookie(new Cookie("USER_SESSION", "unknown")))
+                    .andReturn().getResponse();
+            assertNull(withSession.getHeader("X-Cache"));
+        } finally {
+            postRepository.findAll().stream()
+                    .filter(post -> post.getClub().getId().equals(club.getId()))
+                    .forEach(postRepository::delete);
+            clubRepository.deleteById(club.getId());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.paradoks.agileproject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paradoks.agileproject.dto.request.LoginRequest;
+import com.paradoks.agileproject.dto.request.RegisterRequest;
+import com.paradoks.agileproject.repository.ClubRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements each route issues, to make sure session cookies only cost a lookup
+ * on routes that actually ask for the current principal.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class RouteQueryCountTests {
+
+    private static final String PICTURE = "/pictures/31aa4872-0162-45c8-8eb6-8c9d98d1c1d8.png";
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final ClubRepository clubRepository;
+    private final EntityManager entityManager;
+    private final Statistics statistics;
+
+    public RouteQueryCountTests(MockMvc mockMvc, ObjectMapper objectMapper, ClubRepository clubRepository,
+                                EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.clubRepository = clubRepository;
+        this.entityManager = entityManager;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private Cookie registerAndLogin(String clubName, String email, String password) throws Exception {
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setClubName(clubName);
+        registerRequest.setEmail(email);
+        registerRequest.setPassword(password);
+
+        mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isOk());
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(email);
+        loginRequest.setPassword(password);
+
+        return mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie("CLUB_SESSION");
+    }
+
+    private long statementsFor(MockHttpServletRequestBuilder request, int expectedStatus) throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().is(expectedStatus));
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @Transactional
+    public void testPublicRoutesDoNotResolveTheSession() throws Exception {
+        // Logged in but never used, so any session lookup would be a cache miss and hit the database
+        Cookie sessionCookie = registerAndLogin("Query Count Club", "querycount@example.com", "password");
+        Long clubId = clubRepository.findByEmail("querycount@example.com").orElseThrow().getId();
+
+        assertEquals(0, statementsFor(get(PICTURE).cookie(sessionCookie), 200));
+
+        assertEquals(statementsFor(get("/api/v1/announcements"), 200),
+                statementsFor(get("/api/v1/announcements").cookie(sessionCookie), 200));
+
+        assertEquals(statementsFor(get("/api/v1/clubs/" + clubId), 200),
+                statementsFor(get("/api/v1/clubs/" + clubId).cookie(sessionCookie), 200));
+
+        assertEquals(0, statementsFor(get("/api/v1/auth/me"), 401));
+    }
+
+    @Test
+    @Transactional
+    public void testAuthenticatedRouteResolvesTheSessionOnce() throws Exception {
+        Cookie sessionCookie = registerAndLogin("Query Count Me Club", "querycountme@example.com", "password");
+
+        long firstCall = statementsFor(get("/api/v1/auth/me").cookie(sessionCookie), 200);
+        long cachedCall = statementsFor(get("/api/v1/auth/me").cookie(sessionCookie), 200);
+
+        // The only difference is the one session lookup, which is cached afterwards
+        assertEquals(1, firstCall - cachedCall);
+    }
+}
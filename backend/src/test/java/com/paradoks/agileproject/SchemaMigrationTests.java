@@ -0,0 +1,99 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.migration.AlignIdSequencesMigration;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.exception.FlywayValidateException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The migrations on their own databases: validate-only startup refuses pending migrations, databases created by
+ * ddl-auto are baselined and upgraded, and sequences are moved past ids written before they existed.
+ */
+public class SchemaMigrationTests {
+
+    private static DataSource dataSource(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static Flyway flyway(DataSource dataSource, String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .javaMigrations(new AlignIdSequencesMigration())
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .target(target)
+                .load();
+    }
+
+    @Test
+    public void testValidateFailsUntilEveryMigrationIsApplied() {
+        DataSource dataSource = dataSource("schema-validate");
+        Flyway flyway = flyway(dataSource, "latest");
+
+        // What schema.startup-mode=validate runs instead of migrating
+        assertThrows(FlywayValidateException.class, flyway::validate);
+        flyway.migrate();
+        assertDoesNotThrow(flyway::validate);
+    }
+
+    @Test
+    public void testSequencesAreMovedPastExistingIds() {
+        DataSource dataSource = dataSource("schema-align");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        flyway(dataSource, "1").migrate();
+        // Rows written before ids came from the sequence
+        jdbcTemplate.update("INSERT INTO clubs (id, name, email, password) VALUES (1000, 'Legacy Club', 'legacy@example.com', 'x')");
+
+        flyway(dataSource, "latest").migrate();
+
+        // Hibernate uses the 50 ids ending at the value it draws
+        long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR clubs_seq", Long.class);
+        assertTrue(next - 49 > 1000, "clubs_seq handed out " + next);
+        long users = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR users_seq", Long.class);
+        assertTrue(users == 1, "empty tables keep their sequence, got " + users);
+    }
+
+    @Test
+    public void testDatabaseCreatedByDdlAutoIsBaselinedAndUpgraded() {
+        DataSource dataSource = dataSource("schema-baseline");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // The schema the application created before Flyway, with no history table
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline_schema.sql")).execute(dataSource);
+        jdbcTemplate.update("INSERT INTO users (id, first_name, last_name, email, password, date_created) "
+                + "VALUES (7, 'Legacy', 'User', 'legacy-user@example.com', 'x', CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO clubs (id, name, email, password) VALUES (3, 'Legacy Club', 'legacy@example.com', 'x')");
+        jdbcTemplate.update("INSERT INTO club_members (club_id, user_id) VALUES (3, 7), (3, 7)");
+        // Two pending registrations for one email, left by racing registrations
+        jdbcTemplate.update("INSERT INTO verification_code (id, code, expiration_time, first_name, last_name, email, password) "
+                + "VALUES (1, '111111', CURRENT_TIMESTAMP, 'A', 'B', 'pending@example.com', 'x'), "
+                + "(2, '222222', CURRENT_TIMESTAMP, 'A', 'B', 'pending@example.com', 'x')");
+
+        flyway(dataSource, "latest").migrate();
+
+        assertEquals("1", jdbcTemplate.queryForObject(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"type\" = 'BASELINE'", String.class));
+        // Everything added after V1 is there
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM mail_outbox", Integer.class));
+        jdbcTemplate.update("INSERT INTO user_sessions (id, token, user_id, created_at, expires_at, active) "
+                + "VALUES (1, ?, 7, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, TRUE)", "t".repeat(128));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM club_members", Integer.class));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("INSERT INTO club_members (club_id, user_id) VALUES (3, 7)"));
+        assertEquals("222222", jdbcTemplate.queryForObject("SELECT code FROM verification_code WHERE email = 'pending@example.com'", String.class));
+        long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR users_seq", Long.class);
+        assertTrue(next - 49 > 7, "users_seq handed out " + next);
+    }
+}
@@ -0,0 +1,176 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.dto.request.ClubUpdateRequest;
+import com.paradoks.agileproject.dto.request.UserUpdateRequest;
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.User;
+import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.repository.UserRepository;
+import com.paradoks.agileproject.service.ClubService;
+import com.paradoks.agileproject.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Clubs, users and their tags come from the second-level cache once loaded, and writes keep it current.
+ * Not transactional: cache entries are only shared between sessions after a commit.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class SecondLevelCacheTests {
+
+    private final MockMvc mockMvc;
+    private final ClubRepository clubRepository;
+    private final UserRepository userRepository;
+    private final ClubService clubService;
+    private final UserService userService;
+    private final MeterRegistry meterRegistry;
+    private final Statistics statistics;
+
+    public SecondLevelCacheTests(MockMvc mockMvc, ClubRepository clubRepository, UserRepository userRepository,
+                                 ClubService clubService, UserService userService, MeterRegistry meterRegistry,
+                                 EntityManagerFactory entityManagerFactory) {
+        this.mockMvc = mockMvc;
+        this.clubRepository = clubRepository;
+        this.userRepository = userRepository;
+        this.clubService = clubService;
+        this.userService = userService;
+        this.meterRegistry = meterRegistry;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private ClubModel createClub(String name) {
+        ClubModel club = new ClubModel();
+        club.setName(name);
+        club.setEmail(name.replace(' ', '-') + "@example.com");
+        club.setPassword("x");
+        club.setTags(new ArrayList<>(List.of("chess", "games")));
+        return clubRepository.save(club);
+    }
+
+    private User createUser(String email) {
+        User user = new User();
+        user.setFirstName("Cached");
+        user.setLastName("User");
+        user.setEmail(email);
+        user.setPassword("x");
+        user.setTags(new ArrayList<>(List.of("hiking")));
+        return userRepository.save(user);
+    }
+
+    private long statementsFor(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long statementsFor(String url) {
+        return statementsFor(() -> {
+            try {
+                mockMvc.perform(get(url)).andExpect(status().isOk());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    public void testClubPageIsServedFromTheCacheAndUpdatesAreVisible() throws Exception {
+        Long clubId = createClub("Second Level Club").getId();
+        User user = createUser("second-level-member@example.com");
+        String url = "/api/v1/clubs/" + clubId;
+        try {
+            statementsFor(url);
+            assertEquals(0, statementsFor(url));
+            assertTrue(statistics.getDomainDataRegionStatistics("clubs").getHitCount() > 0);
+            assertTrue(meterRegistry.get("hibernate.cache.hit.ratio").tag("region", "club-tags").gauge().value() > 0);
+
+            // Toggling membership writes the join table natively without clearing the club regions
+            assertTrue(clubService.toggleMembership(clubId, user.getId()));
+            assertFalse(clubService.toggleMembership(clubId, user.getId()));
+            assertEquals(0, statementsFor(url));
+
+            ClubUpdateRequest request = new ClubUpdateRequest();
+            request.setName("Second Level Club Renamed");
+            request.setTags(List.of("go"));
+            clubService.updateClub(clubId, request);
+            mockMvc.perform(get(url))
+                    .andExpect(jsonPath("$.name").value("Second Level Club Renamed"))
+                    .andExpect(jsonPath("$.tags.length()").value(1))
+                    .andExpect(jsonPath("$.tags[0]").value("go"));
+
+            ClubUpdateRequest description = new ClubUpdateRequest();
+            description.setDescription("Cached description");
+            clubService.updateClub(clubId, description);
+            mockMvc.perform(get(url)).andExpect(jsonPath("$.description").value("Cached description"));
+        } finally {
+            clubRepository.deleteById(clubId);
+            userRepository.deleteById(user.getId());
+        }
+    }
+
+    @Test
+    public void testUserIsServedFromTheCacheAndUpdatesAreVisible() {
+        Long userId = createUser("second-level-user@example.com").getId();
+        try {
+            userService.getUser(userId);
+            assertEquals(0, statementsFor(() -> userService.getUser(userId)));
+
+            UserUpdateRequest request = new UserUpdateRequest();
+            request.setFirstName("Renamed");
+            request.setTags(List.of("climbing", "chess"));
+            userService.updateUser(userId, request);
+
+            User user = userService.getUser(userId);
+            assertEquals("Renamed", user.getFirstName());
+            assertEquals(List.of("climbing", "chess"), user.getTags());
+        } finally {
+            userRepository.deleteById(userId);
+        }
+    }
+
+    @Test
+    public void testEmailAndNameLookupsUseTheQueryCache() {
+        Long clubId = createClub("Query Cache Club").getId();
+        Long userId = createUser("query-cache-user@example.com").getId();
+        Long otherClubId = null;
+        try {
+            assertTrue(clubRepository.existsByName("Query Cache Club"));
+            assertEquals(0, statementsFor(() -> assertTrue(clubRepository.existsByName("Query Cache Club"))));
+
+            userRepository.findByEmail("query-cache-user@example.com").orElseThrow();
+            assertEquals(0, statementsFor(() -> userRepository.findByEmail("query-cache-user@example.com").orElseThrow()));
+            assertTrue(statistics.getQueryCacheHitCount() > 0);
+
+            // Any write to the clubs table invalidates the cached results
+            otherClubId = createClub("Query Cache Other Club").getId();
+            assertEquals(1, statementsFor(() -> assertTrue(clubRepository.existsByName("Query Cache Club"))));
+        } finally {
+            clubRepository.deleteById(clubId);
+            if (otherClubId != null) {
+                clubRepository.deleteById(otherClubId);
+            }
+            userRepository.deleteById(userId);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.paradoks.agileproject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paradoks.agileproject.dto.request.LoginRequest;
+import com.paradoks.agileproject.dto.request.RegisterRequest;
+import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.service.ClubSessionService;
+import com.paradoks.agileproject.service.SessionRevocationList;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class SessionCacheTests {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final ClubSessionService clubSessionService;
+    private final MeterRegistry meterRegistry;
+    private final ClubRepository clubRepository;
+    private final SessionRevocationList revocationList;
+    private final JdbcTemplate jdbcTemplate;
+
+    public SessionCacheTests(MockMvc mockMvc, ObjectMapper objectMapper, ClubSessionService clubSessionService, MeterRegistry meterRegistry, ClubRepository clubRepository,
+                             SessionRevocationList revocationList, JdbcTemplate jdbcTemplate) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.clubSessionService = clubSessionService;
+        this.meterRegistry = meterRegistry;
+        this.clubRepository = clubRepository;
+        this.revocationList = revocationList;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private Cookie registerAndLogin(String clubName, String email, String password) throws Exception {
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setClubName(clubName);
+        registerRequest.setEmail(email);
+        registerRequest.setPassword(password);
+
+        mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isOk());
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(email);
+        loginRequest.setPassword(password);
+
+        return mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie("CLUB_SESSION");
+    }
+
+    private double clubSessionGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "clubSessions")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+
+    @Test
+    @Transactional
+    public void testRepeatedRequestsAreServedFromCache() throws Exception {
+        Cookie sessionCookie = registerAndLogin("Cached Club", "cached@example.com", "password");
+
+        double missesBefore = clubSessionGets("miss");
+        double hitsBefore = clubSessionGets("hit");
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/v1/auth/me").cookie(sessionCookie))
+                    .andExpect(status().isOk());
+        }
+
+        // The token is resolved once per request and only the very first lookup goes to the database
+        assertEquals(1, clubSessionGets("miss") - missesBefore);
+        assertEquals(2, clubSessionGets("hit") - hitsBefore);
+    }
+
+    @Test
+    @Transactional
+    public void testInvalidatedSessionIsRejectedImmediately() throws Exception {
+        Cookie sessionCookie = registerAndLogin("Invalidated Club", "invalidated@example.com", "password");
+
+        mockMvc.perform(get("/api/v1/auth/me").cookie(sessionCookie))
+                .andExpect(status().isOk());
+
+        clubSessionService.invalidateSession(sessionCookie.getValue());
+
+        mockMvc.perform(get("/api/v1/auth/me").cookie(sessionCookie))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @Transactional
+    public void testLogoutOnAnotherInstanceIsPickedUpByTheRevocationRefresh() throws Exception {
+        Cookie sessionCookie = registerAndLogin("Remote Logout Club", "remotelogout@example.com", "password");
+
+        mockMvc.perform(get("/api/v1/auth/me").cookie(sessionCookie))
+                .andExpect(status().isOk());
+
+        // Another instance logs the session out: only the row changes, this instance's cache still has it
+        jdbcTemplate.update("UPDATE club_sessions SET active = false WHERE token = ?", sessionCookie.getValue());
+        mockMvc.perform(get("/api/v1/auth/me").cookie(sessionCookie))
+                .andExpect(status().isOk());
+
+        revocationList.refresh();
+        mockMvc.perform(get("/api/v1/auth/me").cookie(sessionCookie))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @Transactional
+    public void testInvalidateAllSessionsForClub() throws Exception {
+        Cookie firstSession = registerAndLogin("Bulk Logout Club", "bulklogout@example.com", "password");
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("bulklogout@example.com");
+        loginRequest.setPassword("password");
+        Cookie secondSession = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie("CLUB_SESSION");
+
+        mockMvc.perform(get("/api/v1/auth/me").cookie(firstSession))
+                .andExpect(status().isOk());
+        Long clubId = clubRepository.findByEmail("bulklogout@example.com").orElseThrow().getId();
+
+        assertEquals(2, clubSessionService.invalidateAllSessions(clubId));
+
+        mockMvc.perform(get("/api/v1/auth/me").cookie(firstSession))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/v1/auth/me").cookie(secondSession))
+                .andExpect(status().isUnauthorized());
+    }
+}
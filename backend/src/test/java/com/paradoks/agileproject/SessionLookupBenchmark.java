@@ -0,0 +1,109 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.repository.SessionRepository;
+import com.paradoks.agileproject.service.ClubSessionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Active-session lookup cost with a small and a very large club_sessions table.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class SessionLookupBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionLookupBenchmark.class);
+
+    private static final int CLUBS = 10_000;
+    private static final int LOOKUPS = 2_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClubSessionService clubSessionService;
+    private final SessionRepository sessionRepository;
+
+    public SessionLookupBenchmark(JdbcTemplate jdbcTemplate, ClubSessionService clubSessionService, SessionRepository sessionRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clubSessionService = clubSessionService;
+        this.sessionRepository = sessionRepository;
+    }
+
+    // Ids come from a sequence with gaps, so sessions are spread over the clubs by joining rather than by id arithmetic
+    private void insertSessions(int perClub, boolean active) {
+        jdbcTemplate.update("""
+                INSERT INTO club_sessions (id, club_id, token, created_at, expires_at, active)
+                SELECT NEXT VALUE FOR club_sessions_seq, c.id, 'bench-' || c.id || '-' || r.X || CASEWHEN(?, '-live', ''),
+                       NOW(), DATEADD('HOUR', CASEWHEN(?, 24, -24), NOW()), ?
+                FROM clubs c CROSS JOIN SYSTEM_RANGE(1, ?) r WHERE c.name LIKE 'bench-club-%'
+                """, active, active, active, perClub);
+    }
+
+    private double averageLookupMicros(List<Long> clubIds) {
+        ClubModel club = new ClubModel();
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            club.setId(clubIds.get((int) ((i * 7919L) % CLUBS)));
+            assertTrue(clubSessionService.getActiveSession(club).isPresent());
+        }
+        return (System.nanoTime() - start) / 1_000.0 / LOOKUPS;
+    }
+
+    // Not @Transactional: a single test-wide persistence context would dominate the timings
+    @Test
+    public void benchmarkActiveSessionLookup() {
+        try {
+            runBenchmark();
+        } finally {
+            jdbcTemplate.update("DELETE FROM club_sessions WHERE token LIKE 'bench-%'");
+            jdbcTemplate.update("DELETE FROM clubs WHERE name LIKE 'bench-club-%'");
+        }
+    }
+
+    private void runBenchmark() {
+        jdbcTemplate.update("""
+                INSERT INTO clubs (id, name, email, password)
+                SELECT NEXT VALUE FOR clubs_seq, 'bench-club-' || X, 'bench' || X || '@example.com', 'x' FROM SYSTEM_RANGE(1, ?)
+                """, CLUBS);
+        List<Long> clubIds = jdbcTemplate.queryForList("SELECT id FROM clubs WHERE name LIKE 'bench-club-%' ORDER BY id", Long.class);
+
+        // One live session per club plus expired history
+        insertSessions(1, true);
+        for (int i = 0; i < 5; i++) {
+            averageLookupMicros(clubIds); // warm up
+        }
+        double small = averageLookupMicros(clubIds);
+
+        long start = System.nanoTime();
+        sessionRepository.findAll();
+        double fullScanMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        insertSessions(1_000_000 / CLUBS - 1, false);
+        averageLookupMicros(clubIds);
+        double large = averageLookupMicros(clubIds);
+
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT * FROM club_sessions WHERE club_id = ? AND active = TRUE AND expires_at > ? ORDER BY expires_at DESC",
+                String.class, clubIds.get(0), LocalDateTime.now());
+
+        log.info("Active session lookup: {} rows -> {} us, 1000000 rows -> {} us (old findAll() scan of {} rows alone took {} ms)",
+                CLUBS, String.format("%.1f", small), String.format("%.1f", large), CLUBS, String.format("%.1f", fullScanMillis));
+        log.info("Plan: {}", plan.replace('\n', ' '));
+
+        assertTrue(plan.toLowerCase().contains("idx_club_sessions_club_active_expires"), plan);
+        assertTrue(large < small * 3, "Lookup time grew with table size: " + small + "us -> " + large + "us");
+    }
+}
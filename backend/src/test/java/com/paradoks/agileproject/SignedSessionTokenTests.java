@@ -0,0 +1,107 @@
+package com.paradoks.agileproject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paradoks.agileproject.dto.request.LoginRequest;
+import com.paradoks.agileproject.dto.request.RegisterRequest;
+import com.paradoks.agileproject.service.ClubSessionService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "session.token-mode=signed",
+        "session.signing-secret=test-signing-secret-with-at-least-32-chars"
+})
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+public class SignedSessionTokenTests {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final ClubSessionService clubSessionService;
+
+    public SignedSessionTokenTests(MockMvc mockMvc, ObjectMapper objectMapper, ClubSessionService clubSessionService) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = objectMapper;
+        this.clubSessionService = clubSessionService;
+    }
+
+    private Cookie registerAndLogin(String clubName, String email, String password) throws Exception {
+        RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setClubName(clubName);
+        registerRequest.setEmail(email);
+        registerRequest.setPassword(password);
+
+        mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isOk());
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(email);
+        loginRequest.setPassword(password);
+
+        return mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie("CLUB_SESSION");
+    }
+
+    @Test
+    @Transactional
+    public void testSignedTokenIsAccepted() throws Exception {
+        Cookie sessionCookie = registerAndLogin("Signed Club", "signed@example.com", "password");
+        assertTrue(sessionCookie.getValue().startsWith("club."));
+
+        mockMvc.perform(get("/api/v1/auth/me").cookie(sessionCookie))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Signed Club"));
+    }
+
+    @Test
+    @Transactional
+    public void testTamperedTokenIsRejected() throws Exception {
+        Cookie sessionCookie = registerAndLogin("Tampered Club", "tampered@example.com", "password");
+        String[] parts = sessionCookie.getValue().split("\\.");
+        parts[1] = String.valueOf(Long.parseLong(parts[1]) + 1);
+
+        mockMvc.perform(get("/api/v1/auth/me").cookie(new Cookie("CLUB_SESSION", String.join(".", parts))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @Transactional
+    public void testClubTokenIsNotAcceptedAsUserToken() throws Exception {
+        Cookie sessionCookie = registerAndLogin("Wrong Kind Club", "wrongkind@example.com", "password");
+
+        mockMvc.perform(get("/api/v1/auth/user/me").cookie(new Cookie("USER_SESSION", sessionCookie.getValue())))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @Transactional
+    public void testRevokedTokenIsRejected() throws Exception {
+        Cookie sessionCookie = registerAndLogin("Revoked Club", "revoked@example.com", "password");
+
+        clubSessionService.invalidateSession(sessionCookie.getValue());
+
+        mockMvc.perform(get("/api/v1/auth/me").cookie(sessionCookie))
+                .andExpect(status().isUnauthorized());
+    }
+}
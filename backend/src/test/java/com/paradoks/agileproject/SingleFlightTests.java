@@ -0,0 +1,218 @@
+package com.paradoks.agileproject;
+
+import com.paradoks.agileproject.exception.NotFoundException;
+import com.paradoks.agileproject.model.ClubModel;
+import com.paradoks.agileproject.model.Post;
+import com.paradoks.agileproject.model.User;
+import com.paradoks.agileproject.repository.ClubRepository;
+import com.paradoks.agileproject.repository.PostRepository;
+import com.paradoks.agileproject.repository.UserRepository;
+import com.paradoks.agileproject.service.ClubService;
+import com.paradoks.agileproject.service.PostService;
+import com.paradoks.agileproject.service.UserService;
+import com.paradoks.agileproject.utils.SingleFlight;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent lookups of one id share a single load. The first SELECT on the table is held back until
+ * every caller is waiting, so the overlap does not depend on timing.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+@TestPropertySource(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.paradoks.agileproject.SingleFlightTests$PausingStatementInspector")
+public class SingleFlightTests {
+
+    private static final int CALLERS = 16;
+
+    /** Blocks statements selecting from one table while paused, counting them. */
+    public static class PausingStatementInspector implements StatementInspector {
+        private static volatile String table;
+        private static volatile CountDownLatch gate;
+        private static final AtomicInteger matched = new AtomicInteger();
+
+        static void pause(String tableName) {
+            matched.set(0);
+            gate = new CountDownLatch(1);
+            table = tableName;
+        }
+
+        static void resume() {
+            table = null;
+            gate.countDown();
+        }
+
+        @Override
+        public String inspect(String sql) {
+            String paused = table;
+            if (paused != null && sql.contains(" from " + paused + " ")) {
+                matched.incrementAndGet();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return sql;
+        }
+    }
+
+    private final ClubRepository clubRepository;
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final ClubService clubService;
+    private final UserService userService;
+    private final PostService postService;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SingleFlightTests(ClubRepository clubRepository, UserRepository userRepository, PostRepository postRepository,
+                             ClubService clubService, UserService userService, PostService postService,
+                             EntityManagerFactory entityManagerFactory) {
+        this.clubRepository = clubRepository;
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.clubService = clubService;
+        this.userService = userService;
+        this.postService = postService;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /** Runs the lookup from CALLERS threads at once and returns how many SELECTs reached the table. */
+    private <T> int concurrentLoads(String table, Supplier<T> lookup) throws InterruptedException {
+        // Cold start: nothing in the second-level cache
+        entityManagerFactory.getCache().evictAll();
+        Queue<Object> results = new ConcurrentLinkedQueue<>();
+        List<Thread> callers = new ArrayList<>();
+
+        PausingStatementInspector.pause(table);
+        try {
+            for (int i = 0; i < CALLERS; i++) {
+                Thread caller = new Thread(() -> results.add(lookup.get()));
+                callers.add(caller);
+                caller.start();
+            }
+            awaitAllWaiting(callers);
+        } finally {
+            PausingStatementInspector.resume();
+        }
+        for (Thread caller : callers) {
+            caller.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        assertEquals(CALLERS, results.size());
+        Object first = results.peek();
+        results.forEach(result -> assertSame(first, result));
+        return PausingStatementInspector.matched.get();
+    }
+
+    private static void awaitAllWaiting(List<Thread> threads) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (PausingStatementInspector.matched.get() == 0
+                || !threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+            assertTrue(System.nanoTime() < deadline, "callers did not all block");
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testConcurrentEntityLookupsIssueOneQuery() throws Exception {
+        ClubModel club = new ClubModel();
+        club.setName("Single Flight Club");
+        club.setEmail("single-flight@example.com");
+        club.setPassword("x");
+        club.setTags(new ArrayList<>(List.of("chess")));
+        clubRepository.save(club);
+
+        User user = new User();
+        user.setFirstName("Single");
+        user.setLastName("Flight");
+        user.setEmail("single-flight-user@example.com");
+        user.setPassword("x");
+        userRepository.save(user);
+
+        Post post = new Post();
+        post.setTitle("Single flight");
+        post.setContent("Content");
+        post.setClub(club);
+        postRepository.save(post);
+        try {
+            assertEquals(1, concurrentLoads("clubs", () -> clubService.getClub(club.getId())));
+            assertEquals(1, concurrentLoads("users", () -> userService.getUser(user.getId())));
+            assertEquals(1, concurrentLoads("posts", () -> postService.getPostById(post.getId())));
+            assertEquals(1, concurrentLoads("posts", () -> postService.getPostView(post.getId())));
+
+            // Nothing is kept after the load: the next call queries again
+            assertEquals(1, concurrentLoads("posts", () -> postService.getPostView(post.getId())));
+        } finally {
+            postRepository.deleteById(post.getId());
+            clubRepository.deleteById(club.getId());
+            userRepository.deleteById(user.getId());
+        }
+    }
+
+    @Test
+    public void testFailuresAreSharedWithWaitingCallers() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> callers = new ArrayList<>();
+
+        for (int i = 0; i < CALLERS; i++) {
+            Thread caller = new Thread(() -> {
+                try {
+                    singleFlight.load(1L, () -> {
+                        loads.incrementAndGet();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new NotFoundException("Club not found");
+                    });
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
+            });
+            callers.add(caller);
+            caller.start();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (loads.get() == 0 || !callers.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+            assertTrue(System.nanoTime() < deadline, "callers did not all block");
+            Thread.sleep(5);
+        }
+        release.countDown();
+        for (Thread caller : callers) {
+            caller.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(CALLERS, failures.size());
+        failures.forEach(failure -> assertInstanceOf(NotFoundException.class, failure));
+
+        // A failed load is not remembered
+        assertEquals("loaded", singleFlight.load(1L, () -> "loaded"));
+    }
+}
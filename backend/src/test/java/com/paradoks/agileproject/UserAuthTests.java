@@ -4,18 +4,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paradoks.agileproject.dto.request.UserLoginRequest;
 import com.paradoks.agileproject.dto.request.UserRegisterRequest;
 import com.paradoks.agileproject.dto.request.UserUpdateRequest;
-import com.paradoks.agileproject.model.VerificationCode;
-import com.paradoks.agileproject.repository.VerificationCodeRepository;
+import com.paradoks.agileproject.model.PendingRegistration;
+import com.paradoks.agileproject.service.PendingRegistrationStore;
 import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestConstructor;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
 
@@ -33,164 +33,176 @@ public class UserAuthTests {
 
     private final MockMvc mockMvc;
     private final ObjectMapper objectMapper;
-    private final VerificationCodeRepository verificationCodeRepository;
+    private final PendingRegistrationStore pendingRegistrationStore;
+    private final JdbcTemplate jdbcTemplate;
 
-    public UserAuthTests(MockMvc mockMvc, ObjectMapper objectMapper, VerificationCodeRepository verificationCodeRepository) {
+    public UserAuthTests(MockMvc mockMvc, ObjectMapper objectMapper, PendingRegistrationStore pendingRegistrationStore,
+                         JdbcTemplate jdbcTemplate) {
         this.mockMvc = mockMvc;
         this.objectMapper = objectMapper;
-        this.verificationCodeRepository = verificationCodeRepository;
+        this.pendingRegistrationStore = pendingRegistrationStore;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Register and login commit their own transactions after hashing, so the tests commit too and clean up here
+    private void deleteUser(String email) {
+        jdbcTemplate.update("DELETE FROM user_sessions WHERE user_id IN (SELECT id FROM users WHERE email = ?)", email);
+        jdbcTemplate.update("DELETE FROM user_tags WHERE user_id IN (SELECT id FROM users WHERE email = ?)", email);
+        jdbcTemplate.update("DELETE FROM users WHERE email = ?", email);
+        jdbcTemplate.update("DELETE FROM verification_code WHERE email = ?", email);
+        jdbcTemplate.update("DELETE FROM mail_outbox WHERE recipient = ?", email);
     }
 
     @Test
-    @Transactional
     public void testUserRegisterVerifyAndLogin() throws Exception {
         String email = "newuser@example.com";
         String password = "StrongPassword123!";
-
-        // 1. Register User
-        UserRegisterRequest registerRequest = new UserRegisterRequest();
-        registerRequest.setFirstName("John");
-        registerRequest.setSecondName("Doe");
-        registerRequest.setEmail(email);
-        registerRequest.setPassword(password);
-
-        mockMvc.perform(post("/api/v1/auth/user/register")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(registerRequest)))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.message").value("Verification code sent to email"));
-
-        // 2. Get Verification Code from Repository
-        VerificationCode verificationCode = verificationCodeRepository.findAll().stream()
-                .filter(vc -> vc.getEmail().equals(email))
-                .findFirst()
-                .orElse(null);
-
-        assertNotNull(verificationCode, "Verification code should exist in DB");
-        String code = verificationCode.getCode();
-
-        // 3. Verify User
-        mockMvc.perform(post("/api/v1/auth/user/verify")
-                        .param("email", email)
-                        .param("code", code))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.message").value("User registered successfully"));
-
-        // 4. Login User
-        UserLoginRequest loginRequest = new UserLoginRequest();
-        loginRequest.setEmail(email);
-        loginRequest.setPassword(password);
-
-        Cookie sessionCookie = mockMvc.perform(post("/api/v1/auth/user/login")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(loginRequest)))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.success").value(true))
-                .andExpect(cookie().exists("USER_SESSION"))
-                .andReturn().getResponse().getCookie("USER_SESSION");
-
-        // 5. Test /user/me (Verifies UserSessionService)
-        mockMvc.perform(get("/api/v1/auth/user/me")
-                        .cookie(sessionCookie))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.email").value(email))
-                .andExpect(jsonPath("$.firstName").value("John"))
-                .andExpect(jsonPath("$.lastName").value("Doe"));
+        try {
+            // 1. Register User
+            UserRegisterRequest registerRequest = new UserRegisterRequest();
+            registerRequest.setFirstName("John");
+            registerRequest.setSecondName("Doe");
+            registerRequest.setEmail(email);
+            registerRequest.setPassword(password);
+
+            mockMvc.perform(post("/api/v1/auth/user/register")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(registerRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.success").value(true))
+                    .andExpect(jsonPath("$.message").value("Verification code sent to email"));
+
+            // 2. Get Verification Code from the pending registration store
+            PendingRegistration verificationCode = pendingRegistrationStore.find(email).orElse(null);
+
+            assertNotNull(verificationCode, "Verification code should be pending");
+            String code = verificationCode.code();
+
+            // 3. Verify User
+            mockMvc.perform(post("/api/v1/auth/user/verify")
+                            .param("email", email)
+                            .param("code", code))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.success").value(true))
+                    .andExpect(jsonPath("$.message").value("User registered successfully"));
+
+            // 4. Login User
+            UserLoginRequest loginRequest = new UserLoginRequest();
+            loginRequest.setEmail(email);
+            loginRequest.setPassword(password);
+
+            Cookie sessionCookie = mockMvc.perform(post("/api/v1/auth/user/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(loginRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.success").value(true))
+                    .andExpect(cookie().exists("USER_SESSION"))
+                    .andReturn().getResponse().getCookie("USER_SESSION");
+
+            // 5. Test /user/me (Verifies UserSessionService)
+            mockMvc.perform(get("/api/v1/auth/user/me")
+                            .cookie(sessionCookie))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.email").value(email))
+                    .andExpect(jsonPath("$.firstName").value("John"))
+                    .andExpect(jsonPath("$.lastName").value("Doe"));
+        } finally {
+            deleteUser(email);
+        }
     }
 
     @Test
-    @Transactional
     public void testUpdateUser() throws Exception {
         String email = "updateuser@example.com";
         String password = "StrongPassword123!";
-
-        // 1. Register User
-        UserRegisterRequest registerRequest = new UserRegisterRequest();
-        registerRequest.setFirstName("OriginalFirst");
-        registerRequest.setSecondName("OriginalLast");
-        registerRequest.setEmail(email);
-        registerRequest.setPassword(password);
-
-        mockMvc.perform(post("/api/v1/auth/user/register")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(registerRequest)))
-                .andExpect(status().isOk());
-
-        // 2. Get Verification Code
-        VerificationCode verificationCode = verificationCodeRepository.findAll().stream()
-                .filter(vc -> vc.getEmail().equals(email))
-                .findFirst()
-                .orElse(null);
-        assertNotNull(verificationCode);
-
-        // 3. Verify User
-        mockMvc.perform(post("/api/v1/auth/user/verify")
-                        .param("email", email)
-                        .param("code", verificationCode.getCode()))
-                .andExpect(status().isOk());
-
-        // 4. Login
-        UserLoginRequest loginRequest = new UserLoginRequest();
-        loginRequest.setEmail(email);
-        loginRequest.setPassword(password);
-
-        Cookie sessionCookie = mockMvc.perform(post("/api/v1/auth/user/login")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(loginRequest)))
-                .andExpect(status().isOk())
-                .andReturn().getResponse().getCookie("USER_SESSION");
-
-        // 5. Update User
-        UserUpdateRequest updateRequest = new UserUpdateRequest();
-        updateRequest.setFirstName("UpdatedFirst");
-        updateRequest.setSecondName("UpdatedLast");
-        updateRequest.setTags(Arrays.asList("developer", "java"));
-
-        mockMvc.perform(put("/api/v1/auth/user")
-                        .cookie(sessionCookie)
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(updateRequest)))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.firstName").value("UpdatedFirst"))
-                .andExpect(jsonPath("$.lastName").value("UpdatedLast"))
-                .andExpect(jsonPath("$.tags[0]").value("developer"))
-                .andExpect(jsonPath("$.tags[1]").value("java"));
+        try {
+            // 1. Register User
+            UserRegisterRequest registerRequest = new UserRegisterRequest();
+            registerRequest.setFirstName("OriginalFirst");
+            registerRequest.setSecondName("OriginalLast");
+            registerRequest.setEmail(email);
+            registerRequest.setPassword(password);
+
+            mockMvc.perform(post("/api/v1/auth/user/register")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(registerRequest)))
+                    .andExpect(status().isOk());
+
+            // 2. Get Verification Code
+            PendingRegistration verificationCode = pendingRegistrationStore.find(email).orElse(null);
+            assertNotNull(verificationCode);
+
+            // 3. Verify User
+            mockMvc.perform(post("/api/v1/auth/user/verify")
+                            .param("email", email)
+                            .param("code", verificationCode.code()))
+                    .andExpect(status().isOk());
+
+            // 4. Login
+            UserLoginRequest loginRequest = new UserLoginRequest();
+            loginRequest.setEmail(email);
+            loginRequest.setPassword(password);
+
+            Cookie sessionCookie = mockMvc.perform(post("/api/v1/auth/user/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(loginRequest)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getCookie("USER_SESSION");
+
+            // 5. Update User
+            UserUpdateRequest updateRequest = new UserUpdateRequest();
+            updateRequest.setFirstName("UpdatedFirst");
+            updateRequest.setSecondName("UpdatedLast");
+            updateRequest.setTags(Arrays.asList("developer", "java"));
+
+            mockMvc.perform(put("/api/v1/auth/user")
+                            .cookie(sessionCookie)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(updateRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.firstName").value("UpdatedFirst"))
+                    .andExpect(jsonPath("$.lastName").value("UpdatedLast"))
+                    .andExpect(jsonPath("$.tags[0]").value("developer"))
+                    .andExpect(jsonPath("$.tags[1]").value("java"));
         
-        // Verify update in DB
-        mockMvc.perform(get("/api/v1/auth/user/me")
-                .cookie(sessionCookie))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.firstName").value("UpdatedFirst"))
-                .andExpect(jsonPath("$.lastName").value("UpdatedLast"))
-                .andExpect(jsonPath("$.tags[0]").value("developer"))
-                .andExpect(jsonPath("$.tags[1]").value("java"));
+            // Verify update in DB
+            mockMvc.perform(get("/api/v1/auth/user/me")
+                    .cookie(sessionCookie))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.firstName").value("UpdatedFirst"))
+                    .andExpect(jsonPath("$.lastName").value("UpdatedLast"))
+                    .andExpect(jsonPath("$.tags[0]").value("developer"))
+                    .andExpect(jsonPath("$.tags[1]").value("java"));
+        } finally {
+            deleteUser(email);
+        }
     }
 
     @Test
-    @Transactional
     public void testUserVerifyWithInvalidCode() throws Exception {
         String email = "invalidcode@example.com";
         String password = "StrongPassword123!";
-
-        // Register User
-        UserRegisterRequest registerRequest = new UserRegisterRequest();
-        registerRequest.setFirstName("Jane");
-        registerRequest.setSecondName("Doe");
-        registerRequest.setEmail(email);
-        registerRequest.setPassword(password);
-
-        mockMvc.perform(post("/api/v1/auth/user/register")
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .content(objectMapper.writeValueAsString(registerRequest)))
-                .andExpect(status().isOk());
-
-        // Verify with Wrong Code
-        mockMvc.perform(post("/api/v1/auth/user/verify")
-                        .param("email", email)
-                        .param("code", "000000"))
-                .andExpect(status().isBadRequest())
-                .andExpect(jsonPath("$.message").value("Invalid email or verification code"));
+        try {
+            // Register User
+            UserRegisterRequest registerRequest = new UserRegisterRequest();
+            registerRequest.setFirstName("Jane");
+            registerRequest.setSecondName("Doe");
+            registerRequest.setEmail(email);
+            registerRequest.setPassword(password);
+
+            mockMvc.perform(post("/api/v1/auth/user/register")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(registerRequest)))
+                    .andExpect(status().isOk());
+
+            // Verify with Wrong Code
+            mockMvc.perform(post("/api/v1/auth/user/verify")
+                            .param("email", email)
+                            .param("code", "000000"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Invalid email or verification code"));
+        } finally {
+            deleteUser(email);
+        }
     }
 }
\ No newline at end of file
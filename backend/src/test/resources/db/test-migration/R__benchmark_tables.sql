@@ -0,0 +1,10 @@
+-- PostInsertBenchmark.IdentityPost: the posts table as it was with an IDENTITY id
+create table if not exists bench_identity_posts (
+    id bigint generated by default as identity,
+    title varchar(255) not null,
+    content text not null,
+    club_id bigint not null,
+    creation_date timestamp(6),
+    primary key (id),
+    constraint fk_bench_identity_posts_club foreign key (club_id) references clubs (id)
+);